@@ -0,0 +1,389 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.cli.BasicParser;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+import org.junit.runner.manipulation.Filter;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+import org.xenei.junit.contract.info.ContractTestMap;
+
+import io.github.lukehutch.fastclasspathscanner.FastClasspathScanner;
+import io.github.lukehutch.fastclasspathscanner.matchprocessor.ClassAnnotationMatchProcessor;
+
+/**
+ * A long running process that keeps the test class path, the contract test map
+ * and the reflection caches loaded between test runs.
+ * <p>
+ * The daemon listens on a local port for requests. Each request is a single
+ * line:
+ * </p>
+ * <ul>
+ * <li><code>suite &lt;class&gt;</code> - run the test class. If the class is
+ * an implementation class all of its <code>&#64;ContractImpl</code> annotated
+ * suites are run.</li>
+ * <li><code>contract &lt;contract class&gt; &lt;impl class&gt;</code> - run
+ * the contract test against the implementation. The implementation may be a
+ * <code>&#64;ContractImpl</code> annotated suite or the class named in the
+ * annotation.</li>
+ * <li><code>reload</code> - discard the loaded classes and reload the class
+ * path. Only the classes loaded from the <code>-d</code> directories and jars
+ * can be reloaded, without them the request is rejected.</li>
+ * <li><code>shutdown</code> - stop the daemon.</li>
+ * </ul>
+ * <p>
+ * The results of test runs are streamed back as lines starting with
+ * <code>STARTED</code>, <code>FAILED</code>, <code>ASSUMPTION</code>,
+ * <code>IGNORED</code> and <code>FINISHED</code>, followed by a
+ * <code>DONE</code> line with the totals. A request that can not be
+ * processed is answered with an <code>ERROR</code> line and the daemon
+ * continues with the next request.
+ * </p>
+ */
+public class ContractDaemon {
+
+    private static final Charset UTF8 = Charset.forName( "UTF-8" );
+
+    private final URL[] urls;
+    private final ClassLoader parent;
+    private ClassLoader classLoader;
+    // map of implementation class name to the contract suites that test it.
+    private Map<String, List<Class<?>>> suites;
+
+    /**
+     * Constructor.
+     *
+     * @param urls
+     *            the class path to load the tests from.
+     * @param parent
+     *            the parent class loader.
+     */
+    public ContractDaemon(final URL[] urls, final ClassLoader parent) {
+        this.urls = urls;
+        this.parent = parent;
+    }
+
+    /**
+     * Run the contract test daemon.
+     *
+     * use -h argument for help and argument list.
+     *
+     * @param args
+     *            the command line arguments.
+     * @throws ParseException
+     *             if command line can not be parse.
+     * @throws IOException
+     *             if the server socket can not be opened.
+     */
+    public static void main(final String[] args) throws ParseException, IOException {
+        final CommandLine commands = new BasicParser().parse( getOptions(), args );
+
+        if (commands.hasOption( "h" )) {
+            final HelpFormatter formatter = new HelpFormatter();
+            formatter.printHelp( "ContractDaemon", getOptions() );
+            System.exit( 0 );
+        }
+
+        URL[] urls = new URL[0];
+        if (commands.hasOption( "d" )) {
+            final String[] dirs = commands.getOptionValues( "d" );
+            urls = new URL[dirs.length];
+            for (int i = 0; i < dirs.length; i++) {
+                urls[i] = new File( dirs[i] ).toURI().toURL();
+            }
+        }
+
+        final int port = commands.hasOption( "l" ) ? Integer.parseInt( commands.getOptionValue( "l" ) ) : 0;
+
+        final ContractDaemon daemon = new ContractDaemon( urls, Thread.currentThread().getContextClassLoader() );
+        daemon.load();
+        daemon.serve( new ServerSocket( port, 0, InetAddress.getLoopbackAddress() ) );
+    }
+
+    // the options
+    private static Options getOptions() {
+        final Options retval = new Options();
+
+        retval.addOption( "h", "help", false, "Display this help page" );
+        retval.addOption( "d", "directory", true,
+                "Directory or jar to add to the test class path.  Required for reload" );
+        retval.addOption( "l", "listen", true, "Local port to listen on.  Defaults to a free port" );
+
+        return retval;
+    }
+
+    /**
+     * Load the class path. Creates the class loader and scans it for contract
+     * tests and contract suites so that later requests do not.
+     */
+    public void load() {
+        classLoader = urls.length == 0 ? parent : new URLClassLoader( urls, parent );
+        final ClassLoader current = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader( classLoader );
+        try {
+            new ContractTestMap();
+            final Map<String, List<Class<?>>> map = new HashMap<String, List<Class<?>>>();
+            final FastClasspathScanner scanner = new FastClasspathScanner();
+            scanner.matchClassesWithAnnotation( ContractImpl.class, new ClassAnnotationMatchProcessor() {
+
+                @Override
+                public void processMatch(Class<?> matchingClass) {
+                    final RunWith runWith = matchingClass.getAnnotation( RunWith.class );
+                    if (runWith != null && ContractSuite.class.equals( runWith.value() )) {
+                        final String implName = matchingClass.getAnnotation( ContractImpl.class ).value().getName();
+                        List<Class<?>> lst = map.get( implName );
+                        if (lst == null) {
+                            lst = new ArrayList<Class<?>>();
+                            map.put( implName, lst );
+                        }
+                        lst.add( matchingClass );
+                    }
+                }
+            } );
+            scanner.scan();
+            suites = map;
+        } finally {
+            Thread.currentThread().setContextClassLoader( current );
+        }
+    }
+
+    /**
+     * Discard the loaded classes and load the class path again.
+     * 
+     * @throws IOException
+     *             if the previous class loader can not be closed.
+     * @throws IllegalStateException
+     *             if the daemon was not given a class path to load, the classes
+     *             of the parent class loader can not be reloaded.
+     */
+    public void reload() throws IOException {
+        if (urls.length == 0) {
+            throw new IllegalStateException( "nothing to reload, the daemon was started without -d" );
+        }
+        ContractTestMap.clearCache( classLoader );
+        if (classLoader != parent && classLoader instanceof URLClassLoader) {
+            ((URLClassLoader) classLoader).close();
+        }
+        classLoader = null;
+        suites = null;
+        load();
+    }
+
+    /**
+     * Accept and process requests until a shutdown request is received.
+     * Requests are processed one at a time.
+     *
+     * @param server
+     *            the server socket to accept requests on.
+     * @throws IOException
+     *             on error.
+     */
+    public void serve(final ServerSocket server) throws IOException {
+        System.out.println( "ContractDaemon listening on port " + server.getLocalPort() );
+        try {
+            boolean running = true;
+            while (running) {
+                final Socket socket = server.accept();
+                try {
+                    running = process( new BufferedReader( new InputStreamReader( socket.getInputStream(), UTF8 ) ),
+                            new PrintWriter( new OutputStreamWriter( socket.getOutputStream(), UTF8 ), true ) );
+                } catch (final Throwable e) {
+                    System.err.println( "Request failed: " + e );
+                } finally {
+                    socket.close();
+                }
+            }
+        } finally {
+            server.close();
+        }
+    }
+
+    /**
+     * Process the requests on a connection. A request that fails is reported
+     * to the client with an <code>ERROR</code> line.
+     *
+     * @param in
+     *            the request reader.
+     * @param out
+     *            the writer to stream results to.
+     * @return false if the daemon should shut down.
+     * @throws IOException
+     *             on error.
+     */
+    public boolean process(final BufferedReader in, final PrintWriter out) throws IOException {
+        String line = in.readLine();
+        while (line != null) {
+            final String[] parts = line.trim().split( "\\s+" );
+            if ("shutdown".equals( parts[0] )) {
+                out.println( "BYE" );
+                return false;
+            }
+            try {
+                if ("reload".equals( parts[0] )) {
+                    reload();
+                    out.println( "RELOADED" );
+                } else if ("suite".equals( parts[0] ) && parts.length == 2) {
+                    run( parts[1], null, out );
+                } else if ("contract".equals( parts[0] ) && parts.length == 3) {
+                    run( parts[2], parts[1], out );
+                } else if (parts[0].length() > 0) {
+                    out.println( "ERROR unknown request: " + line );
+                }
+            } catch (final IllegalStateException e) {
+                out.println( "ERROR " + e.getMessage() );
+            } catch (final Throwable e) {
+                out.println( "ERROR request failed: " + line + ": " + e );
+            }
+            line = in.readLine();
+        }
+        return true;
+    }
+
+    /**
+     * Run a test class, optionally limited to a single contract test.
+     *
+     * @param className
+     *            the test class or an implementation class. If an
+     *            implementation class is given all the contract suites for it
+     *            are run.
+     * @param contractName
+     *            the contract test class name, may be null.
+     * @param out
+     *            the writer to stream results to.
+     */
+    private void run(final String className, final String contractName, final PrintWriter out) {
+        final ClassLoader current = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader( classLoader );
+        try {
+            final List<Class<?>> implSuites = suites.get( className );
+            Request request;
+            if (implSuites == null) {
+                request = Request.aClass( Class.forName( className, true, classLoader ) );
+            } else {
+                request = Request.classes( implSuites.toArray( new Class<?>[implSuites.size()] ) );
+            }
+            if (contractName != null) {
+                request = request.filterWith( new ContractFilter( Class.forName( contractName, true, classLoader ) ) );
+            }
+            final JUnitCore core = new JUnitCore();
+            core.addListener( new StreamingListener( out ) );
+            final Result result = core.run( request );
+            out.println( String.format( "DONE run=%s failures=%s ignored=%s time=%sms", result.getRunCount(),
+                    result.getFailureCount(), result.getIgnoreCount(), result.getRunTime() ) );
+        } catch (final ClassNotFoundException e) {
+            out.println( "ERROR class not found: " + e.getMessage() );
+        } finally {
+            Thread.currentThread().setContextClassLoader( current );
+        }
+    }
+
+    /**
+     * A filter that only runs the tests from a single contract test class.
+     */
+    private static class ContractFilter extends Filter {
+        private final Class<?> contract;
+        private final String suffix;
+
+        ContractFilter(final Class<?> contract) {
+            this.contract = contract;
+            this.suffix = "(" + contract.getSimpleName() + ")";
+        }
+
+        @Override
+        public boolean shouldRun(final Description description) {
+            if (description.isTest()) {
+                final String methodName = description.getMethodName();
+                return contract.getName().equals( description.getClassName() )
+                        || (methodName != null && methodName.endsWith( suffix ));
+            }
+            for (final Description child : description.getChildren()) {
+                if (shouldRun( child )) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String describe() {
+            return "contract " + contract.getName();
+        }
+    }
+
+    /**
+     * A RunListener that writes the test events to the client.
+     */
+    private static class StreamingListener extends RunListener {
+        private final PrintWriter out;
+
+        StreamingListener(final PrintWriter out) {
+            this.out = out;
+        }
+
+        @Override
+        public void testStarted(final Description description) {
+            out.println( "STARTED " + description.getDisplayName() );
+        }
+
+        @Override
+        public void testFinished(final Description description) {
+            out.println( "FINISHED " + description.getDisplayName() );
+        }
+
+        @Override
+        public void testFailure(final Failure failure) {
+            out.println( "FAILED " + failure.getDescription().getDisplayName() + " " + failure.getMessage() );
+        }
+
+        @Override
+        public void testAssumptionFailure(final Failure failure) {
+            out.println( "ASSUMPTION " + failure.getDescription().getDisplayName() + " " + failure.getMessage() );
+        }
+
+        @Override
+        public void testIgnored(final Description description) {
+            out.println( "IGNORED " + description.getDisplayName() );
+        }
+    }
+}
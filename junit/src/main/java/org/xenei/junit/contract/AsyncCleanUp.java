@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation on a producer class to run its <code>cleanUp()</code> in the
+ * background.
+ * <p>
+ * When a producer of an annotated class is injected as an interface the
+ * runner injects a proxy whose <code>cleanUp()</code> queues the call and
+ * returns at once, so the next test does not wait for temporary directories
+ * to be deleted or pools to be closed. The queued calls run one at a time in
+ * the order they were made. The runner waits for them after the last test of
+ * the contract test class and reports any exception they throw as a failure
+ * of the class.
+ * </p>
+ * <p>
+ * The producer must allow <code>newInstance()</code> to be called while an
+ * earlier <code>cleanUp()</code> is running, and <code>cleanUp()</code> must
+ * only release the instances created before it was called. Cleanups run in the
+ * foreground when leak detection is enabled.
+ * </p>
+ * 
+ * @see org.xenei.junit.contract.parallel.AsyncCleanUpProducer
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface AsyncCleanUp {
+}
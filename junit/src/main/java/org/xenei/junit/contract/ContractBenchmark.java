@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to declare a benchmark method for an interface.
+ * <p>
+ * Benchmark methods are declared in <code>&#64;Contract</code> classes along
+ * side the <code>&#64;ContractTest</code> methods and are run against every
+ * implementation of the interface. The method is public, takes no arguments
+ * and performs a single operation on the object from the injected producer.
+ * Set up performed in <code>&#64;Before</code> methods and rules is not
+ * measured.
+ * </p>
+ * <p>
+ * For example <code>
+ * 
+ * &#64;ContractBenchmark public void contains() { set.contains( "x" ); }
+ * </code>
+ * </p>
+ * <p>
+ * Benchmarks are slow so they are reported as ignored unless the
+ * <code>contracts.benchmark</code> system property is set to true. Each fork
+ * creates a new test instance and runs the warm up and measurement iterations
+ * against it. The results are written to the directory named by the
+ * <code>contracts.results.dir</code> system property.
+ * </p>
+ * 
+ * @see org.xenei.junit.contract.perf.BenchmarkStatement
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ContractBenchmark {
+
+    /**
+     * The number of warm up iterations. Warm up iterations are not recorded.
+     */
+    int warmupIterations() default 5;
+
+    /**
+     * The number of measured iterations.
+     */
+    int iterations() default 10;
+
+    /**
+     * The length of each iteration in milliseconds. The method is called
+     * repeatedly until the time has passed.
+     */
+    long iterationTime() default 100;
+
+    /**
+     * The number of times the benchmark is repeated with a new test instance.
+     */
+    int forks() default 1;
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.xenei.junit.contract.perf.Complexity;
+
+/**
+ * Annotation to declare the growth class of an operation for an interface.
+ * <p>
+ * The annotated method is declared in a <code>&#64;Contract</code> class, takes
+ * the input size as an <code>int</code> and returns a <code>Runnable</code>
+ * that performs the operation once. The method prepares the object from the
+ * producer for the size, for example by adding <code>size</code> entries, and
+ * is not measured. The returned operation is called repeatedly so it must not
+ * change the size of the object.
+ * </p>
+ * <p>
+ * For example <code>
+ * 
+ * &#64;ContractComplexity( Complexity.LOG_N ) public Runnable contains(int size)
+ * {...} </code>
+ * </p>
+ * <p>
+ * For each size a new test instance is created and the
+ * <code>&#64;Before</code> methods are run before the method is called. The
+ * test fails if the measured times grow faster than the declared class. Like
+ * benchmarks, complexity methods are reported as ignored unless the
+ * <code>contracts.benchmark</code> system property is true.
+ * </p>
+ * 
+ * @see Complexity
+ * @see org.xenei.junit.contract.perf.ComplexityStatement
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ContractComplexity {
+
+    /**
+     * The declared growth class.
+     */
+    Complexity value();
+
+    /**
+     * The input sizes to measure, smallest first.
+     */
+    int[] sizes() default { 1000, 10000, 100000 };
+
+    /**
+     * The number of times the operation is timed at each size. The fastest
+     * time is used.
+     */
+    int iterations() default 5;
+
+    /**
+     * The length of each timing in milliseconds.
+     */
+    long iterationTime() default 20;
+
+    /**
+     * The permitted growth in excess of the declared class as a power of the
+     * size. The default fails an implementation that is a power of n worse
+     * than declared, for example O(n) when O(1) or O(log n) is declared or
+     * O(n^2) when O(n log n) is declared. A log n factor adds only about 0.11
+     * over the default sizes, so O(log n) against O(1) and O(n log n) against
+     * O(n) pass unless the tolerance is lowered.
+     */
+    double tolerance() default 0.5;
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to declare the lock contention budget of a contract method.
+ * <p>
+ * The annotation is added to a <code>&#64;ContractTest</code>,
+ * <code>&#64;ContractStress</code> or <code>&#64;ContractScaling</code> method
+ * in a <code>&#64;Contract</code> class. While the method runs the time that
+ * threads spend blocked entering monitors and waiting is measured and the most
+ * contended locks are identified. The test fails if the total time exceeds the
+ * budget.
+ * </p>
+ * <p>
+ * For example <code>
+ * 
+ * &#64;ContractStress( threads = 4 ) &#64;ContractContention( maxBlockedTime =
+ * 100 ) public StressTest&lt;...&gt; addRemove() {...} </code>
+ * </p>
+ * 
+ * @see org.xenei.junit.contract.perf.ContentionStatement
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ContractContention {
+
+    /**
+     * The largest permitted time in milliseconds, summed over all threads, spent
+     * blocked entering or re-entering monitors. Negative for no limit.
+     */
+    long maxBlockedTime() default -1;
+
+    /**
+     * The largest permitted time in milliseconds, summed over all threads, spent
+     * waiting or parked, including waiting for <code>java.util.concurrent</code>
+     * locks. Negative for no limit.
+     */
+    long maxWaitedTime() default -1;
+}
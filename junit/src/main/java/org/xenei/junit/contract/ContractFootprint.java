@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to declare the memory budget of the instances produced for an
+ * interface.
+ * <p>
+ * The annotated method is declared in a <code>&#64;Contract</code> class, takes
+ * the number of elements as an <code>int</code> and returns the object from
+ * the producer populated with that many elements. The object must not be
+ * retained by the test instance or the producer after it is returned.
+ * </p>
+ * <p>
+ * For example <code>
+ * 
+ * &#64;ContractFootprint( bytesPerElement = 48 ) public Object populate(int
+ * elements) {...} </code>
+ * </p>
+ * <p>
+ * A new test instance is created and the <code>&#64;Before</code> methods are
+ * run before the method is called. The heap in use after a forced garbage
+ * collection is compared before and after the method is called and the
+ * difference, the retained size of the returned object, is divided by the
+ * number of elements. The test fails if the result is larger than the
+ * budget. Like benchmarks, footprint methods are reported as ignored unless
+ * the <code>contracts.benchmark</code> system property is true.
+ * </p>
+ * 
+ * @see org.xenei.junit.contract.perf.FootprintStatement
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ContractFootprint {
+
+    /**
+     * The largest permitted retained size per element in bytes.
+     */
+    double bytesPerElement();
+
+    /**
+     * The number of elements to populate the object with. Large enough that
+     * the fixed size of the object is not significant.
+     */
+    int elements() default 100000;
+
+    /**
+     * The number of times the object is populated and measured. The smallest
+     * size is used.
+     */
+    int samples() default 3;
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to declare the shared resources that a contract test or a
+ * contract suite uses, such as an embedded database, a temporary directory or
+ * a range of ports.
+ * <p>
+ * When the contract suite runs its contract tests in parallel (see
+ * <code>contracts.parallel</code>) no more than <code>limit</code> contract
+ * test runners that use a resource run at the same time. Contract tests that
+ * do not share a resource are not limited. On a <code>&#64;Contract</code>
+ * class the resources apply to that contract test, on a class annotated with
+ * <code>&#64;RunWith( ContractSuite.class )</code> they apply to all the
+ * contract tests in the suite.
+ * </p>
+ * <p>
+ * For example <code>
+ * 
+ * &#64;ContractResource( "embedded-db" ) </code>
+ * </p>
+ * <p>
+ * The limit of a resource can be changed with the
+ * <code>contracts.resource.&lt;name&gt;</code> system property.
+ * </p>
+ * 
+ * @see org.xenei.junit.contract.parallel.ResourceScheduler
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ContractResource {
+
+    /**
+     * The names of the resources.
+     */
+    String[] value();
+
+    /**
+     * The number of contract test runners that may use each resource at the
+     * same time.
+     */
+    int limit() default 1;
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to declare a throughput scaling test for a thread safe
+ * interface.
+ * <p>
+ * The annotated method is declared in a <code>&#64;Contract</code> class, takes
+ * no arguments and returns an <code>OperationMix</code> of weighted operations
+ * on a single object from the producer. The operations are run by 1, 2, 4 ...
+ * threads at the same time and the throughput is measured at each level.
+ * </p>
+ * <p>
+ * For example <code>
+ * 
+ * &#64;ContractScaling( threads = { 1, 2, 4, 8 }, minEfficiency = 0.6 ) public
+ * OperationMix readMostly() { final ConcurrentMap m = producer.newInstance();
+ * return new OperationMix().add( "get", 90, ... ).add( "put", 10, ... ); }
+ * </code>
+ * </p>
+ * <p>
+ * For each level a new test instance is created and the
+ * <code>&#64;Before</code> methods are run before the method is called. The
+ * scaling efficiency at a level is the throughput divided by the single thread
+ * throughput multiplied by the number of threads. The test fails if the
+ * efficiency at any level is below the minimum. Levels with more threads than
+ * available processors are not run. Like benchmarks, scaling tests are
+ * reported as ignored unless the <code>contracts.benchmark</code> system
+ * property is true.
+ * </p>
+ * 
+ * @see org.xenei.junit.contract.perf.OperationMix
+ * @see org.xenei.junit.contract.perf.ScalingStatement
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ContractScaling {
+
+    /**
+     * The numbers of threads to measure, starting with 1.
+     */
+    int[] threads() default { 1, 2, 4, 8 };
+
+    /**
+     * The warm up time at each level in milliseconds.
+     */
+    long warmupTime() default 200;
+
+    /**
+     * The measurement time at each level in milliseconds.
+     */
+    long measurementTime() default 500;
+
+    /**
+     * The minimum scaling efficiency (0-1) at each level.
+     */
+    double minEfficiency() default 0.5;
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to declare a stress test for a thread safe interface.
+ * <p>
+ * The annotated method is declared in a <code>&#64;Contract</code> class, takes
+ * no arguments and returns a <code>StressTest</code> that holds one object
+ * from the producer, the operations to run on it and a sequential model of the
+ * interface. The operations are run on the object from many threads at once
+ * and the history of each round of operations is checked for linearizability
+ * against the model: the results must match those of some sequential order of
+ * the operations that respects their real time order.
+ * </p>
+ * <p>
+ * A new test instance is created and the <code>&#64;Before</code> methods are
+ * run before the method is called. Like benchmarks, stress tests are reported
+ * as ignored unless the <code>contracts.benchmark</code> system property is
+ * true.
+ * </p>
+ * 
+ * @see org.xenei.junit.contract.stress.StressTest
+ * @see org.xenei.junit.contract.stress.StressStatement
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ContractStress {
+
+    /**
+     * The number of threads.
+     */
+    int threads() default 4;
+
+    /**
+     * The length of the test in milliseconds.
+     */
+    long duration() default 1000;
+
+    /**
+     * The number of operations each thread performs in a round. Each round is
+     * checked separately, the cost of checking grows quickly with the number
+     * of operations in a round.
+     */
+    int operationsPerRound() default 2;
+}
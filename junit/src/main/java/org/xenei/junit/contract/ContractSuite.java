@@ -23,8 +23,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
@@ -35,12 +38,14 @@ import org.junit.Ignore;
 import org.junit.runner.Description;
 import org.junit.runner.RunWith;
 import org.junit.runner.Runner;
+import org.junit.runner.notification.Failure;
 import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.BlockJUnit4ClassRunner;
 import org.junit.runners.ParentRunner;
 import org.junit.runners.model.FrameworkMethod;
 import org.junit.runners.model.InitializationError;
 import org.junit.runners.model.RunnerBuilder;
+import org.junit.runners.model.RunnerScheduler;
 import org.junit.runners.model.Statement;
 import org.xenei.classpathutils.ClassPathFilter;
 import org.xenei.classpathutils.filter.HasAnnotationClassFilter;
@@ -52,6 +57,9 @@ import org.xenei.junit.contract.info.DynamicTestInfo;
 import org.xenei.junit.contract.info.SuiteInfo;
 import org.xenei.junit.contract.info.TestInfo;
 import org.xenei.junit.contract.info.TestInfoErrorRunner;
+import org.xenei.junit.contract.parallel.IsolationCheck;
+import org.xenei.junit.contract.parallel.ResourceScheduler;
+import org.xenei.junit.contract.perf.SoakStatement;
 
 /**
  * Class that runs the Contract annotated tests.
@@ -83,10 +91,40 @@ import org.xenei.junit.contract.info.TestInfoErrorRunner;
  * <code>@RunWith( ContractSuite.class )</code> implements Dynamic the above
  * requirements change. See Dynamic for more information.
  * </p>
+ * <p>
+ * If the system property <code>contracts.streaming</code> is set to
+ * <code>true</code> the suite runs in streaming mode. In streaming mode each
+ * contract test runner is created when it is run and released when it
+ * completes, only its Description is retained between runs. A new instance of
+ * the class annotated with <code>@RunWith( ContractSuite.class )</code> is
+ * created for each contract test runner so producers are not shared between
+ * contract tests.
+ * </p>
+ * <p>
+ * If the system property <code>contracts.soak.minutes</code> or
+ * <code>contracts.soak.iterations</code> is set the suite runs in soak mode. In
+ * soak mode the contract tests are run repeatedly in streaming mode, so that
+ * each iteration uses new producers, and the heap, threads and open files are
+ * checked for leaks between iterations. See SoakStatement for details.
+ * </p>
+ * <p>
+ * If the system property <code>contracts.parallel</code> is set to a number
+ * of threads, or <code>true</code> for one per processor, the contract test
+ * runners are run in parallel in streaming mode. Runners that use a resource
+ * declared with <code>&#64;ContractResource</code> are limited to the number
+ * that may use the resource at the same time. See ResourceScheduler for
+ * details.
+ * </p>
  */
 public class ContractSuite extends ParentRunner<Runner> {
     private static final Log LOG = LogFactory.getLog( ContractSuite.class );
     private final List<Runner> fRunners;
+    // true if contract test runners are created as they are run.
+    private final boolean streaming;
+    // the resources used by each runner and their declared limits.
+    private final Map<Runner, Map<String, Integer>> resources = new IdentityHashMap<Runner, Map<String, Integer>>();
+    // the scheduler when running in parallel.
+    private volatile ResourceScheduler resourceScheduler;
 
     /**
      * Called reflectively on classes annotated with
@@ -109,6 +147,13 @@ public class ContractSuite extends ParentRunner<Runner> {
             throws InitializationError, InstantiationException, IllegalAccessException {
 
         super( contractTest );
+        if (ResourceScheduler.isEnabled()) {
+            IsolationCheck.check( ResourceScheduler.PARALLEL_PROPERTY );
+        }
+        // soak mode needs new producers for each iteration and parallel
+        // runners must not share producers.
+        streaming = Boolean.getBoolean( "contracts.streaming" ) || SoakStatement.isEnabled()
+                || ResourceScheduler.isEnabled();
 
         final ContractImpl contractImpl = contractTest.getAnnotation( ContractImpl.class );
         // find all the contract annotated tests on the class path.
@@ -139,6 +184,34 @@ public class ContractSuite extends ParentRunner<Runner> {
         }
 
         fRunners = Collections.unmodifiableList( runners );
+        if (ResourceScheduler.isEnabled()) {
+            setScheduler( new ResourceScheduler( ResourceScheduler.getThreads() ) );
+        }
+    }
+
+    /**
+     * Record the resources used by a runner.
+     * 
+     * @param runner
+     *            the runner.
+     * @param classes
+     *            the classes that may declare the resources with
+     *            <code>&#64;ContractResource</code>.
+     */
+    private void declareResources(final Runner runner, final Class<?>... classes) {
+        final Map<String, Integer> used = new HashMap<String, Integer>();
+        for (final Class<?> cls : classes) {
+            final ContractResource resource = cls.getAnnotation( ContractResource.class );
+            if (resource != null) {
+                for (final String name : resource.value()) {
+                    final Integer limit = used.get( name );
+                    used.put( name, limit == null ? resource.limit() : Math.min( limit, resource.limit() ) );
+                }
+            }
+        }
+        if (!used.isEmpty()) {
+            resources.put( runner, used );
+        }
     }
 
     /**
@@ -239,7 +312,9 @@ public class ContractSuite extends ParentRunner<Runner> {
                     }
                 } else {
                     try {
-                        runners.add( builder.runnerForClass( test ) );
+                        final Runner runner = builder.runnerForClass( test );
+                        declareResources( runner, dynamicClass, test );
+                        runners.add( runner );
                     } catch (final Throwable t) {
                         throw new InitializationError( t );
                     }
@@ -320,6 +395,7 @@ public class ContractSuite extends ParentRunner<Runner> {
         // see if it is in the annotatedClasses
         final BaseClassRunner bcr = new BaseClassRunner( testClass );
         if (bcr.computeTestMethods().size() > 0) {
+            declareResources( bcr, getTestClass().getJavaClass(), testClass );
             runners.add( bcr );
         }
 
@@ -339,7 +415,13 @@ public class ContractSuite extends ParentRunner<Runner> {
                     runner.logErrors( LOG );
                     runners.add( runner );
                 } else {
-                    runners.add( new ContractTestRunner( baseObj, parentTestInfo, testInfo, excludeMethods ) );
+                    final Runner runner = streaming
+                            ? new StreamingContractTestRunner( getTestClass().getJavaClass(), parentTestInfo,
+                                    testInfo, excludeMethods )
+                            : new ContractTestRunner( baseObj, parentTestInfo, testInfo, excludeMethods );
+                    declareResources( runner, getTestClass().getJavaClass(), testClass,
+                            testInfo.getContractTestClass() );
+                    runners.add( runner );
                 }
             }
         }
@@ -359,10 +441,51 @@ public class ContractSuite extends ParentRunner<Runner> {
         return child.getDescription();
     }
 
+    @Override
+    protected Statement childrenInvoker(final RunNotifier notifier) {
+        if (!SoakStatement.isEnabled()) {
+            return super.childrenInvoker( notifier );
+        }
+        final Class<?> suiteClass = getTestClass().getJavaClass();
+        final ContractImpl impl = suiteClass.getAnnotation( ContractImpl.class );
+        return new SoakStatement( new SoakStatement.Iteration() {
+
+            @Override
+            public Statement create(final RunNotifier iterationNotifier) {
+                return ContractSuite.super.childrenInvoker( iterationNotifier );
+            }
+        }, notifier, impl == null ? suiteClass.getName() : impl.value().getName(), suiteClass.getName() );
+    }
+
+    @Override
+    public void setScheduler(final RunnerScheduler scheduler) {
+        super.setScheduler( scheduler );
+        resourceScheduler = scheduler instanceof ResourceScheduler ? (ResourceScheduler) scheduler : null;
+    }
+
     @Override
     protected void runChild(final Runner child, final RunNotifier notifier) {
         LOG.debug( String.format( "Running: %s ", child ) );
-        child.run( notifier );
+        final ResourceScheduler scheduler = resourceScheduler;
+        if (scheduler == null) {
+            child.run( notifier );
+            return;
+        }
+        Map<String, Integer> used = resources.get( child );
+        if (used == null) {
+            used = Collections.emptyMap();
+        }
+        scheduler.submit( child.getDescription().getDisplayName(), used, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    child.run( notifier );
+                } catch (final Throwable t) {
+                    // there is no caller to report to on a scheduler thread.
+                    notifier.fireTestFailure( new Failure( child.getDescription(), t ) );
+                }
+            }
+        } );
     }
 
     /**
@@ -18,19 +18,57 @@
 
 package org.xenei.junit.contract;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.junit.Ignore;
 import org.junit.runner.Description;
+import org.junit.runner.manipulation.Filter;
+import org.junit.runner.manipulation.NoTestsRemainException;
+import org.junit.runner.manipulation.Sorter;
 import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.BlockJUnit4ClassRunner;
 import org.junit.runners.model.FrameworkMethod;
 import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.MultipleFailureException;
+import org.junit.runners.model.RunnerScheduler;
+import org.junit.runners.model.Statement;
 import org.xenei.junit.contract.info.DynamicTestInfo;
 import org.xenei.junit.contract.info.TestInfo;
+import org.xenei.junit.contract.leak.LeakDetector;
+import org.xenei.junit.contract.leak.TrackingProducer;
+import org.xenei.junit.contract.parallel.AsyncCleanUpProducer;
+import org.xenei.junit.contract.parallel.FixturePipeline;
+import org.xenei.junit.contract.parallel.IsolationCheck;
+import org.xenei.junit.contract.parallel.PrefetchingProducer;
+import org.xenei.junit.contract.parallel.ResourceScheduler;
+import org.xenei.junit.contract.parallel.VirtualThreadScheduler;
+import org.xenei.junit.contract.perf.BenchmarkStatement;
+import org.xenei.junit.contract.perf.ComplexityStatement;
+import org.xenei.junit.contract.perf.ContentionStatement;
+import org.xenei.junit.contract.perf.ContractContext;
+import org.xenei.junit.contract.perf.FootprintStatement;
+import org.xenei.junit.contract.perf.PerformanceResults;
+import org.xenei.junit.contract.perf.ResourceUsage;
+import org.xenei.junit.contract.perf.ScalingStatement;
+import org.xenei.junit.contract.perf.TestFixture;
+import org.xenei.junit.contract.reuse.ReusingProducer;
+import org.xenei.junit.contract.reuse.SnapshotProducer;
+import org.xenei.junit.contract.stress.StressStatement;
 
 /**
  * Class to run the Contract annotated tests in a suite or stand alone
@@ -39,6 +77,11 @@ import org.xenei.junit.contract.info.TestInfo;
  */
 public class ContractTestRunner extends BlockJUnit4ClassRunner {
 
+    // shared by all descriptions that do not retain any annotations.
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+    private static final Log LOG = LogFactory.getLog( ContractTestRunner.class );
+
     private final TestInfo parentTestInfo;
     // the setter class that the setter method is in
     private final TestInfo testInfo;
@@ -47,6 +90,30 @@ public class ContractTestRunner extends BlockJUnit4ClassRunner {
     // the getter method to call.
     private final Method getter;
     private final List<Method> excludedMethods;
+    // the descriptions of the test methods. JUnit requests these repeatedly.
+    private final ConcurrentMap<FrameworkMethod, Description> descriptions;
+    // the description of this runner, cleared when filtered or sorted.
+    private volatile Description description;
+    // the leak detector for the running test, if any.
+    private final AtomicReference<LeakDetector> leakDetector = new AtomicReference<LeakDetector>();
+    // the scheduler when tests run on virtual threads.
+    private volatile VirtualThreadScheduler virtualScheduler;
+    // prepares the test instances in the background while the tests run.
+    private volatile FixturePipeline pipeline;
+    // the producers with an instance created ahead of time that was not used.
+    private final Set<PrefetchingProducer> prefetched = Collections
+            .synchronizedSet( new HashSet<PrefetchingProducer>() );
+    // runs the cleanups of producers annotated with AsyncCleanUp.
+    private final AsyncCleanUpProducer.Queue cleanUps;
+    // the proxies shared by the tests for each IResettableProducer and
+    // ISnapshotProducer.
+    private final Map<Object, Object> shared = new IdentityHashMap<Object, Object>();
+    // the test instances given a ReusingProducer when reuse is verified.
+    private final Set<Object> reusingTests = Collections
+            .synchronizedSet( Collections.newSetFromMap( new IdentityHashMap<Object, Boolean>() ) );
+    // the test instance of the last methodBlock() on this thread when reuse
+    // is verified.
+    private final ThreadLocal<Object> blockTest = new ThreadLocal<Object>();
 
     /**
      * Create a test runner within the ContractTestSuite.
@@ -72,6 +139,9 @@ public class ContractTestRunner extends BlockJUnit4ClassRunner {
         this.getterObj = getterObj;
         this.getter = parentTestInfo.getMethod();
         this.excludedMethods = excludedMethods;
+        this.descriptions = new ConcurrentHashMap<FrameworkMethod, Description>();
+        this.cleanUps = new AsyncCleanUpProducer.Queue( "contract-cleanup-" + getName() );
+        useVirtualThreads();
     }
 
     /**
@@ -89,6 +159,37 @@ public class ContractTestRunner extends BlockJUnit4ClassRunner {
         this.getterObj = null;
         this.getter = null;
         this.excludedMethods = Collections.emptyList();
+        this.descriptions = new ConcurrentHashMap<FrameworkMethod, Description>();
+        this.cleanUps = new AsyncCleanUpProducer.Queue( "contract-cleanup-" + getName() );
+        useVirtualThreads();
+    }
+
+    /**
+     * Run the tests on virtual threads if enabled and supported.
+     */
+    private void useVirtualThreads() throws InitializationError {
+        final VirtualThreadScheduler scheduler = VirtualThreadScheduler.create();
+        if (scheduler != null) {
+            IsolationCheck.check( VirtualThreadScheduler.ENABLE_PROPERTY );
+            setScheduler( scheduler );
+        }
+    }
+
+    /**
+     * @throws IllegalStateException
+     *             if the scheduler runs tests on virtual threads and a mode
+     *             that compares JVM wide state for each test is enabled.
+     */
+    @Override
+    public void setScheduler(final RunnerScheduler scheduler) {
+        if (scheduler instanceof VirtualThreadScheduler) {
+            final String message = IsolationCheck.getMessage( VirtualThreadScheduler.ENABLE_PROPERTY );
+            if (message != null) {
+                throw new IllegalStateException( message );
+            }
+        }
+        super.setScheduler( scheduler );
+        virtualScheduler = scheduler instanceof VirtualThreadScheduler ? (VirtualThreadScheduler) scheduler : null;
     }
 
     /**
@@ -107,29 +208,586 @@ public class ContractTestRunner extends BlockJUnit4ClassRunner {
      */
     @Override
     protected Object createTest() throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        final FixturePipeline current = pipeline;
+        if (current != null) {
+            final Object retval = current.take();
+            if (retval != null) {
+                return retval;
+            }
+        }
+        return newTest( false );
+    }
+
+    /**
+     * Create the test instance and inject the producer.
+     * 
+     * @param background
+     *            true if the test instance is prepared by the fixture
+     *            pipeline.
+     * @return the test instance.
+     * @throws InstantiationException
+     *             if the test class can not be created.
+     * @throws IllegalAccessException
+     *             if the constructor or setter is not accessible.
+     * @throws InvocationTargetException
+     *             if the constructor, getter or setter throws an exception.
+     */
+    private Object newTest(final boolean background)
+            throws InstantiationException, IllegalAccessException, InvocationTargetException {
         final Object retval = getTestClass().getOnlyConstructor().newInstance();
         if (parentTestInfo != null) {
+            final Object source = getterObject();
+            final Object producer;
             if (parentTestInfo instanceof DynamicTestInfo) {
                 final DynamicTestInfo dti = (DynamicTestInfo) parentTestInfo;
 
-                final Object baseProducer = dti.getDynamicInjector().invoke( getterObj );
-                testInfo.getMethod().invoke( retval, dti.getProducer( baseProducer ) );
+                final Object baseProducer = dti.getDynamicInjector().invoke( source );
+                producer = injectable( dti.getProducer( baseProducer ), background );
             } else {
-                testInfo.getMethod().invoke( retval, getter.invoke( getterObj ) );
+                producer = injectable( getter.invoke( source ), background );
+            }
+            testInfo.getMethod().invoke( retval, producer );
+            if (ReusingProducer.isVerifyEnabled()
+                    && ProducerProxy.getHandler( producer, ReusingProducer.class ) != null) {
+                reusingTests.add( retval );
             }
+        } else if (!background) {
+            startPipeline( retval );
         }
         return retval;
 
     }
 
+    /**
+     * Get the object to call the producer getter on. Tests that run
+     * concurrently on virtual threads each get a new instance of the suite
+     * class, and so their own producer, so that the cleanUp() of one test does
+     * not release the instances another test is still using.
+     * 
+     * @return the getter object.
+     * @throws InstantiationException
+     *             if the suite class has no constructor without arguments.
+     * @throws IllegalAccessException
+     *             if the constructor is not accessible.
+     * @throws InvocationTargetException
+     *             if the constructor throws an exception.
+     */
+    private Object getterObject() throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        if (virtualScheduler == null || getterObj == null) {
+            return getterObj;
+        }
+        try {
+            return getterObj.getClass().getDeclaredConstructor().newInstance();
+        } catch (final NoSuchMethodException e) {
+            throw new InstantiationException( String.format(
+                    "%s must have a constructor without arguments to run on virtual threads", getterObj.getClass() ) );
+        }
+    }
+
+    /**
+     * Start preparing fixtures in the background if the pipeline is enabled
+     * and the object, the producer or a stand alone test, is annotated with
+     * PrefetchFixture.
+     * 
+     * @param obj
+     *            the producer or test instance.
+     */
+    private void startPipeline(final Object obj) {
+        final FixturePipeline current = pipeline;
+        if (current != null && obj != null && obj.getClass().isAnnotationPresent( PrefetchFixture.class )) {
+            current.start();
+        }
+    }
+
+    /**
+     * Prepare the producer for injection into the test. When leak detection is
+     * enabled the producer is wrapped so that the instances it creates are
+     * tracked. An ISnapshotProducer is wrapped so that the fixture is built
+     * once and restored for each instance, and an IResettableProducer is
+     * wrapped so that the instances are reused by the following tests.
+     * Otherwise a producer annotated with AsyncCleanUp is wrapped so that its
+     * cleanups run in the background. When the fixture is prepared in the
+     * background for a producer annotated with
+     * <code>&#64;PrefetchFixture( instance = true )</code> the producer is
+     * wrapped so that its first instance is created ahead of time.
+     * 
+     * @param producer
+     *            the producer.
+     * @param background
+     *            true if the test instance is prepared by the fixture
+     *            pipeline.
+     * @return the producer to inject.
+     */
+    private Object injectable(final Object producer, final boolean background) {
+        final Class<?> type = testInfo.getMethod().getParameterTypes()[0];
+        if (LeakDetector.isEnabled()) {
+            return TrackingProducer.wrap( producer, type, leakDetector );
+        }
+        if (!background) {
+            startPipeline( producer );
+        }
+        Object result;
+        if (SnapshotProducer.isSnapshot( producer ) && virtualScheduler == null) {
+            result = shared( producer, type );
+        } else if (ReusingProducer.isReusable( producer ) && virtualScheduler == null) {
+            return shared( producer, type );
+        } else if (AsyncCleanUpProducer.isAsync( producer )) {
+            result = ProducerProxy.wrap( new AsyncCleanUpProducer( producer, cleanUps ), type );
+        } else {
+            result = producer;
+        }
+        final PrefetchFixture prefetch = producer == null ? null
+                : producer.getClass().getAnnotation( PrefetchFixture.class );
+        if (background && prefetch != null && prefetch.instance()) {
+            final PrefetchingProducer handler = new PrefetchingProducer( result, prefetched );
+            final Object prefetching = ProducerProxy.wrap( handler, type );
+            if (prefetching != result) {
+                handler.prefetch();
+                result = prefetching;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the proxy for a producer that is shared by the tests, so that the
+     * instances or the snapshot of an ISnapshotProducer are reused across the
+     * tests that are given the same producer.
+     * 
+     * @param producer
+     *            the ISnapshotProducer or IResettableProducer.
+     * @param type
+     *            the type the producer is injected as.
+     * @return the proxy or the producer if a proxy can not be created.
+     */
+    private Object shared(final Object producer, final Class<?> type) {
+        synchronized (shared) {
+            Object result = shared.get( producer );
+            if (result == null) {
+                final Object inner = AsyncCleanUpProducer.isAsync( producer )
+                        ? ProducerProxy.wrap( new AsyncCleanUpProducer( producer, cleanUps ), type ) : producer;
+                result = ProducerProxy.wrap( SnapshotProducer.isSnapshot( producer ) ? new SnapshotProducer( inner )
+                        : new ReusingProducer( inner ), type );
+                shared.put( producer, result );
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Releases the shared producers and waits for the background cleanups
+     * after the last test so that their failures are reported against this
+     * runner.
+     */
     @Override
-    protected void runChild(final FrameworkMethod method, RunNotifier notifier) {
+    protected Statement childrenInvoker(final RunNotifier notifier) {
+        final Statement statement = prefetchingInvoker( super.childrenInvoker( notifier ) );
+        return new Statement() {
+
+            @Override
+            public void evaluate() throws Throwable {
+                try {
+                    statement.evaluate();
+                } finally {
+                    try {
+                        releaseShared();
+                    } finally {
+                        cleanUps.await();
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Release the proxies shared by the tests.
+     * 
+     * @throws Throwable
+     *             the exception thrown by a producer.
+     */
+    private void releaseShared() throws Throwable {
+        final List<Object> proxies;
+        synchronized (shared) {
+            proxies = new ArrayList<Object>( shared.values() );
+            shared.clear();
+        }
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        for (final Object proxy : proxies) {
+            final ProducerProxy handler = ProducerProxy.getHandler( proxy, ProducerProxy.class );
+            if (handler != null) {
+                try {
+                    handler.release();
+                } catch (final Throwable t) {
+                    errors.add( t );
+                }
+            }
+        }
+        MultipleFailureException.assertEmpty( errors );
+    }
+
+    /**
+     * Prepares the test instances in the background when enabled. Not used
+     * with leak detection, which must see the instances created by each test,
+     * or with virtual threads, which already create the test instances
+     * concurrently. The pipeline starts when the first test's producer is
+     * annotated with PrefetchFixture.
+     * 
+     * @param statement
+     *            the statement that runs the tests.
+     * @return the statement to run.
+     */
+    private Statement prefetchingInvoker(final Statement statement) {
+        if (!FixturePipeline.isEnabled() || LeakDetector.isEnabled() || virtualScheduler != null) {
+            return statement;
+        }
+        return new Statement() {
+
+            @Override
+            public void evaluate() throws Throwable {
+                final FixturePipeline current = new FixturePipeline( new Callable<Object>() {
+
+                    @Override
+                    public Object call() throws Exception {
+                        return newTest( true );
+                    }
+                }, "contract-prefetch-" + getName(), fixtureCount() );
+                pipeline = current;
+                try {
+                    statement.evaluate();
+                } finally {
+                    pipeline = null;
+                    if (current.close() != null) {
+                        // a test did not take its fixture, its instance is
+                        // released below.
+                        LOG.debug( "A prepared fixture was not used by " + getName() );
+                    }
+                    discardPrefetched();
+                }
+            }
+        };
+    }
+
+    /**
+     * Count the tests that will create a test instance with
+     * <code>createTest()</code>.
+     * 
+     * @return the number of fixtures the tests need.
+     */
+    private int fixtureCount() {
+        final List<Description> run = getDescription().getChildren();
+        int count = 0;
+        for (final FrameworkMethod method : getChildren()) {
+            if (run.contains( describeChild( method ) ) && method.getAnnotation( Ignore.class ) == null
+                    && !excludedMethods.contains( method.getMethod() ) && !isMeasurement( method )) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Release the instances created ahead of time that were not used.
+     */
+    private void discardPrefetched() {
+        final List<PrefetchingProducer> handlers;
+        synchronized (prefetched) {
+            handlers = new ArrayList<PrefetchingProducer>( prefetched );
+        }
+        for (final PrefetchingProducer handler : handlers) {
+            try {
+                handler.discard();
+            } catch (final Throwable t) {
+                LOG.debug( "Unable to release an instance created ahead of time", t );
+            }
+        }
+    }
+
+    @Override
+    protected void runChild(final FrameworkMethod method, final RunNotifier notifier) {
+        final VirtualThreadScheduler scheduler = virtualScheduler;
+        if (scheduler == null) {
+            runInContext( method, notifier );
+        } else if (isMeasurement( method ) || method.getAnnotation( ContractContention.class ) != null) {
+            // measurements and contention budgets run alone on this thread.
+            scheduler.awaitIdle();
+            runInContext( method, notifier );
+        } else {
+            scheduler.submit( new Runnable() {
+                @Override
+                public void run() {
+                    runInContext( method, notifier );
+                }
+            } );
+        }
+    }
+
+    /**
+     * Determine if a method measures performance.
+     * 
+     * @param method
+     *            the method.
+     * @return true for benchmark, scaling, complexity, footprint and stress
+     *         methods.
+     */
+    private static boolean isMeasurement(final FrameworkMethod method) {
+        return method.getAnnotation( ContractBenchmark.class ) != null
+                || method.getAnnotation( ContractScaling.class ) != null
+                || method.getAnnotation( ContractComplexity.class ) != null
+                || method.getAnnotation( ContractFootprint.class ) != null
+                || method.getAnnotation( ContractStress.class ) != null;
+    }
+
+    private void runInContext(final FrameworkMethod method, final RunNotifier notifier) {
+        ContractContext.set( new ContractContext( getImplementationName(), getName() ) );
+        try {
+            runContractChild( method, notifier );
+        } finally {
+            ContractContext.set( null );
+        }
+    }
+
+    /**
+     * Run a test, benchmark, complexity or footprint method. Records the
+     * resources used by the method when resource use is enabled.
+     * 
+     * @param method
+     *            the method to run.
+     * @param notifier
+     *            the notifier to report to.
+     */
+    private void runContractChild(final FrameworkMethod method, final RunNotifier notifier) {
         final Description description = describeChild( method );
         if (method.getAnnotation( Ignore.class ) != null || excludedMethods.contains( method.getMethod() )) {
             notifier.fireTestIgnored( description );
+        } else if (isMeasurement( method ) && !BenchmarkStatement.isEnabled()) {
+            // timing and memory measurements are slow and depend on the
+            // machine so they only run when asked for.
+            notifier.fireTestIgnored( description );
+        } else if (ResourceUsage.isEnabled()) {
+            // includes the creation of the test instance in methodBlock().
+            final ResourceUsage.Snapshot start = ResourceUsage.snapshot();
+            try {
+                runLeaf( leafBlock( method ), description, notifier );
+            } finally {
+                PerformanceResults.record( start.since( getImplementationName(), getName(), method.getName() ) );
+            }
         } else {
-            runLeaf( methodBlock( method ), description, notifier );
+            runLeaf( leafBlock( method ), description, notifier );
+        }
+    }
+
+    /**
+     * Create the statement for a method that is not ignored, profiled for
+     * contention and checked for leaks when enabled.
+     * 
+     * @param method
+     *            the method to run.
+     * @return the Statement.
+     */
+    private Statement leafBlock(final FrameworkMethod method) {
+        ContractContention contention = method.getAnnotation( ContractContention.class );
+        if (contention != null && ResourceScheduler.isEnabled()) {
+            // other contract tests are running in this JVM.
+            LOG.warn( String.format( "%s(%s) contention budget is not checked with %s", method.getName(),
+                    getImplementationName(), ResourceScheduler.PARALLEL_PROPERTY ) );
+            contention = null;
+        }
+        final boolean profile = contention != null || ContentionStatement.isEnabled();
+        if (!profile && !LeakDetector.isEnabled()) {
+            return contractBlock( method );
+        }
+        // the test instance is created when the statement is evaluated so that
+        // the detector sees it created.
+        Statement statement = new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                contractBlock( method ).evaluate();
+            }
+        };
+        if (profile) {
+            statement = new ContentionStatement( statement, contention, getImplementationName(), getName(),
+                    method.getName() );
+        }
+        if (LeakDetector.isEnabled()) {
+            statement = new LeakDetector( statement, leakDetector, getImplementationName(), getName(),
+                    method.getName() );
+        }
+        return statement;
+    }
+
+    /**
+     * Create the statement for a method that is not ignored.
+     * 
+     * @param method
+     *            the method to run.
+     * @return the Statement.
+     */
+    private Statement contractBlock(final FrameworkMethod method) {
+        if (method.getAnnotation( ContractBenchmark.class ) != null) {
+            return benchmarkBlock( method );
+        }
+        if (method.getAnnotation( ContractScaling.class ) != null) {
+            return scalingBlock( method );
+        }
+        if (method.getAnnotation( ContractComplexity.class ) != null) {
+            return complexityBlock( method );
+        }
+        if (method.getAnnotation( ContractFootprint.class ) != null) {
+            return footprintBlock( method );
+        }
+        if (method.getAnnotation( ContractStress.class ) != null) {
+            return stressBlock( method );
+        }
+        if (ReusingProducer.isVerifyEnabled() && parentTestInfo != null) {
+            return verifyResetBlock( method );
+        }
+        return methodBlock( method );
+    }
+
+    /**
+     * Remembers the test instance when reuse is verified so that
+     * verifyResetBlock() can tell if its producer reuses instances.
+     */
+    @Override
+    protected Statement methodInvoker(final FrameworkMethod method, final Object test) {
+        if (ReusingProducer.isVerifyEnabled()) {
+            blockTest.set( test );
         }
+        return super.methodInvoker( method, test );
+    }
+
+    /**
+     * Create the statement that runs a test twice so that the second run uses
+     * the instances reset after the first. A failure of the second run after
+     * the first passed is reported as a failure to reset. The test is only run
+     * again if its producer was wrapped by a ReusingProducer.
+     * 
+     * @param method
+     *            the test method.
+     * @return the Statement.
+     */
+    private Statement verifyResetBlock(final FrameworkMethod method) {
+        return new Statement() {
+
+            @Override
+            public void evaluate() throws Throwable {
+                final Statement first = methodBlock( method );
+                final boolean reusing = takeReusing();
+                first.evaluate();
+                if (!reusing) {
+                    return;
+                }
+                final Statement second = methodBlock( method );
+                takeReusing();
+                try {
+                    second.evaluate();
+                } catch (final AssertionError e) {
+                    final AssertionError error = new AssertionError( String.format(
+                            "%s passed and then failed with the instances reset after it: %s", method.getName(),
+                            e.getMessage() ) );
+                    error.initCause( e );
+                    throw error;
+                }
+            }
+        };
+    }
+
+    /**
+     * Determine if the test instance of the last methodBlock() on this thread
+     * was given a ReusingProducer, and forget it.
+     * 
+     * @return true if the producer of the test reuses instances.
+     */
+    private boolean takeReusing() {
+        final Object test = blockTest.get();
+        blockTest.remove();
+        return test != null && reusingTests.remove( test );
+    }
+
+    /**
+     * Create the statement that runs a benchmark method. The benchmark creates
+     * its own test instances.
+     * 
+     * @param method
+     *            the ContractBenchmark annotated method.
+     * @return the Statement.
+     */
+    protected Statement benchmarkBlock(final FrameworkMethod method) {
+        return new BenchmarkStatement( testFixture( method ), getImplementationName(), getName() );
+    }
+
+    /**
+     * Create the statement that runs a complexity method. The statement creates
+     * a test instance for each size.
+     * 
+     * @param method
+     *            the ContractComplexity annotated method.
+     * @return the Statement.
+     */
+    protected Statement complexityBlock(final FrameworkMethod method) {
+        return new ComplexityStatement( testFixture( method ), getImplementationName(), getName() );
+    }
+
+    /**
+     * Create the statement that runs a footprint method. The statement creates
+     * a test instance for each sample.
+     * 
+     * @param method
+     *            the ContractFootprint annotated method.
+     * @return the Statement.
+     */
+    protected Statement footprintBlock(final FrameworkMethod method) {
+        return new FootprintStatement( testFixture( method ), getImplementationName(), getName() );
+    }
+
+    /**
+     * Create the statement that runs a scaling method. The statement creates a
+     * test instance for each thread level.
+     * 
+     * @param method
+     *            the ContractScaling annotated method.
+     * @return the Statement.
+     */
+    protected Statement scalingBlock(final FrameworkMethod method) {
+        return new ScalingStatement( testFixture( method ), getImplementationName(), getName() );
+    }
+
+    /**
+     * Create the statement that runs a stress method.
+     * 
+     * @param method
+     *            the ContractStress annotated method.
+     * @return the Statement.
+     */
+    protected Statement stressBlock(final FrameworkMethod method) {
+        return new StressStatement( testFixture( method ), getImplementationName() );
+    }
+
+    /**
+     * Get the fixture for statements that create their own test instances.
+     * 
+     * @param method
+     *            the method the statement measures.
+     * @return the fixture.
+     */
+    private TestFixture testFixture(final FrameworkMethod method) {
+        return new TestFixture( getTestClass(), method, describeChild( method ), new Callable<Object>() {
+
+            @Override
+            public Object call() throws Exception {
+                return newTest( false );
+            }
+        } );
+    }
+
+    /**
+     * Get the name of the implementation under test.
+     * 
+     * @return the implementation class name, or the test class name for stand
+     *         alone tests.
+     */
+    private String getImplementationName() {
+        return parentTestInfo == null ? getTestClass().getName() : parentTestInfo.getClassUnderTest().getName();
     }
 
     /**
@@ -150,31 +808,119 @@ public class ContractTestRunner extends BlockJUnit4ClassRunner {
         return testInfo == null ? super.getName() : testInfo.getContractTestClass().getName();
     }
 
+    @Override
+    public Description getDescription() {
+        Description result = description;
+        if (result == null) {
+            result = super.getDescription();
+            description = result;
+        }
+        return result;
+    }
+
+    @Override
+    public void filter(final Filter filter) throws NoTestsRemainException {
+        description = null;
+        super.filter( filter );
+    }
+
+    @Override
+    public void sort(final Sorter sorter) {
+        description = null;
+        super.sort( sorter );
+    }
+
+    /**
+     * Returns the Description for the method. Descriptions are created once per
+     * method and cached as suites with many contract tests ask for them
+     * repeatedly.
+     */
     @Override
     protected Description describeChild(FrameworkMethod method) {
+        Description result = descriptions.get( method );
+        if (result == null) {
+            result = createDescription( method );
+            final Description other = descriptions.putIfAbsent( method, result );
+            if (other != null) {
+                result = other;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Create the description for a test method. Description formats its own
+     * display name so the name is not interned; describeChild() creates each
+     * Description once instead.
+     * 
+     * @param method
+     *            the method to describe.
+     * @return the Description.
+     */
+    private Description createDescription(FrameworkMethod method) {
         if (testInfo == null) {
-            return super.describeChild( method );
+            return Description.createTestDescription( getTestClass().getJavaClass(), testName( method ),
+                    retainedAnnotations( method ) );
         }
         if (parentTestInfo == null) {
             return Description.createTestDescription( testInfo.getContractTestClass(), testName( method ),
-                    method.getAnnotations() );
+                    retainedAnnotations( method ) );
         }
         final String name = String.format( "%s(%s)", testName( method ),
                 testInfo.getContractTestClass().getSimpleName() );
         return Description.createTestDescription( parentTestInfo.getContractTestClass(), name,
-                method.getAnnotations() );
+                retainedAnnotations( method ) );
     }
 
     /**
-     * Returns the methods that run tests. Default implementation returns all
-     * methods annotated with {@code @Test} on this class and superclasses that
-     * are not overridden.
+     * Get the annotations of the method that the description should retain.
+     * 
+     * The ContractTest annotation is on every method and is not retained.
+     * 
+     * @param method
+     *            the method to get the annotations for.
+     * @return the annotations to retain, may be empty.
+     */
+    private static Annotation[] retainedAnnotations(FrameworkMethod method) {
+        final Annotation[] annotations = method.getAnnotations();
+        final List<Annotation> retained = new ArrayList<Annotation>( annotations.length );
+        for (final Annotation annotation : annotations) {
+            if (!(annotation instanceof ContractTest)) {
+                retained.add( annotation );
+            }
+        }
+        return retained.isEmpty() ? NO_ANNOTATIONS : retained.toArray( new Annotation[retained.size()] );
+    }
+
+    /**
+     * Returns the methods that run tests. Returns all methods annotated with
+     * {@code @ContractTest}, followed by all methods annotated with
+     * {@code @ContractStress}, {@code @ContractComplexity},
+     * {@code @ContractFootprint}, {@code @ContractScaling} and
+     * {@code @ContractBenchmark}, on this class and superclasses that are not
+     * overridden.
      */
     @Override
     protected List<FrameworkMethod> computeTestMethods() {
         // this is call during construction. testInfo and excludedMethods is not
         // yet available.
-        return getTestClass().getAnnotatedMethods( ContractTest.class );
+        final List<FrameworkMethod> tests = getTestClass().getAnnotatedMethods( ContractTest.class );
+        final List<FrameworkMethod> stress = getTestClass().getAnnotatedMethods( ContractStress.class );
+        final List<FrameworkMethod> complexity = getTestClass().getAnnotatedMethods( ContractComplexity.class );
+        final List<FrameworkMethod> footprint = getTestClass().getAnnotatedMethods( ContractFootprint.class );
+        final List<FrameworkMethod> scaling = getTestClass().getAnnotatedMethods( ContractScaling.class );
+        final List<FrameworkMethod> benchmarks = getTestClass().getAnnotatedMethods( ContractBenchmark.class );
+        if (stress.isEmpty() && complexity.isEmpty() && footprint.isEmpty() && scaling.isEmpty()
+                && benchmarks.isEmpty()) {
+            return tests;
+        }
+        final List<FrameworkMethod> result = new ArrayList<FrameworkMethod>( tests );
+        result.addAll( stress );
+        result.addAll( complexity );
+        result.addAll( footprint );
+        result.addAll( scaling );
+        result.addAll( benchmarks );
+        return result;
     }
 
     @Override
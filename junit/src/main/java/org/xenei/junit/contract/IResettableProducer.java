@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract;
+
+/**
+ * A producer that can return the instances it created to their initial state
+ * so that they can be used by the next contract test.
+ * <p>
+ * When the test calls <code>cleanUp()</code> the runner calls
+ * <code>reset()</code> for each instance the test received instead, and
+ * returns the instances from later <code>newInstance()</code> calls. The
+ * producer's <code>cleanUp()</code> is called when an instance can not be
+ * reset and after the last test of the contract test class. Reuse can be
+ * turned off with <code>-Dcontracts.reuse=false</code>, and with
+ * <code>-Dcontracts.reuse.verify=true</code> each test is run a second time
+ * with the instances reset after the first run to check that the contract
+ * holds for a reset instance.
+ * </p>
+ * 
+ * @param <T>
+ *            The class of the object under test.
+ * @see org.xenei.junit.contract.reuse.ReusingProducer
+ */
+@NoContractTest
+public interface IResettableProducer<T> extends IProducer<T> {
+
+    /**
+     * Return an instance created by <code>newInstance()</code> to the state
+     * of a new instance.
+     * 
+     * @param instance
+     *            the instance to reset.
+     * @return true if the instance was reset, false if it can not be reused.
+     */
+    public boolean reset(T instance);
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract;
+
+/**
+ * A producer whose instances are expensive to build but cheap to copy.
+ * <p>
+ * The runner calls <code>newInstance()</code> once per contract test class
+ * to build the fixture, takes a <code>snapshot()</code> of it and gives every
+ * test an instance from <code>restore()</code> instead. The built instance is
+ * not given to the tests. The snapshot must not change when the restored
+ * instances are changed, for example a copy of a memory mapped file, a forked
+ * in-memory store or a serialized image (see
+ * <code>SerializedSnapshotProducer</code>). <code>cleanUp()</code> is called
+ * by the tests as usual and must release the restored instances; the snapshot
+ * is passed to <code>discard()</code> after the last test. Snapshots are not
+ * used when the tests run on virtual threads, so <code>restore()</code> is
+ * only called by one test at a time.
+ * </p>
+ * 
+ * @param <T>
+ *            The class of the object under test.
+ * @param <S>
+ *            The class of the snapshot.
+ * @see org.xenei.junit.contract.reuse.SnapshotProducer
+ */
+@NoContractTest
+public interface ISnapshotProducer<T, S> extends IProducer<T> {
+
+    /**
+     * Capture the state of an instance.
+     * 
+     * @param instance
+     *            the instance created by <code>newInstance()</code>.
+     * @return the snapshot.
+     */
+    public S snapshot(T instance);
+
+    /**
+     * Create an instance in the state captured by a snapshot. May be called
+     * more than once for the same snapshot.
+     * 
+     * @param snapshot
+     *            the snapshot.
+     * @return the new instance.
+     */
+    public T restore(S snapshot);
+
+    /**
+     * Release the resources held by a snapshot.
+     * 
+     * @param snapshot
+     *            the snapshot.
+     */
+    public void discard(S snapshot);
+
+}
@@ -20,13 +20,35 @@ package org.xenei.junit.contract;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Static methods to find annotated getter and setters.
- * 
+ * <p>
+ * Results are cached with the class they were found on using a ClassValue so
+ * the cache does not prevent the class, or its class loader, from being
+ * reclaimed. The cache for a class may be cleared with <code>clearCache</code>.
+ * </p>
  */
 public class MethodUtils {
 
+    // the cached getters for each class keyed by annotation.
+    private static final MethodCache GETTERS = new MethodCache();
+    // the cached setters for each class keyed by annotation.
+    private static final MethodCache SETTERS = new MethodCache();
+
+    /**
+     * Remove the cached getters and setters for a class.
+     * 
+     * @param cls
+     *            the class to remove the cached methods for.
+     */
+    public static void clearCache(Class<?> cls) {
+        GETTERS.remove( cls );
+        SETTERS.remove( cls );
+    }
+
     /**
      * Find a getter with the specified annotation. getter must be annotated,
      * return a value, not be abstract and not take any parameters and is
@@ -39,6 +61,16 @@ public class MethodUtils {
      * @return getter method or null
      */
     public static Method findAnnotatedGetter(Class<?> cls, Class<? extends Annotation> class1) {
+        final Map<Class<? extends Annotation>, Method> cache = GETTERS.get( cls );
+        synchronized (cache) {
+            if (!cache.containsKey( class1 )) {
+                cache.put( class1, doFindAnnotatedGetter( cls, class1 ) );
+            }
+            return cache.get( class1 );
+        }
+    }
+
+    private static Method doFindAnnotatedGetter(Class<?> cls, Class<? extends Annotation> class1) {
         for (final Method m : cls.getDeclaredMethods()) {
             if (m.getAnnotation( class1 ) != null) {
                 if (!m.getReturnType().equals( Void.TYPE ) && !Modifier.isAbstract( m.getModifiers() )
@@ -63,6 +95,16 @@ public class MethodUtils {
      * @return setter method or null
      */
     public static Method findAnnotatedSetter(Class<?> cls, Class<? extends Annotation> class1) {
+        final Map<Class<? extends Annotation>, Method> cache = SETTERS.get( cls );
+        synchronized (cache) {
+            if (!cache.containsKey( class1 )) {
+                cache.put( class1, doFindAnnotatedSetter( cls, class1 ) );
+            }
+            return cache.get( class1 );
+        }
+    }
+
+    private static Method doFindAnnotatedSetter(Class<?> cls, Class<? extends Annotation> class1) {
         for (final Method m : cls.getDeclaredMethods()) {
             // method is annotated
             if ((m.getAnnotation( class1 ) != null)
@@ -79,4 +121,14 @@ public class MethodUtils {
         }
         return null;
     }
+
+    /**
+     * Associates a map of annotation to method with each class.
+     */
+    private static class MethodCache extends ClassValue<Map<Class<? extends Annotation>, Method>> {
+        @Override
+        protected Map<Class<? extends Annotation>, Method> computeValue(Class<?> type) {
+            return new HashMap<Class<? extends Annotation>, Method>();
+        }
+    }
 }
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation on a producer class to let the runner prepare the next test's
+ * fixture in the background when <code>-Dcontracts.prefetch=true</code> is
+ * set.
+ * <p>
+ * The first test of a contract test class creates its fixture as usual. If
+ * the producer injected into it is annotated the runner creates the test
+ * instance for each following test, calls the <code>&#64;Contract.Inject</code>
+ * getter and setter, and with <code>instance = true</code> makes the first
+ * <code>newInstance()</code> call, on a background thread while the current
+ * test runs. For a stand alone test class the annotation is placed on the
+ * test class.
+ * </p>
+ * <p>
+ * By annotating the producer the author declares that:
+ * </p>
+ * <ul>
+ * <li>the getter, the setter and, with <code>instance = true</code>,
+ * <code>newInstance()</code> may be called from the background thread while a
+ * test uses the producer on another thread.</li>
+ * <li>with <code>instance = true</code>, <code>cleanUp()</code> leaves
+ * usable the instances created for other tests, as the next test's instance
+ * is created before the current test cleans up. Producers whose instances need
+ * no clean up, or whose <code>cleanUp()</code> only releases resources that
+ * are created again on demand, meet this. Instances that were created ahead of
+ * time and never used are released by calling <code>cleanUp()</code> after the
+ * last test.</li>
+ * </ul>
+ * 
+ * @see org.xenei.junit.contract.parallel.FixturePipeline
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface PrefetchFixture {
+
+    /**
+     * If true the first <code>newInstance()</code> call for the next test is
+     * also made in the background.
+     */
+    boolean instance() default false;
+}
@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * The base of the InvocationHandlers for proxies that the runner injects in
+ * place of a producer to add behavior to <code>newInstance()</code> and
+ * <code>cleanUp()</code>.
+ * <p>
+ * The proxy implements all the public interfaces of the producer, so it can be
+ * injected wherever the producer could when the injected type is an
+ * interface. Calls other than <code>newInstance()</code> and
+ * <code>cleanUp()</code> are passed to the producer.
+ * </p>
+ */
+public abstract class ProducerProxy implements InvocationHandler {
+
+    private static final Log LOG = LogFactory.getLog( ProducerProxy.class );
+
+    private final Object producer;
+    // the producer methods, null if the producer does not declare them.
+    private Method newInstanceMethod;
+    private Method cleanUpMethod;
+
+    /**
+     * Constructor.
+     * 
+     * @param producer
+     *            the producer to pass calls to, may be null.
+     */
+    protected ProducerProxy(final Object producer) {
+        this.producer = producer;
+    }
+
+    /**
+     * Create a proxy for the producer of a handler. If the type the producer
+     * is injected as is not one of the public interfaces of the producer, or a
+     * proxy can not be created, the producer is returned unchanged.
+     * 
+     * @param handler
+     *            the handler for the proxy.
+     * @param type
+     *            the type the producer is injected as.
+     * @return the proxy or the producer.
+     */
+    public static Object wrap(final ProducerProxy handler, final Class<?> type) {
+        final Object producer = handler.producer;
+        if (producer == null || !type.isInterface()) {
+            return producer;
+        }
+        final Set<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
+        for (Class<?> cls = producer.getClass(); cls != null; cls = cls.getSuperclass()) {
+            addInterfaces( interfaces, cls );
+        }
+        if (!interfaces.contains( type )) {
+            return producer;
+        }
+        for (final Class<?> iface : interfaces) {
+            for (final Method method : iface.getMethods()) {
+                if (method.getParameterTypes().length == 0) {
+                    if ("newInstance".equals( method.getName() ) && handler.newInstanceMethod == null) {
+                        handler.newInstanceMethod = method;
+                    } else if ("cleanUp".equals( method.getName() ) && handler.cleanUpMethod == null) {
+                        handler.cleanUpMethod = method;
+                    }
+                }
+            }
+        }
+        try {
+            return Proxy.newProxyInstance( producer.getClass().getClassLoader(),
+                    interfaces.toArray( new Class<?>[interfaces.size()] ), handler );
+        } catch (final IllegalArgumentException e) {
+            LOG.debug( "Unable to create a proxy for " + producer.getClass(), e );
+            return producer;
+        }
+    }
+
+    // only public interfaces so that the methods can be invoked on the
+    // producer.
+    private static void addInterfaces(final Set<Class<?>> interfaces, final Class<?> cls) {
+        for (final Class<?> iface : cls.getInterfaces()) {
+            if (Modifier.isPublic( iface.getModifiers() ) && interfaces.add( iface )) {
+                addInterfaces( interfaces, iface );
+            }
+        }
+    }
+
+    /**
+     * Get the handler of a proxy.
+     * 
+     * @param proxy
+     *            the object that may be a proxy.
+     * @param type
+     *            the type of handler.
+     * @return the handler or null if the object is not a proxy with a handler
+     *         of the type.
+     */
+    public static <T extends ProducerProxy> T getHandler(final Object proxy, final Class<T> type) {
+        if (proxy != null && Proxy.isProxyClass( proxy.getClass() )) {
+            final InvocationHandler handler = Proxy.getInvocationHandler( proxy );
+            if (type.isInstance( handler )) {
+                return type.cast( handler );
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the producer calls are passed to.
+     */
+    protected final Object getProducer() {
+        return producer;
+    }
+
+    /**
+     * Call <code>newInstance()</code> on the producer.
+     * 
+     * @return the new instance.
+     * @throws Throwable
+     *             the exception thrown by the producer.
+     */
+    protected final Object producerNewInstance() throws Throwable {
+        return call( newInstanceMethod, null );
+    }
+
+    /**
+     * Call <code>cleanUp()</code> on the producer.
+     * 
+     * @throws Throwable
+     *             the exception thrown by the producer.
+     */
+    protected final void producerCleanUp() throws Throwable {
+        call( cleanUpMethod, null );
+    }
+
+    private Object call(final Method method, final Object[] args) throws Throwable {
+        if (method == null) {
+            throw new IllegalStateException( producer.getClass() + " is not a producer" );
+        }
+        try {
+            return method.invoke( producer, args );
+        } catch (final InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Called for <code>newInstance()</code> on the proxy. By default calls the
+     * producer.
+     * 
+     * @return the instance to return.
+     * @throws Throwable
+     *             on error.
+     */
+    protected Object newInstance() throws Throwable {
+        return producerNewInstance();
+    }
+
+    /**
+     * Called for <code>cleanUp()</code> on the proxy. By default calls the
+     * producer.
+     * 
+     * @throws Throwable
+     *             on error.
+     */
+    protected void cleanUp() throws Throwable {
+        producerCleanUp();
+    }
+
+    /**
+     * Called after the last test of the runner for handlers that are shared
+     * by the tests. By default does nothing.
+     * 
+     * @throws Throwable
+     *             on error.
+     */
+    public void release() throws Throwable {
+    }
+
+    @Override
+    public final Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        if (method.getParameterTypes().length == 0) {
+            if ("newInstance".equals( method.getName() )) {
+                return newInstance();
+            }
+            if ("cleanUp".equals( method.getName() )) {
+                cleanUp();
+                return null;
+            }
+        }
+        return call( method, args );
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.runner.Description;
+import org.junit.runner.Runner;
+import org.junit.runner.manipulation.Filter;
+import org.junit.runner.manipulation.Filterable;
+import org.junit.runner.manipulation.NoTestsRemainException;
+import org.junit.runner.manipulation.Sortable;
+import org.junit.runner.manipulation.Sorter;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.model.InitializationError;
+import org.xenei.junit.contract.info.TestInfo;
+
+/**
+ * A Runner that stands in for a ContractTestRunner in a streaming
+ * ContractSuite.
+ * <p>
+ * The ContractTestRunner is only created when this runner is run and is
+ * released as soon as it completes. Between runs only the Description and the
+ * information required to rebuild the ContractTestRunner are retained. A new
+ * instance of the suite class is created for each run so that the producer it
+ * returns is not held for the life of the suite.
+ * </p>
+ * <p>
+ * Filters and sorters applied to this runner are recorded and applied to each
+ * ContractTestRunner as it is created.
+ * </p>
+ */
+public class StreamingContractTestRunner extends Runner implements Filterable, Sortable {
+
+    // the class that declares the getter for the producer.
+    private final Class<?> getterClass;
+    private final TestInfo parentTestInfo;
+    private final TestInfo testInfo;
+    private final List<Method> excludedMethods;
+    // filters and sorters to apply to each ContractTestRunner we create.
+    private final List<Filter> filters;
+    private final List<Sorter> sorters;
+    private Description description;
+
+    /**
+     * Constructor.
+     *
+     * Creates a ContractTestRunner to validate the test class and capture the
+     * Description. The ContractTestRunner is not retained.
+     *
+     * @param getterClass
+     *            The class that declares the method that gets the producer. A
+     *            new instance is created each time this runner is run.
+     * @param parentTestInfo
+     *            The test info for the parent.
+     * @param testInfo
+     *            The test info for this test.
+     * @param excludedMethods
+     *            A list of test methods that should not be executed.
+     * @throws InitializationError
+     *             if the ContractTestRunner can not be created.
+     */
+    public StreamingContractTestRunner(final Class<?> getterClass, final TestInfo parentTestInfo,
+            final TestInfo testInfo, final List<Method> excludedMethods) throws InitializationError {
+        this.getterClass = getterClass;
+        this.parentTestInfo = parentTestInfo;
+        this.testInfo = testInfo;
+        this.excludedMethods = excludedMethods;
+        this.filters = new ArrayList<Filter>();
+        this.sorters = new ArrayList<Sorter>();
+        this.description = new ContractTestRunner( null, parentTestInfo, testInfo, excludedMethods )
+                .getDescription();
+    }
+
+    @Override
+    public Description getDescription() {
+        return description;
+    }
+
+    /**
+     * Create the ContractTestRunner with a new getter object and apply the
+     * recorded filters and sorters.
+     *
+     * @return the ContractTestRunner
+     * @throws Exception
+     *             on error
+     */
+    private ContractTestRunner createRunner() throws Exception {
+        final ContractTestRunner runner = new ContractTestRunner(
+                getterClass.getDeclaredConstructor().newInstance(), parentTestInfo, testInfo, excludedMethods );
+        for (final Filter filter : filters) {
+            runner.filter( filter );
+        }
+        for (final Sorter sorter : sorters) {
+            runner.sort( sorter );
+        }
+        return runner;
+    }
+
+    @Override
+    public void run(final RunNotifier notifier) {
+        ContractTestRunner runner;
+        try {
+            runner = createRunner();
+        } catch (final Exception e) {
+            notifier.fireTestFailure( new Failure( description, e ) );
+            return;
+        }
+        runner.run( notifier );
+    }
+
+    @Override
+    public void filter(final Filter filter) throws NoTestsRemainException {
+        final Description filtered = Description.createSuiteDescription( description.getDisplayName(),
+                description.getAnnotations().toArray( new Annotation[0] ) );
+        for (final Description child : description.getChildren()) {
+            if (filter.shouldRun( child )) {
+                filtered.addChild( child );
+            }
+        }
+        if (filtered.getChildren().isEmpty()) {
+            throw new NoTestsRemainException();
+        }
+        filters.add( filter );
+        description = filtered;
+    }
+
+    @Override
+    public void sort(final Sorter sorter) {
+        final List<Description> children = new ArrayList<Description>( description.getChildren() );
+        Collections.sort( children, sorter );
+        final Description sorted = Description.createSuiteDescription( description.getDisplayName(),
+                description.getAnnotations().toArray( new Annotation[0] ) );
+        for (final Description child : children) {
+            sorted.addChild( child );
+        }
+        sorters.add( sorter );
+        description = sorted;
+    }
+
+    @Override
+    public String toString() {
+        return "StreamingContractTest" + testInfo;
+    }
+}
@@ -17,6 +17,7 @@
 
 package org.xenei.junit.contract.info;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -25,6 +26,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -40,7 +42,13 @@ import io.github.lukehutch.fastclasspathscanner.matchprocessor.ClassAnnotationMa
 /**
  * A map like object that maintains information about test classes and the
  * classes they test.
- *
+ * <p>
+ * The classes annotated with <code>&#64;Contract</code> are discovered by
+ * scanning the class path once per context class loader. The results are held
+ * in a static cache with weak keys that does not hold strong references to the
+ * classes it contains, so a discarded class loader and its classes may still be
+ * reclaimed. The cache may be cleared explicitly with <code>clearCache</code>.
+ * </p>
  */
 public class ContractTestMap {
     // the map of test classes to the TestInfo for it.
@@ -52,6 +60,10 @@ public class ContractTestMap {
 
     private static final Log LOG = LogFactory.getLog( ContractTestMap.class );
 
+    // the contract classes found by scanning, keyed by context class loader.
+    private static final Map<ClassLoader, List<WeakReference<Class<?>>>> CONTRACT_CLASSES = //
+            new WeakHashMap<ClassLoader, List<WeakReference<Class<?>>>>();
+
     /**
      * Constructor
      * 
@@ -86,22 +98,99 @@ public class ContractTestMap {
             skipFilter = new NotClassFilter( ignoreFilter ).optimize();
         }
 
-        final FastClasspathScanner scanner = new FastClasspathScanner();
+        for (final Class<?> matchingClass : getContractClasses()) {
+            if (skipFilter.accept( matchingClass )) {
+                final Contract c = matchingClass.getAnnotation( Contract.class );
+                LOG.debug( String.format( "adding %s %s", matchingClass, c ) );
+                add( new TestInfo( matchingClass, c ) );
+            }
+        }
+    }
 
-        final ClassAnnotationMatchProcessor mp = new ClassAnnotationMatchProcessor() {
+    /**
+     * Get the classes annotated with <code>&#64;Contract</code> that are
+     * visible to the context class loader.
+     * 
+     * The class path is only scanned if there is no cached result for the
+     * context class loader.
+     * 
+     * @return the list of contract classes.
+     */
+    private static List<Class<?>> getContractClasses() {
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        synchronized (CONTRACT_CLASSES) {
+            final List<WeakReference<Class<?>>> cached = loader == null ? null : CONTRACT_CLASSES.get( loader );
+            if (cached != null) {
+                final List<Class<?>> result = resolve( cached );
+                if (result != null) {
+                    return result;
+                }
+            }
+
+            final List<Class<?>> result = new ArrayList<Class<?>>();
+            final FastClasspathScanner scanner = new FastClasspathScanner();
+            final ClassAnnotationMatchProcessor mp = new ClassAnnotationMatchProcessor() {
+
+                @Override
+                public void processMatch(Class<?> matchingClass) {
+                    result.add( matchingClass );
+                }
+            };
 
-            @Override
-            public void processMatch(Class<?> matchingClass) {
-                if (skipFilter.accept( matchingClass )) {
-                    final Contract c = matchingClass.getAnnotation( Contract.class );
-                    LOG.debug( String.format( "adding %s %s", matchingClass, c ) );
-                    add( new TestInfo( matchingClass, c ) );
+            scanner.matchClassesWithAnnotation( Contract.class, mp );
+            scanner.scan();
+
+            if (loader != null) {
+                final List<WeakReference<Class<?>>> refs = new ArrayList<WeakReference<Class<?>>>( result.size() );
+                for (final Class<?> cls : result) {
+                    refs.add( new WeakReference<Class<?>>( cls ) );
                 }
+                CONTRACT_CLASSES.put( loader, refs );
             }
-        };
+            return result;
+        }
+    }
 
-        scanner.matchClassesWithAnnotation( Contract.class, mp );
-        scanner.scan();
+    /**
+     * Resolve the cached references.
+     * 
+     * @param refs
+     *            the cached references.
+     * @return the list of classes or null if any class has been unloaded.
+     */
+    private static List<Class<?>> resolve(final List<WeakReference<Class<?>>> refs) {
+        final List<Class<?>> result = new ArrayList<Class<?>>( refs.size() );
+        for (final WeakReference<Class<?>> ref : refs) {
+            final Class<?> cls = ref.get();
+            if (cls == null) {
+                return null;
+            }
+            result.add( cls );
+        }
+        return result;
+    }
+
+    /**
+     * Remove the cached contract classes for a class loader. The next
+     * ContractTestMap created with the class loader as the context class
+     * loader will scan the class path.
+     * 
+     * @param loader
+     *            the class loader to remove the cached classes for.
+     */
+    public static void clearCache(final ClassLoader loader) {
+        synchronized (CONTRACT_CLASSES) {
+            CONTRACT_CLASSES.remove( loader );
+        }
+    }
+
+    /**
+     * Remove the cached contract classes for all class loaders.
+     */
+    public static void clearCache() {
+        synchronized (CONTRACT_CLASSES) {
+            CONTRACT_CLASSES.clear();
+        }
     }
 
     /**
@@ -0,0 +1,320 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.leak;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.runners.model.Statement;
+import org.xenei.junit.contract.perf.SoakStatement;
+
+/**
+ * A Statement that checks a contract test for leaked resources.
+ * <p>
+ * Leak detection is enabled by setting the <code>contracts.leaks</code> system
+ * property to <code>true</code>, in which case a leak fails the test, or to
+ * <code>warn</code>, in which case leaks are logged. The state of the JVM is
+ * recorded before the test instance is created and checked after the test and
+ * its <code>&#64;After</code> methods, which normally call
+ * <code>IProducer.cleanUp()</code>, have completed successfully. A leak is:
+ * </p>
+ * <ul>
+ * <li>a thread started during the test that is still alive. Threads with names
+ * that match the <code>contracts.leaks.ignoreThreads</code> regular expression
+ * are ignored, by default the threads the JVM starts on demand.</li>
+ * <li>a file descriptor opened during the test that is still open. On Linux the
+ * descriptors are read from <code>/proc/self/fd</code> and files that match
+ * the <code>contracts.leaks.ignoreFiles</code> regular expression, by default
+ * jars and libraries the JVM opens on demand, are ignored. Elsewhere only the
+ * count of open descriptors is compared.</li>
+ * <li>a direct buffer allocated during the test that has not been released
+ * after garbage collection.</li>
+ * <li>an instance returned by the producer during the test that is still
+ * reachable after garbage collection. The instance check can be disabled by
+ * setting <code>contracts.leaks.instances</code> to <code>false</code>.</li>
+ * </ul>
+ * <p>
+ * Threads, buffers and instances are given the time set by
+ * <code>contracts.leaks.grace</code> (default 500 ms) to be released.
+ * </p>
+ */
+public class LeakDetector extends Statement {
+
+    /**
+     * The system property that enables leak detection.
+     */
+    public static final String ENABLE_PROPERTY = "contracts.leaks";
+
+    /**
+     * The system property for the pattern of thread names to ignore.
+     */
+    public static final String IGNORE_THREADS_PROPERTY = "contracts.leaks.ignoreThreads";
+
+    /**
+     * The system property for the pattern of file names to ignore.
+     */
+    public static final String IGNORE_FILES_PROPERTY = "contracts.leaks.ignoreFiles";
+
+    /**
+     * The system property that disables the reachable instance check.
+     */
+    public static final String INSTANCES_PROPERTY = "contracts.leaks.instances";
+
+    /**
+     * The system property for the time in milliseconds to wait for resources
+     * to be released.
+     */
+    public static final String GRACE_PROPERTY = "contracts.leaks.grace";
+
+    /**
+     * The default pattern of thread names to ignore.
+     */
+    public static final String DEFAULT_IGNORE_THREADS = "Common-Cleaner|process reaper|Attach Listener|Signal Dispatcher"
+            + "|Notification Thread|ForkJoinPool\\.commonPool-worker-.*|JFR .*";
+
+    /**
+     * The default pattern of file names to ignore.
+     */
+    public static final String DEFAULT_IGNORE_FILES = ".*\\.(jar|jmod|so(\\..*)?|zip)|/dev/u?random";
+
+    private static final Log LOG = LogFactory.getLog( LeakDetector.class );
+
+    private static final File PROC_FD = new File( "/proc/self/fd" );
+
+    private final Statement next;
+    private final AtomicReference<LeakDetector> current;
+    private final String implementation;
+    private final String contract;
+    private final String method;
+    private final List<WeakReference<Object>> instances;
+
+    /**
+     * Constructor.
+     * 
+     * @param next
+     *            the statement to check, it should create the test instance
+     *            when it is evaluated.
+     * @param current
+     *            set to this detector while the statement runs so that the
+     *            producer can report the instances it creates.
+     * @param implementation
+     *            the name of the implementation being tested.
+     * @param contract
+     *            the name of the contract test class.
+     * @param method
+     *            the name of the contract method.
+     */
+    public LeakDetector(final Statement next, final AtomicReference<LeakDetector> current,
+            final String implementation, final String contract, final String method) {
+        this.next = next;
+        this.current = current;
+        this.implementation = implementation;
+        this.contract = contract;
+        this.method = method;
+        this.instances = new ArrayList<WeakReference<Object>>();
+    }
+
+    /**
+     * Determine if leak detection is enabled.
+     * 
+     * @return true if the <code>contracts.leaks</code> system property is true
+     *         or warn.
+     */
+    public static boolean isEnabled() {
+        final String value = System.getProperty( ENABLE_PROPERTY );
+        return "warn".equalsIgnoreCase( value ) || Boolean.parseBoolean( value );
+    }
+
+    /**
+     * Track an instance created by the producer. Thread safe.
+     * 
+     * @param instance
+     *            the instance.
+     */
+    public void track(final Object instance) {
+        if (instance != null) {
+            synchronized (instances) {
+                instances.add( new WeakReference<Object>( instance ) );
+            }
+        }
+    }
+
+    @Override
+    public void evaluate() throws Throwable {
+        final Set<Thread> threads = liveThreads();
+        final Map<String, String> files = openFiles();
+        final long fileCount = SoakStatement.openFileDescriptors();
+        final BufferPoolMXBean direct = getDirectPool();
+        final long buffers = direct == null ? 0 : direct.getCount();
+        current.set( this );
+        try {
+            next.evaluate();
+        } finally {
+            current.set( null );
+        }
+
+        final List<String> leaks = findLeaks( threads, direct, buffers );
+        final String opened = openedFiles( files, fileCount );
+        if (opened != null) {
+            leaks.add( opened );
+        }
+        if (!leaks.isEmpty()) {
+            final StringBuilder sb = new StringBuilder( String.format( "%s(%s) with implementation %s leaked:",
+                    method, contract, implementation ) );
+            for (final String leak : leaks) {
+                sb.append( "\n  " ).append( leak );
+            }
+            if (Boolean.getBoolean( ENABLE_PROPERTY )) {
+                throw new AssertionError( sb.toString() );
+            }
+            LOG.warn( sb.toString() );
+        }
+    }
+
+    private List<String> findLeaks(final Set<Thread> threads, final BufferPoolMXBean direct, final long buffers)
+            throws InterruptedException {
+        final Pattern ignoreThreads = Pattern
+                .compile( System.getProperty( IGNORE_THREADS_PROPERTY, DEFAULT_IGNORE_THREADS ) );
+        final boolean checkInstances = !"false".equalsIgnoreCase( System.getProperty( INSTANCES_PROPERTY ) );
+        final long deadline = System.nanoTime() + Long.getLong( GRACE_PROPERTY, 500 ) * 1000000L;
+
+        final List<String> leaks = new ArrayList<String>();
+        boolean waiting = true;
+        while (waiting) {
+            leaks.clear();
+            System.gc();
+
+            final List<String> started = new ArrayList<String>();
+            for (final Thread thread : liveThreads()) {
+                if (!threads.contains( thread ) && !ignoreThreads.matcher( thread.getName() ).matches()) {
+                    started.add( thread.getName() );
+                }
+            }
+            if (!started.isEmpty()) {
+                leaks.add( "threads " + started );
+            }
+            if (direct != null && direct.getCount() > buffers) {
+                leaks.add( String.format( "%s direct buffers (%s bytes in use)", direct.getCount() - buffers,
+                        direct.getMemoryUsed() ) );
+            }
+            if (checkInstances) {
+                int reachable = 0;
+                synchronized (instances) {
+                    for (final WeakReference<Object> ref : instances) {
+                        if (ref.get() != null) {
+                            reachable++;
+                        }
+                    }
+                }
+                if (reachable > 0) {
+                    leaks.add( String.format( "%s of %s produced instances still reachable", reachable,
+                            instances.size() ) );
+                }
+            }
+            waiting = !leaks.isEmpty() && System.nanoTime() - deadline < 0;
+            if (waiting) {
+                Thread.sleep( 10 );
+            }
+        }
+        return leaks;
+    }
+
+    /**
+     * Describe the files opened since the snapshot.
+     * 
+     * @param before
+     *            the files open before the test, null if they could not be
+     *            listed.
+     * @param countBefore
+     *            the number of descriptors open before the test, -1 if
+     *            unknown.
+     * @return the description or null if no files were leaked.
+     */
+    private static String openedFiles(final Map<String, String> before, final long countBefore) {
+        final Map<String, String> after = before == null ? null : openFiles();
+        if (after == null) {
+            final long count = SoakStatement.openFileDescriptors();
+            return countBefore < 0 || count <= countBefore ? null
+                    : String.format( "%s file descriptors", count - countBefore );
+        }
+        final Pattern ignore = Pattern.compile( System.getProperty( IGNORE_FILES_PROPERTY, DEFAULT_IGNORE_FILES ) );
+        final List<String> opened = new ArrayList<String>();
+        for (final Map.Entry<String, String> entry : after.entrySet()) {
+            if (!entry.getValue().equals( before.get( entry.getKey() ) )
+                    && !ignore.matcher( entry.getValue() ).matches()) {
+                opened.add( entry.getValue() );
+            }
+        }
+        return opened.isEmpty() ? null : "file descriptors " + opened;
+    }
+
+    /**
+     * Get the open file descriptors and their targets.
+     * 
+     * @return descriptor to target or null if they can not be listed.
+     */
+    public static Map<String, String> openFiles() {
+        final String[] fds = PROC_FD.list();
+        if (fds == null) {
+            return null;
+        }
+        final Map<String, String> result = new HashMap<String, String>();
+        for (final String fd : fds) {
+            try {
+                result.put( fd, Files.readSymbolicLink( new File( PROC_FD, fd ).toPath() ).toString() );
+            } catch (final IOException e) {
+                // closed while listing, including the descriptor used to list.
+            }
+        }
+        return result;
+    }
+
+    private static Set<Thread> liveThreads() {
+        final Set<Thread> result = new HashSet<Thread>();
+        for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive()) {
+                result.add( thread );
+            }
+        }
+        return result;
+    }
+
+    private static BufferPoolMXBean getDirectPool() {
+        for (final BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans( BufferPoolMXBean.class )) {
+            if ("direct".equals( pool.getName() )) {
+                return pool;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.leak;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.xenei.junit.contract.ProducerProxy;
+
+/**
+ * An InvocationHandler for a proxy of a producer that reports the instances
+ * returned by <code>newInstance()</code> to the running LeakDetector.
+ */
+public class TrackingProducer extends ProducerProxy {
+
+    private final AtomicReference<LeakDetector> current;
+
+    private TrackingProducer(final Object producer, final AtomicReference<LeakDetector> current) {
+        super( producer );
+        this.current = current;
+    }
+
+    /**
+     * Wrap a producer in a tracking proxy. The proxy implements all the
+     * public interfaces of the producer. If the type the producer is injected as is
+     * not one of those interfaces or a proxy can not be created the producer
+     * is returned unchanged.
+     * 
+     * @param producer
+     *            the producer, may be null.
+     * @param type
+     *            the type the producer is injected as.
+     * @param current
+     *            holds the running LeakDetector.
+     * @return the proxy or the producer.
+     */
+    public static Object wrap(final Object producer, final Class<?> type,
+            final AtomicReference<LeakDetector> current) {
+        return ProducerProxy.wrap( new TrackingProducer( producer, current ), type );
+    }
+
+    @Override
+    protected Object newInstance() throws Throwable {
+        final Object result = producerNewInstance();
+        final LeakDetector detector = current.get();
+        if (detector != null) {
+            detector.track( result );
+        }
+        return result;
+    }
+}
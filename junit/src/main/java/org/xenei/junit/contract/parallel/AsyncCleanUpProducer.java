@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.runners.model.MultipleFailureException;
+import org.xenei.junit.contract.AsyncCleanUp;
+import org.xenei.junit.contract.ProducerProxy;
+
+/**
+ * An InvocationHandler for a proxy of a producer annotated with
+ * <code>&#64;AsyncCleanUp</code> that runs <code>cleanUp()</code> on a
+ * background thread.
+ * <p>
+ * The handlers for the producers of a contract test class share a
+ * <code>Queue</code>. <code>cleanUp()</code> calls run on the single thread
+ * of the queue in the order they were made, and <code>Queue.await()</code>
+ * waits for them and throws the exceptions they threw.
+ * </p>
+ */
+public class AsyncCleanUpProducer extends ProducerProxy {
+
+    private final Queue queue;
+
+    /**
+     * Constructor.
+     * 
+     * @param producer
+     *            the producer.
+     * @param queue
+     *            the queue to run the cleanups on.
+     */
+    public AsyncCleanUpProducer(final Object producer, final Queue queue) {
+        super( producer );
+        this.queue = queue;
+    }
+
+    /**
+     * Determine if a producer runs its cleanups in the background.
+     * 
+     * @param producer
+     *            the producer, may be null.
+     * @return true if the class of the producer is annotated with
+     *         <code>&#64;AsyncCleanUp</code>.
+     */
+    public static boolean isAsync(final Object producer) {
+        return producer != null && producer.getClass().isAnnotationPresent( AsyncCleanUp.class );
+    }
+
+    @Override
+    protected void cleanUp() {
+        queue.submit( new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    producerCleanUp();
+                } catch (final Throwable t) {
+                    queue.failed( t );
+                }
+            }
+        } );
+    }
+
+    /**
+     * The background thread that the cleanups run on and the exceptions they
+     * threw.
+     */
+    public static class Queue {
+        private final String name;
+        private final List<Throwable> errors = new ArrayList<Throwable>();
+        private ExecutorService executor;
+
+        /**
+         * Constructor. The thread is started by the first cleanup.
+         * 
+         * @param name
+         *            the name of the thread.
+         */
+        public Queue(final String name) {
+            this.name = name;
+        }
+
+        private synchronized void submit(final Runnable cleanUp) {
+            if (executor == null) {
+                executor = Executors.newSingleThreadExecutor( new ThreadFactory() {
+                    @Override
+                    public Thread newThread(final Runnable r) {
+                        final Thread thread = new Thread( r, name );
+                        thread.setDaemon( true );
+                        return thread;
+                    }
+                } );
+            }
+            executor.execute( cleanUp );
+        }
+
+        private synchronized void failed(final Throwable t) {
+            errors.add( t );
+        }
+
+        /**
+         * Wait for the cleanups to finish and stop the thread. The queue may
+         * be used again afterwards.
+         * 
+         * @throws Throwable
+         *             the exception thrown by a cleanup, or a
+         *             MultipleFailureException if several cleanups failed.
+         */
+        public void await() throws Throwable {
+            final ExecutorService current;
+            synchronized (this) {
+                current = executor;
+                executor = null;
+            }
+            if (current != null) {
+                current.shutdown();
+                while (!current.awaitTermination( 1, TimeUnit.SECONDS )) {
+                    // wait for slow cleanups.
+                }
+            }
+            final List<Throwable> result;
+            synchronized (this) {
+                result = new ArrayList<Throwable>( errors );
+                errors.clear();
+            }
+            MultipleFailureException.assertEmpty( result );
+        }
+    }
+}
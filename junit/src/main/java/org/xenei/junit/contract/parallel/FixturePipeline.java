@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.parallel;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Prepares the next test fixture in the background while a test runs.
+ * <p>
+ * A fixture, the test instance with the producer injected, does not depend on
+ * the test method, so once <code>start()</code> is called one fixture is kept
+ * ready ahead of the tests. <code>take()</code> returns the prepared fixture
+ * and starts preparing the next one on a background thread until as many
+ * fixtures as the tests need have been prepared. If the fixture is not ready
+ * <code>take()</code> waits for it, and if preparing it failed null is
+ * returned so that the caller creates the fixture itself and reports the
+ * failure.
+ * </p>
+ * 
+ * @see org.xenei.junit.contract.PrefetchFixture
+ */
+public class FixturePipeline {
+
+    /**
+     * The system property that enables the pipeline for producers annotated
+     * with <code>&#64;PrefetchFixture</code>.
+     */
+    public static final String ENABLE_PROPERTY = "contracts.prefetch";
+
+    private static final Log LOG = LogFactory.getLog( FixturePipeline.class );
+
+    private final Callable<Object> factory;
+    private final ExecutorService executor;
+    // the number of fixtures still to prepare.
+    private int remaining;
+    private boolean started;
+    // the fixture being prepared.
+    private Future<Object> next;
+
+    /**
+     * Constructor. No fixtures are prepared until <code>start()</code> is
+     * called.
+     * 
+     * @param factory
+     *            creates a fixture.
+     * @param name
+     *            the name of the background thread.
+     * @param count
+     *            the number of fixtures the tests will take, including the
+     *            fixture created before <code>start()</code> is called.
+     */
+    public FixturePipeline(final Callable<Object> factory, final String name, final int count) {
+        this.factory = factory;
+        this.remaining = count - 1;
+        this.executor = Executors.newSingleThreadExecutor( new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread thread = new Thread( r, name );
+                thread.setDaemon( true );
+                return thread;
+            }
+        } );
+    }
+
+    /**
+     * Determine if fixtures are prepared in the background.
+     * 
+     * @return true if the <code>contracts.prefetch</code> system property is
+     *         true.
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean( ENABLE_PROPERTY );
+    }
+
+    /**
+     * Start preparing fixtures. Called once the first fixture shows that its
+     * producer may be used from the background thread. Later calls do
+     * nothing.
+     */
+    public synchronized void start() {
+        if (!started) {
+            started = true;
+            prepareNext();
+        }
+    }
+
+    /**
+     * @return true if fixtures are prepared in the background.
+     */
+    public synchronized boolean isStarted() {
+        return started;
+    }
+
+    private void prepareNext() {
+        if (remaining > 0 && !executor.isShutdown()) {
+            remaining--;
+            next = executor.submit( factory );
+        }
+    }
+
+    /**
+     * Take the prepared fixture and start preparing the next one.
+     * 
+     * @return the fixture or null if none was prepared or preparing it failed.
+     */
+    public Object take() {
+        final Future<Object> current;
+        synchronized (this) {
+            current = next;
+            next = null;
+        }
+        if (current == null) {
+            return null;
+        }
+        // wait without the lock as the fixture may start the pipeline.
+        final Object result = get( current );
+        synchronized (this) {
+            prepareNext();
+        }
+        return result;
+    }
+
+    private static Object get(final Future<Object> future) {
+        try {
+            return future.get();
+        } catch (final ExecutionException e) {
+            LOG.debug( "Unable to prepare a fixture", e.getCause() );
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * Stop preparing fixtures.
+     * 
+     * @return the fixture that was prepared and not taken, or null.
+     */
+    public Object close() {
+        final Future<Object> current;
+        synchronized (this) {
+            current = next;
+            next = null;
+            executor.shutdown();
+        }
+        return current == null ? null : get( current );
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.parallel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.runners.model.InitializationError;
+import org.xenei.junit.contract.leak.LeakDetector;
+import org.xenei.junit.contract.perf.ContentionStatement;
+import org.xenei.junit.contract.perf.ResourceUsage;
+
+/**
+ * Checks that the modes that compare JVM wide state before and after each
+ * test are not combined with running tests at the same time.
+ * <p>
+ * Leak detection, contention profiling and resource usage recording look at
+ * every thread, open file and garbage collection in the JVM, so a test that
+ * overlaps another is charged with the other test's threads, files and
+ * collections. When <code>contracts.parallel</code> or
+ * <code>contracts.virtual</code> is set together with one of them the runner
+ * fails to initialize rather than report false leaks or usage.
+ * </p>
+ */
+public final class IsolationCheck {
+
+    private IsolationCheck() {
+    }
+
+    /**
+     * Get the enabled modes that require the tests to run one at a time.
+     * 
+     * @return the system properties of the enabled modes, empty if none are
+     *         enabled.
+     */
+    public static List<String> getIsolatedModes() {
+        final List<String> result = new ArrayList<String>();
+        if (LeakDetector.isEnabled()) {
+            result.add( LeakDetector.ENABLE_PROPERTY );
+        }
+        if (ContentionStatement.isEnabled()) {
+            result.add( ContentionStatement.ENABLE_PROPERTY );
+        }
+        if (ResourceUsage.isEnabled()) {
+            result.add( ResourceUsage.ENABLE_PROPERTY );
+        }
+        return result;
+    }
+
+    /**
+     * Check that no mode that requires the tests to run one at a time is
+     * enabled.
+     * 
+     * @param property
+     *            the system property that runs tests at the same time.
+     * @throws InitializationError
+     *             if such a mode is enabled.
+     */
+    public static void check(final String property) throws InitializationError {
+        final String message = getMessage( property );
+        if (message != null) {
+            throw new InitializationError( message );
+        }
+    }
+
+    /**
+     * Get the message that explains why the tests can not run at the same
+     * time.
+     * 
+     * @param property
+     *            the system property that runs tests at the same time.
+     * @return the message or null if the tests may run at the same time.
+     */
+    public static String getMessage(final String property) {
+        final List<String> modes = getIsolatedModes();
+        if (modes.isEmpty()) {
+            return null;
+        }
+        return String.format( "%s can not be used with %s, which compare JVM wide state before and after each test",
+                property, modes );
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.parallel;
+
+import java.util.Collection;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.xenei.junit.contract.ProducerProxy;
+
+/**
+ * An InvocationHandler for a proxy of a producer that creates the first
+ * instance ahead of time.
+ * <p>
+ * <code>prefetch()</code> calls <code>newInstance()</code> on the producer
+ * and the first call to <code>newInstance()</code> on the proxy returns the
+ * result. Later calls are passed to the producer. An instance that is never
+ * requested is released by <code>discard()</code>, which calls
+ * <code>cleanUp()</code> on the producer.
+ * </p>
+ */
+public class PrefetchingProducer extends ProducerProxy {
+
+    private static final Log LOG = LogFactory.getLog( PrefetchingProducer.class );
+
+    // the handlers with an instance that has not been requested.
+    private final Collection<PrefetchingProducer> unused;
+    private Object instance;
+    private boolean prefetched;
+
+    /**
+     * Constructor.
+     * 
+     * @param producer
+     *            the producer.
+     * @param unused
+     *            a thread safe collection that holds this handler while it has
+     *            an instance that has not been requested.
+     */
+    public PrefetchingProducer(final Object producer, final Collection<PrefetchingProducer> unused) {
+        super( producer );
+        this.unused = unused;
+    }
+
+    /**
+     * Create the first instance.
+     * 
+     * @return true if the instance was created, false if the producer failed,
+     *         in which case the first call to <code>newInstance()</code> calls
+     *         the producer again.
+     */
+    public synchronized boolean prefetch() {
+        try {
+            instance = producerNewInstance();
+        } catch (final Throwable t) {
+            LOG.debug( "Unable to create an instance ahead of time", t );
+            return false;
+        }
+        prefetched = true;
+        unused.add( this );
+        return true;
+    }
+
+    @Override
+    protected Object newInstance() throws Throwable {
+        synchronized (this) {
+            if (prefetched) {
+                final Object result = instance;
+                prefetched = false;
+                instance = null;
+                unused.remove( this );
+                return result;
+            }
+        }
+        return producerNewInstance();
+    }
+
+    /**
+     * Release the instance if it was not requested.
+     * 
+     * @throws Throwable
+     *             the exception thrown by the producer cleanUp().
+     */
+    public void discard() throws Throwable {
+        synchronized (this) {
+            if (!prefetched) {
+                return;
+            }
+            prefetched = false;
+            instance = null;
+            unused.remove( this );
+        }
+        producerCleanUp();
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.parallel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.runners.model.RunnerScheduler;
+
+/**
+ * A RunnerScheduler that runs the children of a runner in parallel while
+ * limiting the number of children that use each shared resource at the same
+ * time.
+ * <p>
+ * JUnit does not tell the scheduler which child a scheduled task runs, so
+ * <code>schedule()</code> runs the task at once and the task is expected to
+ * call <code>submit()</code> with the work for the child and the resources it
+ * uses. A submitted child starts when a thread is free and each of its
+ * resources is used by fewer children than the limit. Children that can not
+ * start wait without holding a thread, so children that do not share a
+ * resource are not held up behind them. <code>finished()</code> waits for all
+ * the submitted children to complete.
+ * </p>
+ * <p>
+ * The threads are started with the first task of each run, before any child
+ * runs, and stopped when the run finishes.
+ * </p>
+ */
+public class ResourceScheduler implements RunnerScheduler {
+
+    /**
+     * The system property for the number of threads. <code>true</code> uses
+     * one thread per available processor.
+     */
+    public static final String PARALLEL_PROPERTY = "contracts.parallel";
+
+    /**
+     * The prefix of the system properties that override the limit of a
+     * resource.
+     */
+    public static final String LIMIT_PREFIX = "contracts.resource.";
+
+    private static final Log LOG = LogFactory.getLog( ResourceScheduler.class );
+
+    private static final AtomicInteger POOLS = new AtomicInteger();
+
+    private final int threads;
+    // the children waiting to start.
+    private final List<Task> pending = new ArrayList<Task>();
+    // resource name to the number of running children that use it.
+    private final Map<String, Integer> inUse = new HashMap<String, Integer>();
+    private int running;
+    private ThreadPoolExecutor executor;
+
+    /**
+     * Constructor.
+     * 
+     * @param threads
+     *            the number of children to run at the same time.
+     */
+    public ResourceScheduler(final int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Get the number of threads from the <code>contracts.parallel</code>
+     * system property.
+     * 
+     * @return the number of threads, 1 if parallel execution is not enabled.
+     */
+    public static int getThreads() {
+        final String value = System.getProperty( PARALLEL_PROPERTY );
+        if (value == null || value.isEmpty() || "false".equalsIgnoreCase( value )) {
+            return 1;
+        }
+        if ("true".equalsIgnoreCase( value )) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        try {
+            return Math.max( 1, Integer.parseInt( value ) );
+        } catch (final NumberFormatException e) {
+            LOG.warn( String.format( "%s must be true, false or a number of threads, not %s", PARALLEL_PROPERTY,
+                    value ) );
+            return 1;
+        }
+    }
+
+    /**
+     * Determine if parallel execution is enabled.
+     * 
+     * @return true if <code>contracts.parallel</code> requests more than one
+     *         thread.
+     */
+    public static boolean isEnabled() {
+        return getThreads() > 1;
+    }
+
+    /**
+     * Get the limit of a resource.
+     * 
+     * @param name
+     *            the name of the resource.
+     * @param declared
+     *            the declared limit.
+     * @return the <code>contracts.resource.&lt;name&gt;</code> system property
+     *         if set, otherwise the declared limit. At least 1.
+     */
+    public static int getLimit(final String name, final int declared) {
+        return Math.max( 1, Integer.getInteger( LIMIT_PREFIX + name, declared ) );
+    }
+
+    /**
+     * Runs the task at once, the task is expected to call submit().
+     */
+    @Override
+    public void schedule(final Runnable childStatement) {
+        synchronized (this) {
+            if (executor == null) {
+                executor = new ThreadPoolExecutor( threads, threads, 0, TimeUnit.MILLISECONDS,
+                        new LinkedBlockingQueue<Runnable>(), new PoolThreadFactory( POOLS.incrementAndGet() ) );
+                executor.prestartAllCoreThreads();
+            }
+        }
+        childStatement.run();
+    }
+
+    /**
+     * Submit the work for a child.
+     * 
+     * @param name
+     *            the name of the child for logging.
+     * @param resources
+     *            the resource names used by the child and their declared
+     *            limits.
+     * @param work
+     *            the work to run.
+     */
+    public synchronized void submit(final String name, final Map<String, Integer> resources, final Runnable work) {
+        pending.add( new Task( name, resources, work ) );
+        dispatch();
+    }
+
+    /**
+     * Start the pending children that can run.
+     */
+    private synchronized void dispatch() {
+        final Iterator<Task> iter = pending.iterator();
+        while (running < threads && iter.hasNext()) {
+            final Task task = iter.next();
+            if (task.canStart()) {
+                iter.remove();
+                task.acquire();
+                running++;
+                executor.execute( task );
+            }
+        }
+    }
+
+    /**
+     * Called by a task when it completes.
+     * 
+     * @param task
+     *            the task.
+     */
+    private synchronized void completed(final Task task) {
+        task.release();
+        running--;
+        dispatch();
+        notifyAll();
+    }
+
+    /**
+     * Waits for the submitted children to complete and stops the threads.
+     */
+    @Override
+    public synchronized void finished() {
+        try {
+            while (running > 0 || !pending.isEmpty()) {
+                wait();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
+    }
+
+    /**
+     * The work for a child and the resources it uses.
+     */
+    private class Task implements Runnable {
+        private final String name;
+        private final Map<String, Integer> resources;
+        private final Runnable work;
+
+        Task(final String name, final Map<String, Integer> resources, final Runnable work) {
+            this.name = name;
+            this.resources = resources;
+            this.work = work;
+        }
+
+        // called while holding the scheduler lock.
+        boolean canStart() {
+            for (final Map.Entry<String, Integer> entry : resources.entrySet()) {
+                final Integer used = inUse.get( entry.getKey() );
+                if (used != null && used >= getLimit( entry.getKey(), entry.getValue() )) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // called while holding the scheduler lock.
+        void acquire() {
+            for (final String resource : resources.keySet()) {
+                final Integer used = inUse.get( resource );
+                inUse.put( resource, used == null ? 1 : used + 1 );
+            }
+        }
+
+        // called while holding the scheduler lock.
+        void release() {
+            for (final String resource : resources.keySet()) {
+                final int used = inUse.get( resource ) - 1;
+                if (used == 0) {
+                    inUse.remove( resource );
+                } else {
+                    inUse.put( resource, used );
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            LOG.debug( String.format( "Starting: %s using %s", name, resources.keySet() ) );
+            try {
+                work.run();
+            } finally {
+                completed( this );
+            }
+        }
+    }
+
+    /**
+     * Creates daemon threads named for the pool.
+     */
+    private static class PoolThreadFactory implements ThreadFactory {
+        private final int pool;
+        private final AtomicInteger count = new AtomicInteger();
+
+        PoolThreadFactory(final int pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread( r, String.format( "contract-parallel-%s-%s", pool,
+                    count.incrementAndGet() ) );
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+}
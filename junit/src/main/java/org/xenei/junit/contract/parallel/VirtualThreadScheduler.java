@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.parallel;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.runners.model.RunnerScheduler;
+
+/**
+ * A RunnerScheduler that runs each test of a contract test runner on its own
+ * virtual thread.
+ * <p>
+ * Virtual threads are cheap to block, so contract tests that wait on sockets
+ * or disk can run concurrently without a platform thread and its stack for
+ * each one. At most <code>contracts.virtual.max</code> (default 256) tests
+ * run at the same time. Like the ResourceScheduler, <code>schedule()</code>
+ * runs the task at once and the task is expected to call
+ * <code>submit()</code> with the work to run on a virtual thread, or to call
+ * <code>awaitIdle()</code> and run the work itself when it must not run
+ * concurrently with other tests.
+ * </p>
+ * <p>
+ * Virtual threads are found by reflection so that the framework runs on
+ * older JVMs. When they are not available <code>create()</code> logs a
+ * message once and returns null, and the tests run on the calling thread.
+ * </p>
+ */
+public class VirtualThreadScheduler implements RunnerScheduler {
+
+    /**
+     * The system property that enables virtual thread execution.
+     */
+    public static final String ENABLE_PROPERTY = "contracts.virtual";
+
+    /**
+     * The system property for the most tests that run at the same time.
+     */
+    public static final String MAX_PROPERTY = "contracts.virtual.max";
+
+    /**
+     * The default for the most tests that run at the same time.
+     */
+    public static final int DEFAULT_MAX = 256;
+
+    private static final Log LOG = LogFactory.getLog( VirtualThreadScheduler.class );
+
+    private static final AtomicBoolean REPORTED = new AtomicBoolean();
+
+    private final Executor executor;
+    private final Semaphore permits;
+    private int running;
+    // the first unexpected error thrown by the work.
+    private Throwable error;
+
+    /**
+     * Constructor.
+     * 
+     * @param executor
+     *            the executor that runs the work, normally one that starts a
+     *            virtual thread per task.
+     * @param max
+     *            the most work to run at the same time.
+     */
+    public VirtualThreadScheduler(final Executor executor, final int max) {
+        this.executor = executor;
+        this.permits = new Semaphore( Math.max( 1, max ) );
+    }
+
+    /**
+     * Determine if virtual thread execution is requested.
+     * 
+     * @return true if the <code>contracts.virtual</code> system property is
+     *         true.
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean( ENABLE_PROPERTY );
+    }
+
+    /**
+     * Create an executor that starts a new virtual thread for each task.
+     * 
+     * @return the executor or null if the JVM does not support virtual
+     *         threads.
+     */
+    public static Executor newVirtualExecutor() {
+        try {
+            final Class<?> builderClass = Class.forName( "java.lang.Thread$Builder$OfVirtual" );
+            Object builder = Thread.class.getMethod( "ofVirtual" ).invoke( null );
+            builder = builderClass.getMethod( "name", String.class, long.class ).invoke( builder,
+                    "contract-virtual-", 0L );
+            final ThreadFactory factory = (ThreadFactory) builderClass.getMethod( "factory" ).invoke( builder );
+            return (Executor) Executors.class.getMethod( "newThreadPerTaskExecutor", ThreadFactory.class )
+                    .invoke( null, factory );
+        } catch (final ReflectiveOperationException e) {
+            // not available, or a preview feature that is not enabled.
+            LOG.debug( "Virtual threads are not available", e );
+            return null;
+        }
+    }
+
+    /**
+     * Create a scheduler if virtual thread execution is enabled and supported.
+     * 
+     * @return the scheduler or null.
+     */
+    public static VirtualThreadScheduler create() {
+        if (!isEnabled()) {
+            return null;
+        }
+        final Executor executor = newVirtualExecutor();
+        if (executor == null) {
+            if (REPORTED.compareAndSet( false, true )) {
+                LOG.info( String.format( "%s is set but this JVM does not support virtual threads, tests run on "
+                        + "the calling thread", ENABLE_PROPERTY ) );
+            }
+            return null;
+        }
+        return new VirtualThreadScheduler( executor, Integer.getInteger( MAX_PROPERTY, DEFAULT_MAX ) );
+    }
+
+    /**
+     * Runs the task at once, the task is expected to call submit().
+     */
+    @Override
+    public void schedule(final Runnable childStatement) {
+        childStatement.run();
+    }
+
+    /**
+     * Run work on its own thread. Waits while the most work is running.
+     * 
+     * @param work
+     *            the work.
+     */
+    public void submit(final Runnable work) {
+        permits.acquireUninterruptibly();
+        synchronized (this) {
+            running++;
+        }
+        try {
+            executor.execute( new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        work.run();
+                    } catch (final Throwable t) {
+                        failed( t );
+                    } finally {
+                        completed();
+                    }
+                }
+            } );
+        } catch (final RejectedExecutionException e) {
+            completed();
+            work.run();
+        }
+    }
+
+    private synchronized void failed(final Throwable t) {
+        if (error == null) {
+            error = t;
+        } else {
+            LOG.error( "Additional failure in scheduled work", t );
+        }
+    }
+
+    private synchronized void completed() {
+        running--;
+        permits.release();
+        notifyAll();
+    }
+
+    /**
+     * Wait until no submitted work is running.
+     */
+    public synchronized void awaitIdle() {
+        try {
+            while (running > 0) {
+                wait();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits for the submitted work to complete and rethrows the first
+     * unexpected error it threw.
+     */
+    @Override
+    public void finished() {
+        awaitIdle();
+        final Throwable t;
+        synchronized (this) {
+            t = error;
+            error = null;
+        }
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        if (t != null) {
+            throw new IllegalStateException( t );
+        }
+    }
+}
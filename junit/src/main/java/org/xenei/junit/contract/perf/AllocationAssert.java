@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+import org.junit.Assume;
+
+/**
+ * Assertions on the memory allocated by an operation.
+ * <p>
+ * The bytes allocated by the current thread are read from
+ * <code>com.sun.management.ThreadMXBean</code> before and after the operation
+ * is run a number of times, after a warm up so that the operation is compiled
+ * and allocations removed by escape analysis are not counted. On JVMs that do
+ * not support thread allocation measurement the assertions are skipped with a
+ * failed assumption.
+ * </p>
+ * <p>
+ * For example, in a contract test for <code>Iterable</code>: <code>
+ * 
+ * AllocationAssert.assertMaxAllocation( "iterator allocated", 0, new Runnable() {
+ *     public void run() { for (Object o : iterable) { } }
+ * } );
+ * </code>
+ * </p>
+ */
+public final class AllocationAssert {
+
+    /**
+     * The default number of warm up runs.
+     */
+    public static final int DEFAULT_WARMUP = 10000;
+
+    /**
+     * The default number of measured runs.
+     */
+    public static final int DEFAULT_ITERATIONS = 1000;
+
+    private AllocationAssert() {
+    }
+
+    /**
+     * Get the thread management bean if it supports allocation measurement.
+     * 
+     * @return the bean or null.
+     */
+    static com.sun.management.ThreadMXBean getBean() {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported()) {
+                if (!sunBean.isThreadAllocatedMemoryEnabled()) {
+                    sunBean.setThreadAllocatedMemoryEnabled( true );
+                }
+                return sunBean;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Determine if allocation can be measured on this JVM.
+     * 
+     * @return true if the bytes allocated by a thread can be measured.
+     */
+    public static boolean isSupported() {
+        return getBean() != null;
+    }
+
+    /**
+     * Measure the average number of bytes allocated by the operation.
+     * 
+     * @param warmup
+     *            the number of times to run the operation before measuring.
+     * @param iterations
+     *            the number of times to run the operation while measuring.
+     * @param operation
+     *            the operation.
+     * @return the bytes allocated per run.
+     * @throws IllegalStateException
+     *             if allocation can not be measured on this JVM.
+     */
+    public static double bytesPerOperation(final int warmup, final int iterations, final Runnable operation) {
+        final com.sun.management.ThreadMXBean bean = getBean();
+        if (bean == null) {
+            throw new IllegalStateException( "Thread allocation measurement is not supported" );
+        }
+        final long id = Thread.currentThread().getId();
+        for (int i = 0; i < warmup; i++) {
+            operation.run();
+        }
+        // the cost of reading the allocated bytes.
+        final long calibration = bean.getThreadAllocatedBytes( id );
+        final long start = bean.getThreadAllocatedBytes( id );
+        for (int i = 0; i < iterations; i++) {
+            operation.run();
+        }
+        final long end = bean.getThreadAllocatedBytes( id );
+        final long allocated = Math.max( 0, (end - start) - (start - calibration) );
+        return (double) allocated / iterations;
+    }
+
+    /**
+     * Assert that the operation allocates no more than the budget on average.
+     * Uses the default warm up and iterations.
+     * 
+     * @param message
+     *            the message for the assertion error.
+     * @param bytesPerOperation
+     *            the budget.
+     * @param operation
+     *            the operation.
+     */
+    public static void assertMaxAllocation(final String message, final long bytesPerOperation,
+            final Runnable operation) {
+        assertMaxAllocation( message, bytesPerOperation, DEFAULT_WARMUP, DEFAULT_ITERATIONS, operation );
+    }
+
+    /**
+     * Assert that the operation allocates no more than the budget on average.
+     * 
+     * @param message
+     *            the message for the assertion error.
+     * @param bytesPerOperation
+     *            the budget.
+     * @param warmup
+     *            the number of times to run the operation before measuring.
+     * @param iterations
+     *            the number of times to run the operation while measuring.
+     * @param operation
+     *            the operation.
+     */
+    public static void assertMaxAllocation(final String message, final long bytesPerOperation, final int warmup,
+            final int iterations, final Runnable operation) {
+        Assume.assumeTrue( isSupported() );
+        final double actual = bytesPerOperation( warmup, iterations, operation );
+        if (actual > bytesPerOperation) {
+            throw new AssertionError( String.format( Locale.ROOT, "%s: allocated %.1f bytes per operation, budget %s",
+                    message, actual, bytesPerOperation ) );
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.Statement;
+import org.xenei.junit.contract.ContractBenchmark;
+
+/**
+ * A Statement that runs a <code>&#64;ContractBenchmark</code> method.
+ * <p>
+ * For each fork the fixture creates a new test instance, applies its rules and
+ * runs the <code>&#64;Before</code> methods. The benchmark method is then called repeatedly for each
+ * warm up and measured iteration, and the <code>&#64;After</code> methods are
+ * run. The average time per call of each measured iteration is a sample; the
+ * samples from all forks are recorded as a single Measurement.
+ * </p>
+ */
+public class BenchmarkStatement extends Statement {
+
+    /**
+     * The system property that enables benchmarks.
+     */
+    public static final String ENABLE_PROPERTY = "contracts.benchmark";
+
+    private static final Log LOG = LogFactory.getLog( BenchmarkStatement.class );
+
+    private final TestFixture fixture;
+    private final FrameworkMethod method;
+    private final String implementation;
+    private final String contract;
+
+    /**
+     * Constructor.
+     * 
+     * @param fixture
+     *            creates the test instances for the benchmark method.
+     * @param implementation
+     *            the name of the implementation being measured.
+     * @param contract
+     *            the name of the contract test class.
+     */
+    public BenchmarkStatement(final TestFixture fixture, final String implementation, final String contract) {
+        this.fixture = fixture;
+        this.method = fixture.getMethod();
+        this.implementation = implementation;
+        this.contract = contract;
+    }
+
+    /**
+     * Determine if benchmarks should be run. Scaling, complexity, footprint
+     * and stress methods are enabled by the same property.
+     * 
+     * @return true if the <code>contracts.benchmark</code> system property is
+     *         true.
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean( ENABLE_PROPERTY );
+    }
+
+    @Override
+    public void evaluate() throws Throwable {
+        final ContractBenchmark config = method.getAnnotation( ContractBenchmark.class );
+        final double[] samples = new double[config.forks() * config.iterations()];
+        final long iterationNanos = config.iterationTime() * 1000000L;
+        for (int fork = 0; fork < config.forks(); fork++) {
+            final int first = fork * config.iterations();
+            fixture.run( new TestFixture.Body<Void>() {
+                @Override
+                public Void run(final Object test) throws Throwable {
+                    for (int i = 0; i < config.warmupIterations(); i++) {
+                        runIteration( test, iterationNanos );
+                    }
+                    for (int i = 0; i < config.iterations(); i++) {
+                        samples[first + i] = runIteration( test, iterationNanos );
+                    }
+                    return null;
+                }
+            } );
+        }
+        if (samples.length > 0) {
+            final Measurement measurement = Measurement.create( implementation, contract, method.getName(), "time",
+                    "ns/op", samples );
+            LOG.info( measurement.summary() );
+            PerformanceResults.record( measurement );
+        }
+    }
+
+    /**
+     * Call the benchmark method until the iteration time has passed.
+     * 
+     * @param test
+     *            the test instance.
+     * @param iterationNanos
+     *            the length of the iteration.
+     * @return the average time per call in nanoseconds.
+     * @throws Throwable
+     *             if the benchmark method throws an exception.
+     */
+    private double runIteration(final Object test, final long iterationNanos) throws Throwable {
+        final long start = System.nanoTime();
+        final long deadline = start + iterationNanos;
+        long operations = 0;
+        long now;
+        do {
+            method.invokeExplosively( test );
+            operations++;
+            now = System.nanoTime();
+        } while (now - deadline < 0);
+        return (double) (now - start) / operations;
+    }
+}
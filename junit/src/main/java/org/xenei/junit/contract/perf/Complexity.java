@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+/**
+ * The growth classes that a contract may declare for an operation, and the
+ * curve fitting used to check measured times against them.
+ * <p>
+ * The check divides the time at each size by the growth function of the
+ * declared class and fits a straight line to the log of the result against the
+ * log of the size. An implementation in the declared class gives a slope near
+ * zero; an implementation one class worse gives a slope near one. The slope is
+ * compared to the tolerance declared by the contract.
+ * </p>
+ */
+public enum Complexity {
+    /**
+     * O(1)
+     */
+    CONSTANT("O(1)") {
+        @Override
+        public double apply(final double n) {
+            return 1;
+        }
+    },
+    /**
+     * O(log n)
+     */
+    LOG_N("O(log n)") {
+        @Override
+        public double apply(final double n) {
+            return Math.log( Math.max( n, 2 ) );
+        }
+    },
+    /**
+     * O(n)
+     */
+    LINEAR("O(n)") {
+        @Override
+        public double apply(final double n) {
+            return n;
+        }
+    },
+    /**
+     * O(n log n)
+     */
+    N_LOG_N("O(n log n)") {
+        @Override
+        public double apply(final double n) {
+            return n * Math.log( Math.max( n, 2 ) );
+        }
+    },
+    /**
+     * O(n^2)
+     */
+    QUADRATIC("O(n^2)") {
+        @Override
+        public double apply(final double n) {
+            return n * n;
+        }
+    };
+
+    private final String display;
+
+    private Complexity(final String display) {
+        this.display = display;
+    }
+
+    /**
+     * The growth function.
+     * 
+     * @param n
+     *            the input size.
+     * @return the relative cost at the size.
+     */
+    public abstract double apply(double n);
+
+    /**
+     * Calculate the growth of the measured times in excess of this class.
+     * 
+     * @param sizes
+     *            the input sizes.
+     * @param times
+     *            the time measured at each size.
+     * @return the slope of log(time / f(size)) against log(size).
+     */
+    public double excessGrowth(final double[] sizes, final double[] times) {
+        final double[] x = new double[sizes.length];
+        final double[] y = new double[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            x[i] = Math.log( sizes[i] );
+            y[i] = Math.log( times[i] / apply( sizes[i] ) );
+        }
+        return slope( x, y );
+    }
+
+    /**
+     * Find the class that best fits the measured times. Each class is fitted
+     * as <code>time = a + b * f(size)</code>. A faster growing class is only
+     * preferred if it halves the residual of the best slower growing class, so
+     * that noise in flat timings does not select a fast growing class.
+     * 
+     * @param sizes
+     *            the input sizes.
+     * @param times
+     *            the time measured at each size.
+     * @return the best fitting class.
+     */
+    public static Complexity bestFit(final double[] sizes, final double[] times) {
+        Complexity best = CONSTANT;
+        double bestResidual = Double.MAX_VALUE;
+        for (final Complexity complexity : values()) {
+            final double residual = complexity.residual( sizes, times );
+            if (residual < bestResidual / 2) {
+                best = complexity;
+                bestResidual = residual;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The sum of the squared residuals of the least squares fit of
+     * <code>time = a + b * f(size)</code> with b not negative.
+     */
+    private double residual(final double[] sizes, final double[] times) {
+        final double[] x = new double[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            x[i] = apply( sizes[i] );
+        }
+        final double b = Math.max( 0, slope( x, times ) );
+        final double a = mean( times ) - b * mean( x );
+        double sum = 0;
+        for (int i = 0; i < x.length; i++) {
+            final double r = times[i] - (a + b * x[i]);
+            sum += r * r;
+        }
+        return sum;
+    }
+
+    private static double mean(final double[] values) {
+        double sum = 0;
+        for (final double value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    private static double slope(final double[] x, final double[] y) {
+        final double mx = mean( x );
+        final double my = mean( y );
+        double num = 0;
+        double den = 0;
+        for (int i = 0; i < x.length; i++) {
+            num += (x[i] - mx) * (y[i] - my);
+            den += (x[i] - mx) * (x[i] - mx);
+        }
+        return den == 0 ? 0 : num / den;
+    }
+
+    @Override
+    public String toString() {
+        return display;
+    }
+}
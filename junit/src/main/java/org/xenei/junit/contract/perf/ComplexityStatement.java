@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import java.util.Locale;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.Statement;
+import org.xenei.junit.contract.ContractComplexity;
+
+/**
+ * A Statement that runs a <code>&#64;ContractComplexity</code> method.
+ * <p>
+ * For each size the fixture creates a new test instance with its rules, the
+ * <code>&#64;Before</code> methods are run and the method is called with the size to get the operation.
+ * The operation is timed and the <code>&#64;After</code> methods are run. The
+ * sizes are run once to warm up and then measured. When all sizes are measured
+ * the times are checked against the declared growth class.
+ * </p>
+ */
+public class ComplexityStatement extends Statement {
+
+    private static final Log LOG = LogFactory.getLog( ComplexityStatement.class );
+
+    private final TestFixture fixture;
+    private final FrameworkMethod method;
+    private final String implementation;
+    private final String contract;
+
+    /**
+     * Constructor.
+     * 
+     * @param fixture
+     *            creates the test instances for the complexity method.
+     * @param implementation
+     *            the name of the implementation being measured.
+     * @param contract
+     *            the name of the contract test class.
+     */
+    public ComplexityStatement(final TestFixture fixture, final String implementation, final String contract) {
+        this.fixture = fixture;
+        this.method = fixture.getMethod();
+        this.implementation = implementation;
+        this.contract = contract;
+    }
+
+    @Override
+    public void evaluate() throws Throwable {
+        final ContractComplexity config = method.getAnnotation( ContractComplexity.class );
+        final Class<?>[] params = method.getMethod().getParameterTypes();
+        if (params.length != 1 || params[0] != int.class || !Runnable.class.equals( method.getReturnType() )) {
+            throw new IllegalStateException( String.format(
+                    "%s must take a single int argument and return a Runnable", method.getMethod() ) );
+        }
+        final int[] sizes = config.sizes();
+        if (sizes.length < 2) {
+            throw new IllegalStateException( method.getMethod() + " must declare at least 2 sizes" );
+        }
+
+        // a warm up pass so that the operation is compiled before the
+        // smallest size is measured.
+        for (final int size : sizes) {
+            measure( size, config, 1 );
+        }
+        final double[] x = new double[sizes.length];
+        final double[] times = new double[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            x[i] = sizes[i];
+            times[i] = measure( sizes[i], config, config.iterations() );
+            PerformanceResults.record( Measurement.create( implementation, contract, method.getName(),
+                    "time[n=" + sizes[i] + "]", "ns/op", new double[] { times[i] } ) );
+        }
+
+        final Complexity declared = config.value();
+        final double excess = declared.excessGrowth( x, times );
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < sizes.length; i++) {
+            sb.append( String.format( Locale.ROOT, " n=%s: %.1fns", sizes[i], times[i] ) );
+        }
+        final String message = String.format( Locale.ROOT,
+                "%s(%s) declared %s, best fit %s, excess growth n^%.2f;%s", method.getName(), implementation,
+                declared, Complexity.bestFit( x, times ), excess, sb );
+        LOG.info( message );
+        if (excess > config.tolerance()) {
+            throw new AssertionError( message );
+        }
+    }
+
+    /**
+     * Measure the operation at a size.
+     * 
+     * @param size
+     *            the input size.
+     * @param config
+     *            the annotation.
+     * @param iterations
+     *            the number of times to time the operation.
+     * @return the fastest time per operation in nanoseconds.
+     * @throws Throwable
+     *             on error.
+     */
+    private double measure(final int size, final ContractComplexity config, final int iterations)
+            throws Throwable {
+        return fixture.run( new TestFixture.Body<Double>() {
+            @Override
+            public Double run(final Object test) throws Throwable {
+                final Runnable operation = (Runnable) method.invokeExplosively( test, size );
+                final long iterationNanos = config.iterationTime() * 1000000L;
+                double best = Double.MAX_VALUE;
+                for (int i = 0; i < iterations; i++) {
+                    best = Math.min( best, time( operation, iterationNanos ) );
+                }
+                return best;
+            }
+        } );
+    }
+
+    private static double time(final Runnable operation, final long iterationNanos) {
+        final long start = System.nanoTime();
+        final long deadline = start + iterationNanos;
+        long operations = 0;
+        long now;
+        do {
+            operation.run();
+            operations++;
+            now = System.nanoTime();
+        } while (now - deadline < 0);
+        return (double) (now - start) / operations;
+    }
+}
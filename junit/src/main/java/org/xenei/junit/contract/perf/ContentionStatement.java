@@ -0,0 +1,333 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.runners.model.Statement;
+import org.xenei.junit.contract.ContractContention;
+
+/**
+ * A Statement that measures lock contention while a contract method runs.
+ * <p>
+ * Thread contention monitoring is enabled while the statement runs and the
+ * threads are sampled at a fixed interval. The time each thread spent blocked
+ * entering monitors and waiting since the statement started is summed over
+ * the thread that runs the method and the threads started while it runs.
+ * Threads that were already running when the statement started, such as
+ * other tests' threads or idle pool threads, are not counted, so work handed
+ * to a thread pool created before the statement is not measured. Threads that
+ * end between samples lose the time since their last sample. The locks that
+ * threads were blocked on, or parked on while another thread owned them, are
+ * counted at each sample to identify the most contended locks. The waiting
+ * time of the thread that runs the method is not counted as it is usually
+ * waiting for the threads it started.
+ * </p>
+ * <p>
+ * The times are logged and written to the performance results. If the method
+ * is annotated with <code>&#64;ContractContention</code> the test fails when
+ * a time exceeds its budget. When the JVM does not support contention
+ * monitoring the method is run without measurement.
+ * </p>
+ */
+public class ContentionStatement extends Statement {
+
+    /**
+     * The system property that enables contention profiling of all contract
+     * tests.
+     */
+    public static final String ENABLE_PROPERTY = "contracts.contention";
+
+    /**
+     * The system property for the sampling interval in milliseconds.
+     */
+    public static final String INTERVAL_PROPERTY = "contracts.contention.interval";
+
+    private static final Log LOG = LogFactory.getLog( ContentionStatement.class );
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    // the number of contended locks to report.
+    private static final int TOP_LOCKS = 3;
+
+    // the number of running statements, monitoring is enabled while positive.
+    private static int active;
+    // the monitoring state before the first statement started.
+    private static boolean wasEnabled;
+
+    private final Statement next;
+    private final ContractContention config;
+    private final String implementation;
+    private final String contract;
+    private final String method;
+
+    /**
+     * Constructor.
+     * 
+     * @param next
+     *            the statement to measure.
+     * @param config
+     *            the budget, may be null.
+     * @param implementation
+     *            the name of the implementation being tested.
+     * @param contract
+     *            the name of the contract test class.
+     * @param method
+     *            the name of the contract method.
+     */
+    public ContentionStatement(final Statement next, final ContractContention config, final String implementation,
+            final String contract, final String method) {
+        this.next = next;
+        this.config = config;
+        this.implementation = implementation;
+        this.contract = contract;
+        this.method = method;
+    }
+
+    /**
+     * Determine if contention profiling is enabled for all contract tests.
+     * 
+     * @return true if the <code>contracts.contention</code> system property is
+     *         true.
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean( ENABLE_PROPERTY );
+    }
+
+    /**
+     * Determine if the JVM can measure contention.
+     * 
+     * @return true if thread contention monitoring is supported.
+     */
+    public static boolean isSupported() {
+        return THREADS.isThreadContentionMonitoringSupported();
+    }
+
+    private static synchronized void startMonitoring() {
+        if (active++ == 0) {
+            wasEnabled = THREADS.isThreadContentionMonitoringEnabled();
+            THREADS.setThreadContentionMonitoringEnabled( true );
+        }
+    }
+
+    private static synchronized void stopMonitoring() {
+        if (--active == 0) {
+            THREADS.setThreadContentionMonitoringEnabled( wasEnabled );
+        }
+    }
+
+    @Override
+    public void evaluate() throws Throwable {
+        if (!isSupported()) {
+            LOG.debug( "Thread contention monitoring is not supported" );
+            next.evaluate();
+            return;
+        }
+        startMonitoring();
+        final Sampler sampler;
+        try {
+            sampler = new Sampler( Thread.currentThread().getId(), Long.getLong( INTERVAL_PROPERTY, 5 ) );
+            final Thread thread = new Thread( sampler, "contention sampler " + method );
+            thread.setDaemon( true );
+            sampler.exclude( thread.getId() );
+            sampler.sample();
+            thread.start();
+            try {
+                next.evaluate();
+            } finally {
+                sampler.stop();
+                thread.join();
+                sampler.sample();
+            }
+        } finally {
+            stopMonitoring();
+        }
+        check( sampler );
+    }
+
+    /**
+     * Report the contention and check it against the budget.
+     * 
+     * @param sampler
+     *            the samples.
+     */
+    private void check(final Sampler sampler) {
+        final long blocked = sampler.total( Sampler.BLOCKED_TIME, false );
+        final long waited = sampler.total( Sampler.WAITED_TIME, true );
+        PerformanceResults.record( Measurement.create( implementation, contract, method, "blocked", "ms",
+                new double[] { blocked } ) );
+        PerformanceResults.record( Measurement.create( implementation, contract, method, "waited", "ms",
+                new double[] { waited } ) );
+
+        final String message = String.format( Locale.ROOT,
+                "%s(%s) blocked %sms (%s times), waited %sms (%s times)%s", method, implementation, blocked,
+                sampler.total( Sampler.BLOCKED_COUNT, false ), waited, sampler.total( Sampler.WAITED_COUNT, true ),
+                sampler.describeLocks() );
+        LOG.info( message );
+        if (config != null) {
+            if (config.maxBlockedTime() >= 0 && blocked > config.maxBlockedTime()) {
+                throw new AssertionError( String.format( "%s; blocked time budget %sms exceeded", message,
+                        config.maxBlockedTime() ) );
+            }
+            if (config.maxWaitedTime() >= 0 && waited > config.maxWaitedTime()) {
+                throw new AssertionError( String.format( "%s; waited time budget %sms exceeded", message,
+                        config.maxWaitedTime() ) );
+            }
+        }
+    }
+
+    /**
+     * Samples the thread contention statistics.
+     */
+    private static class Sampler implements Runnable {
+        static final int BLOCKED_TIME = 0;
+        static final int WAITED_TIME = 1;
+        static final int BLOCKED_COUNT = 2;
+        static final int WAITED_COUNT = 3;
+
+        private final long testThread;
+        private final long interval;
+        // the sampler and the threads running before the first sample.
+        private final Set<Long> excluded = new HashSet<Long>();
+        // the statistics of each thread at the start and last sample.
+        private final Map<Long, long[]> start = new HashMap<Long, long[]>();
+        private final Map<Long, long[]> last = new HashMap<Long, long[]>();
+        // lock name to the number of samples it was contended in.
+        private final Map<String, Integer> locks = new HashMap<String, Integer>();
+        // lock name to the last owner seen.
+        private final Map<String, String> owners = new HashMap<String, String>();
+        private volatile boolean running = true;
+        private boolean first = true;
+
+        Sampler(final long testThread, final long interval) {
+            this.testThread = testThread;
+            this.interval = interval;
+        }
+
+        void exclude(final long id) {
+            excluded.add( id );
+        }
+
+        void stop() {
+            running = false;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    Thread.sleep( interval );
+                } catch (final InterruptedException e) {
+                    return;
+                }
+                sample();
+            }
+        }
+
+        synchronized void sample() {
+            for (final ThreadInfo info : THREADS.getThreadInfo( THREADS.getAllThreadIds() )) {
+                if (info == null || excluded.contains( info.getThreadId() )) {
+                    continue;
+                }
+                final Long id = info.getThreadId();
+                final long[] values = { info.getBlockedTime(), info.getWaitedTime(), info.getBlockedCount(),
+                        info.getWaitedCount() };
+                if (first) {
+                    if (id != testThread) {
+                        excluded.add( id );
+                        continue;
+                    }
+                    start.put( id, values );
+                } else {
+                    if (!start.containsKey( id )) {
+                        // started since the first sample.
+                        start.put( id, new long[values.length] );
+                    }
+                    final String lock = info.getLockName();
+                    if (lock != null
+                            && (info.getThreadState() == Thread.State.BLOCKED || info.getLockOwnerId() != -1)) {
+                        final Integer count = locks.get( lock );
+                        locks.put( lock, count == null ? 1 : count + 1 );
+                        if (info.getLockOwnerName() != null) {
+                            owners.put( lock, info.getLockOwnerName() );
+                        }
+                    }
+                }
+                last.put( id, values );
+            }
+            first = false;
+        }
+
+        /**
+         * Sum a statistic over the threads.
+         * 
+         * @param index
+         *            the statistic.
+         * @param skipTestThread
+         *            true if the thread running the test is not counted.
+         * @return the total.
+         */
+        synchronized long total(final int index, final boolean skipTestThread) {
+            long result = 0;
+            for (final Map.Entry<Long, long[]> entry : last.entrySet()) {
+                if (!(skipTestThread && entry.getKey() == testThread)) {
+                    result += Math.max( 0, entry.getValue()[index] - start.get( entry.getKey() )[index] );
+                }
+            }
+            return result;
+        }
+
+        synchronized String describeLocks() {
+            if (locks.isEmpty()) {
+                return "";
+            }
+            final List<Map.Entry<String, Integer>> entries = new ArrayList<Map.Entry<String, Integer>>(
+                    locks.entrySet() );
+            Collections.sort( entries, new Comparator<Map.Entry<String, Integer>>() {
+                @Override
+                public int compare(final Map.Entry<String, Integer> o1, final Map.Entry<String, Integer> o2) {
+                    return o2.getValue().compareTo( o1.getValue() );
+                }
+            } );
+            final StringBuilder sb = new StringBuilder( "; contended locks:" );
+            for (final Map.Entry<String, Integer> entry : entries.subList( 0, Math.min( TOP_LOCKS, entries.size() ) )) {
+                sb.append( String.format( " %s (%s samples", entry.getKey(), entry.getValue() ) );
+                final String owner = owners.get( entry.getKey() );
+                if (owner != null) {
+                    sb.append( ", held by " ).append( owner );
+                }
+                sb.append( ")" );
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import org.junit.runner.Description;
+
+/**
+ * The contract test that is running on the current thread.
+ * <p>
+ * The ContractTestRunner sets the context while a contract test runs so that
+ * harnesses used inside the test, such as the LatencyRecorder, record their
+ * results under the same implementation and contract names as benchmarks.
+ * </p>
+ */
+public final class ContractContext {
+
+    private static final ThreadLocal<ContractContext> CURRENT = new ThreadLocal<ContractContext>();
+
+    private final String implementation;
+    private final String contract;
+
+    /**
+     * Constructor.
+     * 
+     * @param implementation
+     *            the name of the implementation under test.
+     * @param contract
+     *            the name of the contract test class.
+     */
+    public ContractContext(final String implementation, final String contract) {
+        this.implementation = implementation;
+        this.contract = contract;
+    }
+
+    /**
+     * Get the context for the current thread.
+     * 
+     * @return the context or null if a contract test is not running.
+     */
+    public static ContractContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Get the context for the current thread, or a context derived from the
+     * description if a contract test is not running.
+     * 
+     * @param description
+     *            the description of the running test.
+     * @return the context.
+     */
+    public static ContractContext current(final Description description) {
+        final ContractContext result = CURRENT.get();
+        return result == null ? new ContractContext( description.getClassName(), description.getClassName() )
+                : result;
+    }
+
+    /**
+     * Set the context for the current thread.
+     * 
+     * @param context
+     *            the context, null to clear it.
+     */
+    public static void set(final ContractContext context) {
+        if (context == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set( context );
+        }
+    }
+
+    /**
+     * @return the name of the implementation under test.
+     */
+    public String getImplementation() {
+        return implementation;
+    }
+
+    /**
+     * @return the name of the contract test class.
+     */
+    public String getContract() {
+        return contract;
+    }
+
+    @Override
+    public String toString() {
+        return String.format( "[%s testing %s]", contract, implementation );
+    }
+}
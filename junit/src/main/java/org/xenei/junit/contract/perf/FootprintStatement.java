@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Assume;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.Statement;
+import org.xenei.junit.contract.ContractFootprint;
+
+/**
+ * A Statement that runs a <code>&#64;ContractFootprint</code> method.
+ * <p>
+ * For each sample the fixture creates a new test instance, applies its rules
+ * and runs the <code>&#64;Before</code> methods. The heap in use is read after a
+ * forced garbage collection before and after the method populates the object
+ * and the difference is the retained size of the object. The
+ * <code>&#64;After</code> methods are run once the object has been measured.
+ * If garbage collection can not be forced, for example when the JVM runs with
+ * <code>-XX:+DisableExplicitGC</code>, the test is skipped with a failed
+ * assumption.
+ * </p>
+ */
+public class FootprintStatement extends Statement {
+
+    private static final Log LOG = LogFactory.getLog( FootprintStatement.class );
+
+    // the fewest collections to run. The serial and parallel collectors may
+    // leave some dead objects in place rather than compact the heap, every
+    // fourth full collection by default compacts completely.
+    private static final int MIN_COLLECTIONS = 4;
+
+    // the most collections to run while waiting for the heap to settle.
+    private static final int MAX_COLLECTIONS = 10;
+
+    private final TestFixture fixture;
+    private final FrameworkMethod method;
+    private final String implementation;
+    private final String contract;
+
+    /**
+     * Constructor.
+     * 
+     * @param fixture
+     *            creates the test instances for the footprint method.
+     * @param implementation
+     *            the name of the implementation being measured.
+     * @param contract
+     *            the name of the contract test class.
+     */
+    public FootprintStatement(final TestFixture fixture, final String implementation, final String contract) {
+        this.fixture = fixture;
+        this.method = fixture.getMethod();
+        this.implementation = implementation;
+        this.contract = contract;
+    }
+
+    @Override
+    public void evaluate() throws Throwable {
+        final ContractFootprint config = method.getAnnotation( ContractFootprint.class );
+        final Class<?>[] params = method.getMethod().getParameterTypes();
+        if (params.length != 1 || params[0] != int.class || method.getReturnType().isPrimitive()) {
+            throw new IllegalStateException( String.format(
+                    "%s must take a single int argument and return the populated object", method.getMethod() ) );
+        }
+        Assume.assumeTrue( "Garbage collection can not be forced", canCollect() );
+
+        final double[] samples = new double[Math.max( 1, config.samples() )];
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (double) measure( config.elements() ) / config.elements();
+            best = Math.min( best, samples[i] );
+        }
+        PerformanceResults.record( Measurement.create( implementation, contract, method.getName(),
+                "footprint[n=" + config.elements() + "]", "bytes/element", samples ) );
+
+        final String message = String.format( Locale.ROOT, "%s(%s) retained %.1f bytes per element, budget %.1f",
+                method.getName(), implementation, best, config.bytesPerElement() );
+        LOG.info( message );
+        if (best > config.bytesPerElement()) {
+            throw new AssertionError( message );
+        }
+    }
+
+    /**
+     * Populate an object and measure its retained size.
+     * 
+     * @param elements
+     *            the number of elements.
+     * @return the retained size in bytes.
+     * @throws Throwable
+     *             on error.
+     */
+    private long measure(final int elements) throws Throwable {
+        return fixture.run( new TestFixture.Body<Long>() {
+            @Override
+            public Long run(final Object test) throws Throwable {
+                final long before = usedAfterCollection();
+                final Object populated = method.invokeExplosively( test, elements );
+                final long after = usedAfterCollection();
+                // keeps the object reachable until the heap has been measured.
+                if (populated == null) {
+                    throw new IllegalStateException( method.getMethod() + " returned null" );
+                }
+                return Math.max( 0, after - before );
+            }
+        } );
+    }
+
+    /**
+     * Get the heap in use once garbage collection no longer reduces it.
+     * 
+     * @return the smallest number of bytes in use after a collection.
+     */
+    public static long usedAfterCollection() {
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < MAX_COLLECTIONS; i++) {
+            System.gc();
+            final long now = used();
+            if (now >= used && i >= MIN_COLLECTIONS - 1) {
+                return used;
+            }
+            used = Math.min( used, now );
+        }
+        return used;
+    }
+
+    private static long used() {
+        final Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Determine if <code>System.gc()</code> runs a collection.
+     * 
+     * @return true if a collection is run.
+     */
+    public static boolean canCollect() {
+        final long before = collections();
+        System.gc();
+        return before < 0 || collections() > before;
+    }
+
+    // the total number of collections, -1 if unknown.
+    private static long collections() {
+        long total = 0;
+        for (final GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            final long count = bean.getCollectionCount();
+            if (count < 0) {
+                return -1;
+            }
+            total += count;
+        }
+        return total;
+    }
+}
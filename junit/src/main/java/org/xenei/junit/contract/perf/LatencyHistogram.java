@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of latencies in nanoseconds.
+ * <p>
+ * Values are counted in log-linear buckets: values below 256 are counted
+ * exactly and larger values in buckets that are less than 1% wide, so the
+ * histogram has a fixed size whatever the number of values recorded. The
+ * minimum, maximum and mean are exact. Recording a value does not allocate.
+ * </p>
+ * <p>
+ * The histogram is not thread safe.
+ * </p>
+ */
+public class LatencyHistogram {
+
+    // the number of bits of precision.
+    private static final int SUB_BITS = 8;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF_COUNT = SUB_COUNT / 2;
+    private static final int BUCKETS = SUB_COUNT + (64 - SUB_BITS) * HALF_COUNT;
+
+    private final long[] counts;
+    private long count;
+    private long min;
+    private long max;
+    private double sum;
+    private double sumOfSquares;
+
+    /**
+     * Constructor.
+     */
+    public LatencyHistogram() {
+        counts = new long[BUCKETS];
+        reset();
+    }
+
+    /**
+     * Remove all the recorded values.
+     */
+    public void reset() {
+        Arrays.fill( counts, 0 );
+        count = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+        sum = 0;
+        sumOfSquares = 0;
+    }
+
+    private static int index(final long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        final int shift = 64 - Long.numberOfLeadingZeros( value ) - SUB_BITS;
+        return SUB_COUNT + (shift - 1) * HALF_COUNT + (int) ((value >>> shift) - HALF_COUNT);
+    }
+
+    // the middle of the range of values counted by the bucket.
+    private static long value(final int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        final int shift = (index - SUB_COUNT) / HALF_COUNT + 1;
+        final long lower = ((long) ((index - SUB_COUNT) % HALF_COUNT + HALF_COUNT)) << shift;
+        return lower + ((1L << shift) - 1) / 2;
+    }
+
+    /**
+     * Record a latency.
+     * 
+     * @param nanos
+     *            the latency in nanoseconds. Negative values are recorded as 0.
+     */
+    public void record(final long nanos) {
+        final long value = Math.max( 0, nanos );
+        counts[index( value )]++;
+        count++;
+        min = Math.min( min, value );
+        max = Math.max( max, value );
+        sum += value;
+        sumOfSquares += (double) value * value;
+    }
+
+    /**
+     * @return the number of values recorded.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the smallest value recorded, 0 if none have been.
+     */
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * @return the largest value recorded.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return the mean of the values recorded.
+     */
+    public double getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * @return the sample standard deviation of the values recorded.
+     */
+    public double getStdDev() {
+        if (count < 2) {
+            return 0;
+        }
+        final double mean = getMean();
+        return Math.sqrt( Math.max( 0, (sumOfSquares - count * mean * mean) / (count - 1) ) );
+    }
+
+    /**
+     * Get the value at a percentile. The value is accurate to the width of the
+     * bucket that contains it and is never more than the maximum.
+     * 
+     * @param percentile
+     *            the percentile (0-100).
+     * @return the value at the percentile, 0 if no values have been recorded.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max( 1, (long) Math.ceil( percentile / 100.0 * count ) );
+        if (rank >= count) {
+            return max;
+        }
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.max( getMin(), Math.min( max, value( i ) ) );
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Create a Measurement from the histogram.
+     * 
+     * @param implementation
+     *            the name of the implementation class.
+     * @param contract
+     *            the name of the contract test class.
+     * @param method
+     *            the name of the contract method.
+     * @param metric
+     *            the name of the metric.
+     * @return the Measurement in nanoseconds.
+     */
+    public Measurement toMeasurement(final String implementation, final String contract, final String method,
+            final String metric) {
+        return new Measurement( implementation, contract, method, metric, "ns", count, getMean(), getStdDev(),
+                getMin(), getMax(), getValueAtPercentile( 50 ), getValueAtPercentile( 90 ),
+                getValueAtPercentile( 99 ), getValueAtPercentile( 99.9 ) );
+    }
+}
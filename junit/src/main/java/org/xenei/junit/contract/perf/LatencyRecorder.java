@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+/**
+ * A rule that records the latency of operations in a contract test and checks
+ * them against percentile budgets.
+ * <p>
+ * The rule is declared in the <code>&#64;Contract</code> class with the
+ * budgets, and the test records calls to the object from the producer:
+ * </p>
+ * 
+ * <pre>
+ * &#64;Rule
+ * public LatencyRecorder latency = new LatencyRecorder().budget( "get", 99.9, 2, TimeUnit.MILLISECONDS );
+ * 
+ * &#64;ContractTest
+ * public void testGetLatency() {
+ *     latency.record( "get", 1000, 100000, new Runnable() {
+ *         public void run() {
+ *             cache.get( key );
+ *         }
+ *     } );
+ * }
+ * </pre>
+ * <p>
+ * When the test completes the p50, p99, p99.9 and max of each operation are
+ * logged against the test description, which names the implementation suite,
+ * and written to the performance results directory. The test fails if any
+ * budget is exceeded.
+ * </p>
+ */
+public class LatencyRecorder implements TestRule {
+
+    private static final Log LOG = LogFactory.getLog( LatencyRecorder.class );
+
+    private final Map<String, LatencyHistogram> histograms;
+    private final List<Budget> budgets;
+
+    /**
+     * Constructor.
+     */
+    public LatencyRecorder() {
+        histograms = new LinkedHashMap<String, LatencyHistogram>();
+        budgets = new ArrayList<Budget>();
+    }
+
+    /**
+     * Declare a budget for an operation.
+     * 
+     * @param operation
+     *            the name of the operation.
+     * @param percentile
+     *            the percentile (0-100) that the budget applies to.
+     * @param limit
+     *            the maximum latency at the percentile.
+     * @param unit
+     *            the unit of the limit.
+     * @return this recorder for chaining.
+     */
+    public LatencyRecorder budget(final String operation, final double percentile, final long limit,
+            final TimeUnit unit) {
+        budgets.add( new Budget( operation, percentile, unit.toNanos( limit ) ) );
+        return this;
+    }
+
+    /**
+     * Get the histogram for an operation, creating it if necessary.
+     * 
+     * @param operation
+     *            the name of the operation.
+     * @return the histogram.
+     */
+    public LatencyHistogram histogram(final String operation) {
+        LatencyHistogram result = histograms.get( operation );
+        if (result == null) {
+            result = new LatencyHistogram();
+            histograms.put( operation, result );
+        }
+        return result;
+    }
+
+    /**
+     * Record a single latency for an operation.
+     * 
+     * @param operation
+     *            the name of the operation.
+     * @param nanos
+     *            the latency in nanoseconds.
+     */
+    public void record(final String operation, final long nanos) {
+        histogram( operation ).record( nanos );
+    }
+
+    /**
+     * Time an operation repeatedly and record the latency of each call.
+     * 
+     * @param operation
+     *            the name of the operation.
+     * @param warmup
+     *            the number of calls to make before recording.
+     * @param calls
+     *            the number of calls to record.
+     * @param runnable
+     *            the operation.
+     */
+    public void record(final String operation, final int warmup, final int calls, final Runnable runnable) {
+        for (int i = 0; i < warmup; i++) {
+            runnable.run();
+        }
+        final LatencyHistogram histogram = histogram( operation );
+        for (int i = 0; i < calls; i++) {
+            final long start = System.nanoTime();
+            runnable.run();
+            histogram.record( System.nanoTime() - start );
+        }
+    }
+
+    @Override
+    public Statement apply(final Statement base, final Description description) {
+        return new Statement() {
+
+            @Override
+            public void evaluate() throws Throwable {
+                histograms.clear();
+                base.evaluate();
+                report( description );
+            }
+        };
+    }
+
+    /**
+     * Report the results and check the budgets.
+     * 
+     * @param description
+     *            the description of the test.
+     */
+    private void report(final Description description) {
+        final ContractContext context = ContractContext.current( description );
+        final String method = description.getMethodName() == null ? description.getDisplayName()
+                : description.getMethodName().replaceFirst( "\\(.*", "" );
+        for (final Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            final LatencyHistogram histogram = entry.getValue();
+            if (histogram.getCount() > 0) {
+                LOG.info( String.format( Locale.ROOT, "%s %s: p50=%sns p99=%sns p99.9=%sns max=%sns n=%s",
+                        description.getDisplayName(), entry.getKey(), histogram.getValueAtPercentile( 50 ),
+                        histogram.getValueAtPercentile( 99 ), histogram.getValueAtPercentile( 99.9 ),
+                        histogram.getMax(), histogram.getCount() ) );
+                PerformanceResults.record( histogram.toMeasurement( context.getImplementation(),
+                        context.getContract(), method, "latency:" + entry.getKey() ) );
+            }
+        }
+
+        final List<String> violations = new ArrayList<String>();
+        for (final Budget budget : budgets) {
+            final LatencyHistogram histogram = histograms.get( budget.operation );
+            if (histogram != null && histogram.getCount() > 0) {
+                final long actual = histogram.getValueAtPercentile( budget.percentile );
+                if (actual > budget.nanos) {
+                    violations.add( String.format( Locale.ROOT, "%s p%s %sns exceeds budget %sns", budget.operation,
+                            budget.percentile, actual, budget.nanos ) );
+                }
+            }
+        }
+        if (!violations.isEmpty()) {
+            throw new AssertionError( description.getDisplayName() + " latency " + violations );
+        }
+    }
+
+    /**
+     * A latency budget for an operation.
+     */
+    private static class Budget {
+        private final String operation;
+        private final double percentile;
+        private final long nanos;
+
+        Budget(final String operation, final double percentile, final long nanos) {
+            this.operation = operation;
+            this.percentile = percentile;
+            this.nanos = nanos;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The summary of a set of samples of a metric for a contract method run
+ * against an implementation.
+ * <p>
+ * Measurements are written to and read from the results files as a single tab
+ * separated line in the order: implementation, contract, method, metric, unit,
+ * count, mean, standard deviation, min, max, p50, p90, p99, p99.9.
+ * </p>
+ */
+public class Measurement {
+
+    private static final int FIELDS = 14;
+
+    private final String implementation;
+    private final String contract;
+    private final String method;
+    private final String metric;
+    private final String unit;
+    private final long count;
+    private final double mean;
+    private final double stdDev;
+    private final double min;
+    private final double max;
+    private final double p50;
+    private final double p90;
+    private final double p99;
+    private final double p999;
+
+    /**
+     * Constructor.
+     * 
+     * @param implementation
+     *            the name of the implementation class.
+     * @param contract
+     *            the name of the contract test class.
+     * @param method
+     *            the name of the contract method.
+     * @param metric
+     *            the name of the metric, for example "time".
+     * @param unit
+     *            the unit of the values, for example "ns/op".
+     * @param count
+     *            the number of samples.
+     * @param mean
+     *            the mean of the samples.
+     * @param stdDev
+     *            the sample standard deviation.
+     * @param min
+     *            the smallest sample.
+     * @param max
+     *            the largest sample.
+     * @param p50
+     *            the 50th percentile.
+     * @param p90
+     *            the 90th percentile.
+     * @param p99
+     *            the 99th percentile.
+     * @param p999
+     *            the 99.9th percentile.
+     */
+    public Measurement(final String implementation, final String contract, final String method, final String metric,
+            final String unit, final long count, final double mean, final double stdDev, final double min,
+            final double max, final double p50, final double p90, final double p99, final double p999) {
+        this.implementation = implementation;
+        this.contract = contract;
+        this.method = method;
+        this.metric = metric;
+        this.unit = unit;
+        this.count = count;
+        this.mean = mean;
+        this.stdDev = stdDev;
+        this.min = min;
+        this.max = max;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+    }
+
+    /**
+     * Create a measurement from samples.
+     * 
+     * @param implementation
+     *            the name of the implementation class.
+     * @param contract
+     *            the name of the contract test class.
+     * @param method
+     *            the name of the contract method.
+     * @param metric
+     *            the name of the metric.
+     * @param unit
+     *            the unit of the samples.
+     * @param samples
+     *            the samples. Must not be empty.
+     * @return the Measurement.
+     */
+    public static Measurement create(final String implementation, final String contract, final String method,
+            final String metric, final String unit, final double[] samples) {
+        final double[] sorted = samples.clone();
+        Arrays.sort( sorted );
+        double sum = 0;
+        for (final double sample : sorted) {
+            sum += sample;
+        }
+        final double mean = sum / sorted.length;
+        double squares = 0;
+        for (final double sample : sorted) {
+            squares += (sample - mean) * (sample - mean);
+        }
+        final double stdDev = sorted.length > 1 ? Math.sqrt( squares / (sorted.length - 1) ) : 0;
+        return new Measurement( implementation, contract, method, metric, unit, sorted.length, mean, stdDev,
+                sorted[0], sorted[sorted.length - 1], percentile( sorted, 50 ), percentile( sorted, 90 ),
+                percentile( sorted, 99 ), percentile( sorted, 99.9 ) );
+    }
+
+    /**
+     * Get a percentile from sorted samples using the nearest rank.
+     * 
+     * @param sorted
+     *            the sorted samples.
+     * @param percentile
+     *            the percentile (0-100).
+     * @return the value at the percentile.
+     */
+    public static double percentile(final double[] sorted, final double percentile) {
+        final int rank = (int) Math.ceil( percentile / 100.0 * sorted.length );
+        return sorted[Math.max( 0, Math.min( sorted.length - 1, rank - 1 ) )];
+    }
+
+    /**
+     * Parse a measurement from a results file line.
+     * 
+     * @param line
+     *            the line to parse.
+     * @return the Measurement.
+     * @throws IllegalArgumentException
+     *             if the line is not a measurement.
+     */
+    public static Measurement parse(final String line) {
+        final String[] parts = line.split( "\t" );
+        if (parts.length != FIELDS) {
+            throw new IllegalArgumentException( "Not a measurement: " + line );
+        }
+        return new Measurement( parts[0], parts[1], parts[2], parts[3], parts[4], Long.parseLong( parts[5] ),
+                Double.parseDouble( parts[6] ), Double.parseDouble( parts[7] ), Double.parseDouble( parts[8] ),
+                Double.parseDouble( parts[9] ), Double.parseDouble( parts[10] ), Double.parseDouble( parts[11] ),
+                Double.parseDouble( parts[12] ), Double.parseDouble( parts[13] ) );
+    }
+
+    /**
+     * Get the key that identifies the measured method and metric for an
+     * implementation.
+     * 
+     * @return the key.
+     */
+    public String getKey() {
+        return String.format( "%s %s.%s %s", implementation, contract, method, metric );
+    }
+
+    /**
+     * @return the implementation class name.
+     */
+    public String getImplementation() {
+        return implementation;
+    }
+
+    /**
+     * @return the contract test class name.
+     */
+    public String getContract() {
+        return contract;
+    }
+
+    /**
+     * @return the contract method name.
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the metric name.
+     */
+    public String getMetric() {
+        return metric;
+    }
+
+    /**
+     * @return the unit of the values.
+     */
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * @return the number of samples.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the mean.
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @return the sample standard deviation.
+     */
+    public double getStdDev() {
+        return stdDev;
+    }
+
+    /**
+     * @return the smallest sample.
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * @return the largest sample.
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @return the 50th percentile.
+     */
+    public double getP50() {
+        return p50;
+    }
+
+    /**
+     * @return the 90th percentile.
+     */
+    public double getP90() {
+        return p90;
+    }
+
+    /**
+     * @return the 99th percentile.
+     */
+    public double getP99() {
+        return p99;
+    }
+
+    /**
+     * @return the 99.9th percentile.
+     */
+    public double getP999() {
+        return p999;
+    }
+
+    /**
+     * Determine if larger values of this measurement are better.
+     *
+     * @return true for throughputs, units starting with <code>ops/</code>.
+     */
+    public boolean isHigherBetter() {
+        return unit.startsWith( "ops/" );
+    }
+
+    /**
+     * Format the measurement for display.
+     * 
+     * @return a short human readable summary.
+     */
+    public String summary() {
+        return String.format( Locale.ROOT,
+                "%s(%s) %s: %.3f +/- %.3f %s (min %.3f, p50 %.3f, p99 %.3f, p99.9 %.3f, max %.3f, n=%s)",
+                method, implementation, metric, mean, stdDev, unit, min, p50, p99, p999, max, count );
+    }
+
+    /**
+     * Returns the results file line for this measurement.
+     */
+    @Override
+    public String toString() {
+        return String.format( Locale.ROOT, "%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s",
+                implementation, contract, method, metric, unit, count, mean, stdDev, min, max, p50, p90, p99, p999 );
+    }
+}
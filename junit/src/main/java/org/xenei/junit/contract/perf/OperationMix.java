@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A weighted mix of operations run by the threads of a scaling test.
+ * <p>
+ * The operations are called from many threads at once so they must be thread
+ * safe. Each thread chooses operations in proportion to their weights using
+ * its own random sequence, so choosing does not add contention.
+ * </p>
+ */
+public class OperationMix {
+
+    private final List<String> names;
+    private final List<Runnable> operations;
+    // cumulative weights.
+    private final List<Integer> limits;
+    private int total;
+
+    /**
+     * Constructor.
+     */
+    public OperationMix() {
+        names = new ArrayList<String>();
+        operations = new ArrayList<Runnable>();
+        limits = new ArrayList<Integer>();
+    }
+
+    /**
+     * Add an operation to the mix.
+     * 
+     * @param name
+     *            the name of the operation.
+     * @param weight
+     *            the relative frequency of the operation. Must be positive.
+     * @param operation
+     *            the operation.
+     * @return this mix for chaining.
+     */
+    public OperationMix add(final String name, final int weight, final Runnable operation) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException( "weight must be positive: " + weight );
+        }
+        total += weight;
+        names.add( name );
+        operations.add( operation );
+        limits.add( total );
+        return this;
+    }
+
+    /**
+     * @return the number of operations in the mix.
+     */
+    public int size() {
+        return operations.size();
+    }
+
+    /**
+     * Get the name of an operation.
+     * 
+     * @param index
+     *            the index of the operation.
+     * @return the name.
+     */
+    public String getName(final int index) {
+        return names.get( index );
+    }
+
+    /**
+     * Create a selector for one thread.
+     * 
+     * @param seed
+     *            the seed for the random sequence.
+     * @return a selector that is not thread safe.
+     */
+    public Selector selector(final long seed) {
+        return new Selector( seed );
+    }
+
+    /**
+     * Chooses operations for a single thread.
+     */
+    public class Selector {
+        private final Runnable[] ops;
+        private final int[] bounds;
+        private long state;
+
+        private Selector(final long seed) {
+            ops = operations.toArray( new Runnable[operations.size()] );
+            bounds = new int[limits.size()];
+            for (int i = 0; i < bounds.length; i++) {
+                bounds[i] = limits.get( i );
+            }
+            state = seed == 0 ? 0x9E3779B97F4A7C15L : seed;
+        }
+
+        /**
+         * Choose the next operation.
+         * 
+         * @return the index of the operation.
+         */
+        public int next() {
+            // xorshift
+            state ^= state << 13;
+            state ^= state >>> 7;
+            state ^= state << 17;
+            final int value = (int) ((state >>> 1) % total);
+            int i = 0;
+            while (value >= bounds[i]) {
+                i++;
+            }
+            return i;
+        }
+
+        /**
+         * Run an operation.
+         * 
+         * @param index
+         *            the index of the operation.
+         */
+        public void run(final int index) {
+            ops[index].run();
+        }
+    }
+}
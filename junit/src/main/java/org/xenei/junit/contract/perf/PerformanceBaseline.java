@@ -0,0 +1,453 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A baseline of performance measurements that later results are compared to.
+ * <p>
+ * The baseline is intended to be kept under version control with the tests.
+ * The file starts with a <code># contract-perf-baseline &lt;version&gt;</code>
+ * line followed by one measurement per line in the results file format.
+ * Measurements are identified by their key (implementation, contract, method
+ * and metric) so updating the baseline replaces the measurements that were run
+ * and keeps the rest.
+ * </p>
+ * <p>
+ * A result regresses when it is worse than the baseline by more than a
+ * threshold and a one sided Welch's t-test on the means and standard
+ * deviations of the two measurements shows the difference is significant.
+ * Measurements with fewer than two samples have no variance so the test can
+ * not show a difference is significant. When either measurement has fewer than
+ * two samples a result worse by more than the threshold is reported as an
+ * advisory regression, which is not expected to fail the build.
+ * </p>
+ */
+public final class PerformanceBaseline {
+
+    /**
+     * The version of the baseline file format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The prefix of the first line of a baseline file.
+     */
+    public static final String HEADER = "# contract-perf-baseline ";
+
+    private static final Charset UTF8 = Charset.forName( "UTF-8" );
+
+    // key -> measurement
+    private final Map<String, Measurement> measurements;
+
+    /**
+     * Constructor for an empty baseline.
+     */
+    public PerformanceBaseline() {
+        measurements = new TreeMap<String, Measurement>();
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param measurements
+     *            the baseline measurements.
+     */
+    public PerformanceBaseline(final Collection<Measurement> measurements) {
+        this();
+        update( measurements );
+    }
+
+    /**
+     * Read a baseline file.
+     * 
+     * @param file
+     *            the file to read.
+     * @return the baseline, empty if the file does not exist.
+     * @throws IOException
+     *             if the file can not be read.
+     * @throws IllegalArgumentException
+     *             if the file is not a baseline of a supported version.
+     */
+    public static PerformanceBaseline read(final File file) throws IOException {
+        final PerformanceBaseline result = new PerformanceBaseline();
+        if (!file.exists()) {
+            return result;
+        }
+        final BufferedReader reader = new BufferedReader(
+                new InputStreamReader( new FileInputStream( file ), UTF8 ) );
+        try {
+            String line = reader.readLine();
+            if (line == null || !line.startsWith( HEADER )) {
+                throw new IllegalArgumentException( file + " is not a performance baseline" );
+            }
+            final int version = Integer.parseInt( line.substring( HEADER.length() ).trim() );
+            if (version > VERSION) {
+                throw new IllegalArgumentException(
+                        String.format( "%s is version %s, only versions up to %s are supported", file, version,
+                                VERSION ) );
+            }
+            line = reader.readLine();
+            while (line != null) {
+                if (line.trim().length() > 0 && !line.startsWith( "#" )) {
+                    final Measurement m = Measurement.parse( line );
+                    result.measurements.put( m.getKey(), m );
+                }
+                line = reader.readLine();
+            }
+        } finally {
+            reader.close();
+        }
+        return result;
+    }
+
+    /**
+     * Write the baseline file.
+     * 
+     * @param file
+     *            the file to write.
+     * @throws IOException
+     *             on error.
+     */
+    public void write(final File file) throws IOException {
+        final File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null) {
+            dir.mkdirs();
+        }
+        final Writer writer = new OutputStreamWriter( new FileOutputStream( file ), UTF8 );
+        try {
+            writer.write( HEADER + VERSION + "\n" );
+            for (final Measurement m : measurements.values()) {
+                writer.write( m.toString() );
+                writer.write( "\n" );
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Add measurements to the baseline, replacing the measurements with the
+     * same keys.
+     * 
+     * @param current
+     *            the measurements to add.
+     */
+    public void update(final Collection<Measurement> current) {
+        for (final Measurement m : current) {
+            measurements.put( m.getKey(), m );
+        }
+    }
+
+    /**
+     * Get the baseline measurement for a key.
+     * 
+     * @param key
+     *            the measurement key.
+     * @return the measurement or null if there is none.
+     * @see Measurement#getKey()
+     */
+    public Measurement get(final String key) {
+        return measurements.get( key );
+    }
+
+    /**
+     * @return the baseline measurements ordered by key.
+     */
+    public Collection<Measurement> getMeasurements() {
+        return measurements.values();
+    }
+
+    /**
+     * @return true if there are no measurements in the baseline.
+     */
+    public boolean isEmpty() {
+        return measurements.isEmpty();
+    }
+
+    /**
+     * Compare measurements to the baseline. Measurements that are not in the
+     * baseline are not regressions. Measurements that are worse by more than
+     * the threshold where either side has fewer than two samples are returned
+     * as advisory regressions.
+     * 
+     * @param current
+     *            the measurements to compare.
+     * @param threshold
+     *            the fraction of the baseline a measurement must be worse by,
+     *            for example 0.1 for 10%.
+     * @param significance
+     *            the largest p-value that is a significant difference, for
+     *            example 0.05.
+     * @return the regressions, empty if there are none.
+     */
+    public List<Regression> compare(final Collection<Measurement> current, final double threshold,
+            final double significance) {
+        final List<Regression> result = new ArrayList<Regression>();
+        for (final Measurement m : current) {
+            final Measurement base = measurements.get( m.getKey() );
+            if (base == null || base.getMean() == 0) {
+                continue;
+            }
+            final double change = m.isHigherBetter() ? (base.getMean() - m.getMean()) / base.getMean()
+                    : (m.getMean() - base.getMean()) / base.getMean();
+            if (change > threshold) {
+                if (base.getCount() < 2 || m.getCount() < 2) {
+                    result.add( new Regression( base, m, change ) );
+                } else {
+                    final double pValue = pValue( base, m );
+                    if (pValue <= significance) {
+                        result.add( new Regression( base, m, change, pValue ) );
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Calculate the one sided p-value of Welch's t-test for the hypothesis
+     * that the current measurement is no worse than the baseline.
+     * 
+     * @param base
+     *            the baseline measurement.
+     * @param current
+     *            the current measurement.
+     * @return the p-value. 0 if neither measurement has any variance and the
+     *         current one is worse.
+     */
+    public static double pValue(final Measurement base, final Measurement current) {
+        final double diff = current.isHigherBetter() ? base.getMean() - current.getMean()
+                : current.getMean() - base.getMean();
+        final double vb = variance( base );
+        final double vc = variance( current );
+        final double se2 = vb + vc;
+        if (se2 == 0) {
+            return diff > 0 ? 0.0 : 1.0;
+        }
+        final double t = diff / Math.sqrt( se2 );
+        double denominator = 0;
+        if (vb > 0) {
+            denominator += vb * vb / (base.getCount() - 1);
+        }
+        if (vc > 0) {
+            denominator += vc * vc / (current.getCount() - 1);
+        }
+        final double df = se2 * se2 / denominator;
+        final double tail = 0.5 * incompleteBeta( df / (df + t * t), df / 2, 0.5 );
+        return t > 0 ? tail : 1.0 - tail;
+    }
+
+    // the variance of the mean.
+    private static double variance(final Measurement m) {
+        if (m.getCount() < 2) {
+            return 0;
+        }
+        return m.getStdDev() * m.getStdDev() / m.getCount();
+    }
+
+    /**
+     * The regularized incomplete beta function I<sub>x</sub>(a, b).
+     * 
+     * @param x
+     *            the upper limit of integration, 0 &lt;= x &lt;= 1.
+     * @param a
+     *            the first shape parameter.
+     * @param b
+     *            the second shape parameter.
+     * @return the value of the function.
+     */
+    static double incompleteBeta(final double x, final double a, final double b) {
+        if (x <= 0) {
+            return 0;
+        }
+        if (x >= 1) {
+            return 1;
+        }
+        final double front = Math.exp( logGamma( a + b ) - logGamma( a ) - logGamma( b ) + a * Math.log( x )
+                + b * Math.log( 1 - x ) );
+        // the continued fraction converges quickly on this side of the mean.
+        if (x < (a + 1) / (a + b + 2)) {
+            return front * betaFraction( x, a, b ) / a;
+        }
+        return 1 - front * betaFraction( 1 - x, b, a ) / b;
+    }
+
+    // the continued fraction for the incomplete beta function, modified
+    // Lentz's method.
+    private static double betaFraction(final double x, final double a, final double b) {
+        final double tiny = 1e-300;
+        double c = 1;
+        double d = 1 - (a + b) * x / (a + 1);
+        d = 1 / (Math.abs( d ) < tiny ? tiny : d);
+        double h = d;
+        for (int m = 1; m <= 300; m++) {
+            final int m2 = 2 * m;
+            double aa = m * (b - m) * x / ((a + m2 - 1) * (a + m2));
+            d = 1 + aa * d;
+            d = 1 / (Math.abs( d ) < tiny ? tiny : d);
+            c = 1 + aa / c;
+            c = Math.abs( c ) < tiny ? tiny : c;
+            h *= d * c;
+            aa = -(a + m) * (a + b + m) * x / ((a + m2) * (a + m2 + 1));
+            d = 1 + aa * d;
+            d = 1 / (Math.abs( d ) < tiny ? tiny : d);
+            c = 1 + aa / c;
+            c = Math.abs( c ) < tiny ? tiny : c;
+            final double delta = d * c;
+            h *= delta;
+            if (Math.abs( delta - 1 ) < 1e-12) {
+                break;
+            }
+        }
+        return h;
+    }
+
+    // the Lanczos approximation of ln(gamma(x)).
+    private static double logGamma(final double x) {
+        final double[] coefficients = { 76.18009172947146, -86.50532032941677, 24.01409824083091,
+                -1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5 };
+        double y = x;
+        final double tmp = x + 5.5 - (x + 0.5) * Math.log( x + 5.5 );
+        double series = 1.000000000190015;
+        for (final double coefficient : coefficients) {
+            series += coefficient / ++y;
+        }
+        return -tmp + Math.log( 2.5066282746310005 * series / x );
+    }
+
+    /**
+     * A measurement that is significantly worse than its baseline, or worse
+     * by more than the threshold when the significance can not be tested.
+     */
+    public static class Regression {
+        private final Measurement baseline;
+        private final Measurement current;
+        private final double change;
+        private final double pValue;
+        private final boolean advisory;
+
+        /**
+         * Constructor.
+         * 
+         * @param baseline
+         *            the baseline measurement.
+         * @param current
+         *            the current measurement.
+         * @param change
+         *            the fraction of the baseline the current measurement is
+         *            worse by.
+         * @param pValue
+         *            the p-value of the difference.
+         */
+        public Regression(final Measurement baseline, final Measurement current, final double change,
+                final double pValue) {
+            this.baseline = baseline;
+            this.current = current;
+            this.change = change;
+            this.pValue = pValue;
+            this.advisory = false;
+        }
+
+        /**
+         * Constructor for an advisory regression, where a measurement has
+         * fewer than two samples so the significance is not tested.
+         * 
+         * @param baseline
+         *            the baseline measurement.
+         * @param current
+         *            the current measurement.
+         * @param change
+         *            the fraction of the baseline the current measurement is
+         *            worse by.
+         */
+        public Regression(final Measurement baseline, final Measurement current, final double change) {
+            this.baseline = baseline;
+            this.current = current;
+            this.change = change;
+            this.pValue = Double.NaN;
+            this.advisory = true;
+        }
+
+        /**
+         * @return the baseline measurement.
+         */
+        public Measurement getBaseline() {
+            return baseline;
+        }
+
+        /**
+         * @return the current measurement.
+         */
+        public Measurement getCurrent() {
+            return current;
+        }
+
+        /**
+         * @return the fraction of the baseline the current measurement is
+         *         worse by.
+         */
+        public double getChange() {
+            return change;
+        }
+
+        /**
+         * @return the p-value of the difference, NaN for an advisory
+         *         regression.
+         */
+        public double getPValue() {
+            return pValue;
+        }
+
+        /**
+         * @return true if a measurement has fewer than two samples so the
+         *         significance of the difference was not tested.
+         */
+        public boolean isAdvisory() {
+            return advisory;
+        }
+
+        @Override
+        public String toString() {
+            if (advisory) {
+                return String.format( Locale.ROOT,
+                        "%s: %.3f %s -> %.3f %s (%.1f%% worse, advisory: fewer than 2 samples)", current.getKey(),
+                        baseline.getMean(), baseline.getUnit(), current.getMean(), current.getUnit(), change * 100 );
+            }
+            return String.format( Locale.ROOT, "%s: %.3f %s -> %.3f %s (%.1f%% worse, p=%.4f)", current.getKey(),
+                    baseline.getMean(), baseline.getUnit(), current.getMean(), current.getUnit(), change * 100,
+                    pValue );
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * The store for performance measurements.
+ * <p>
+ * Measurements are written to one file per implementation and JVM in the
+ * directory named by the <code>contracts.results.dir</code> system property
+ * (default <code>target/contract-perf</code>), so test JVMs forked at the same
+ * time never write to the same file. The first measurement written to a file
+ * by a JVM replaces any earlier contents. The resources used by each test are
+ * written to separate files in the same directory. The files are read by the
+ * contract test maven plugin to compare implementations; the plugin's
+ * <code>clean-results</code> goal removes the files of earlier builds before
+ * the tests run.
+ * </p>
+ */
+public final class PerformanceResults {
+
+    /**
+     * The system property that names the results directory.
+     */
+    public static final String DIRECTORY_PROPERTY = "contracts.results.dir";
+
+    /**
+     * The default results directory.
+     */
+    public static final String DEFAULT_DIRECTORY = "target/contract-perf";
+
+    /**
+     * The extension of the results files.
+     */
+    public static final String EXTENSION = ".perf";
+
+    /**
+     * The extension of the resource usage files.
+     */
+    public static final String USAGE_EXTENSION = ".usage";
+
+    private static final Log LOG = LogFactory.getLog( PerformanceResults.class );
+
+    private static final Charset UTF8 = Charset.forName( "UTF-8" );
+
+    // the files written by this JVM.
+    private static final Set<File> WRITTEN = new HashSet<File>();
+
+    // identifies this JVM in the file names.
+    private static final String JVM_ID = ManagementFactory.getRuntimeMXBean().getName().split( "@" )[0]
+            .replaceAll( "[^A-Za-z0-9]", "_" );
+
+    private PerformanceResults() {
+    }
+
+    /**
+     * Get the results directory.
+     * 
+     * @return the directory named by the system property or the default.
+     */
+    public static File getDirectory() {
+        return new File( System.getProperty( DIRECTORY_PROPERTY, DEFAULT_DIRECTORY ) );
+    }
+
+    /**
+     * Get the file this JVM writes the results of an implementation to.
+     * 
+     * @param dir
+     *            the results directory.
+     * @param implementation
+     *            the name of the implementation.
+     * @param extension
+     *            the extension of the file, EXTENSION or USAGE_EXTENSION.
+     * @return the file.
+     */
+    public static File getFile(final File dir, final String implementation, final String extension) {
+        return new File( dir, implementation + "." + JVM_ID + extension );
+    }
+
+    /**
+     * Delete the results and resource usage files in a results directory.
+     * 
+     * @param dir
+     *            the directory to clear.
+     * @return the number of files deleted.
+     * @throws IOException
+     *             if a file can not be deleted.
+     */
+    public static int clear(final File dir) throws IOException {
+        final List<File> files = listFiles( dir, EXTENSION );
+        files.addAll( listFiles( dir, USAGE_EXTENSION ) );
+        for (final File file : files) {
+            if (!file.delete() && file.exists()) {
+                throw new IOException( "Unable to delete " + file );
+            }
+        }
+        return files.size();
+    }
+
+    /**
+     * Record a measurement.
+     * 
+     * Errors writing the results are logged, they do not fail the test.
+     * 
+     * @param measurement
+     *            the measurement to record.
+     */
+    public static void record(final Measurement measurement) {
+        append( measurement.getImplementation(), EXTENSION, measurement.toString() );
+    }
+
+    /**
+     * Record the resources used by a test.
+     * 
+     * Errors writing the results are logged, they do not fail the test.
+     * 
+     * @param usage
+     *            the resource usage to record.
+     */
+    public static void record(final ResourceUsage usage) {
+        append( usage.getImplementation(), USAGE_EXTENSION, usage.toString() );
+    }
+
+    private static synchronized void append(final String implementation, final String extension,
+            final String line) {
+        final File dir = getDirectory();
+        final File file = getFile( dir, implementation, extension );
+        dir.mkdirs();
+        try {
+            final Writer writer = new OutputStreamWriter( new FileOutputStream( file, !WRITTEN.add( file ) ), UTF8 );
+            try {
+                writer.write( line );
+                writer.write( "\n" );
+            } finally {
+                writer.close();
+            }
+        } catch (final IOException e) {
+            LOG.warn( "Unable to write performance results to " + file, e );
+        }
+    }
+
+    /**
+     * Read all the measurements in a results directory.
+     * 
+     * @param dir
+     *            the directory to read.
+     * @return the measurements, empty if the directory does not exist.
+     * @throws IOException
+     *             if a results file can not be read.
+     */
+    public static List<Measurement> read(final File dir) throws IOException {
+        final List<Measurement> result = new ArrayList<Measurement>();
+        for (final File file : listFiles( dir, EXTENSION )) {
+            result.addAll( readFile( file ) );
+        }
+        return result;
+    }
+
+    /**
+     * Read all the resource usage in a results directory.
+     * 
+     * @param dir
+     *            the directory to read.
+     * @return the resource usage, empty if the directory does not exist.
+     * @throws IOException
+     *             if a resource usage file can not be read.
+     */
+    public static List<ResourceUsage> readUsage(final File dir) throws IOException {
+        final List<ResourceUsage> result = new ArrayList<ResourceUsage>();
+        for (final File file : listFiles( dir, USAGE_EXTENSION )) {
+            for (final String line : readLines( file )) {
+                result.add( ResourceUsage.parse( line ) );
+            }
+        }
+        return result;
+    }
+
+    private static List<File> listFiles(final File dir, final String extension) {
+        final List<File> result = new ArrayList<File>();
+        final File[] files = dir.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                if (file.getName().endsWith( extension )) {
+                    result.add( file );
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Read the measurements in a results file.
+     * 
+     * @param file
+     *            the file to read.
+     * @return the measurements.
+     * @throws IOException
+     *             if the file can not be read.
+     */
+    public static List<Measurement> readFile(final File file) throws IOException {
+        final List<Measurement> result = new ArrayList<Measurement>();
+        for (final String line : readLines( file )) {
+            result.add( Measurement.parse( line ) );
+        }
+        return result;
+    }
+
+    // the lines that are not blank or comments.
+    private static List<String> readLines(final File file) throws IOException {
+        final List<String> result = new ArrayList<String>();
+        final BufferedReader reader = new BufferedReader(
+                new InputStreamReader( new FileInputStream( file ), UTF8 ) );
+        try {
+            String line = reader.readLine();
+            while (line != null) {
+                if (line.trim().length() > 0 && !line.startsWith( "#" )) {
+                    result.add( line );
+                }
+                line = reader.readLine();
+            }
+        } finally {
+            reader.close();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The resources used by a contract test run against an implementation.
+ * <p>
+ * CPU time and allocated bytes are those of the thread that runs the test,
+ * they do not include threads started by the test. Garbage collection counts
+ * and times are for the whole JVM and are attributed to the test that was
+ * running when the collection happened. Values that the JVM can not measure
+ * are -1.
+ * </p>
+ * <p>
+ * Resource use is only recorded when the <code>contracts.resources</code>
+ * system property is true. It is written to and read from the results files as
+ * a single tab separated line in the order: implementation, contract, method,
+ * elapsed time (ns), CPU time (ns), allocated bytes, GC count, GC time (ms).
+ * </p>
+ */
+public class ResourceUsage {
+
+    /**
+     * The system property that enables recording of resource use.
+     */
+    public static final String ENABLE_PROPERTY = "contracts.resources";
+
+    private static final int FIELDS = 8;
+
+    // the beans are found when the class is loaded so that the first snapshot
+    // does not include their initialization.
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS = AllocationAssert.getBean();
+    private static final List<GarbageCollectorMXBean> COLLECTORS = ManagementFactory.getGarbageCollectorMXBeans();
+
+    private final String implementation;
+    private final String contract;
+    private final String method;
+    private final long elapsed;
+    private final long cpuTime;
+    private final long allocated;
+    private final long gcCount;
+    private final long gcTime;
+
+    /**
+     * Constructor.
+     * 
+     * @param implementation
+     *            the name of the implementation class.
+     * @param contract
+     *            the name of the contract test class.
+     * @param method
+     *            the name of the contract method.
+     * @param elapsed
+     *            the elapsed time in nanoseconds.
+     * @param cpuTime
+     *            the CPU time of the test thread in nanoseconds.
+     * @param allocated
+     *            the bytes allocated by the test thread.
+     * @param gcCount
+     *            the number of garbage collections.
+     * @param gcTime
+     *            the time spent in garbage collection in milliseconds.
+     */
+    public ResourceUsage(final String implementation, final String contract, final String method,
+            final long elapsed, final long cpuTime, final long allocated, final long gcCount, final long gcTime) {
+        this.implementation = implementation;
+        this.contract = contract;
+        this.method = method;
+        this.elapsed = elapsed;
+        this.cpuTime = cpuTime;
+        this.allocated = allocated;
+        this.gcCount = gcCount;
+        this.gcTime = gcTime;
+    }
+
+    /**
+     * Determine if resource use should be recorded.
+     * 
+     * @return true if the <code>contracts.resources</code> system property is
+     *         true.
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean( ENABLE_PROPERTY );
+    }
+
+    /**
+     * Take a snapshot of the resources used so far by the current thread and
+     * the garbage collector.
+     * 
+     * @return the snapshot.
+     */
+    public static Snapshot snapshot() {
+        return new Snapshot();
+    }
+
+    /**
+     * Parse a results file line.
+     * 
+     * @param line
+     *            the line.
+     * @return the resource usage.
+     * @throws IllegalArgumentException
+     *             if the line is not a resource usage.
+     */
+    public static ResourceUsage parse(final String line) {
+        final String[] parts = line.split( "\t" );
+        if (parts.length != FIELDS) {
+            throw new IllegalArgumentException( "Not a resource usage: " + line );
+        }
+        return new ResourceUsage( parts[0], parts[1], parts[2], Long.parseLong( parts[3] ),
+                Long.parseLong( parts[4] ), Long.parseLong( parts[5] ), Long.parseLong( parts[6] ),
+                Long.parseLong( parts[7] ) );
+    }
+
+    /**
+     * @return the implementation class name.
+     */
+    public String getImplementation() {
+        return implementation;
+    }
+
+    /**
+     * @return the contract test class name.
+     */
+    public String getContract() {
+        return contract;
+    }
+
+    /**
+     * @return the contract method name.
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the elapsed time in nanoseconds.
+     */
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * @return the CPU time of the test thread in nanoseconds, -1 if unknown.
+     */
+    public long getCpuTime() {
+        return cpuTime;
+    }
+
+    /**
+     * @return the bytes allocated by the test thread, -1 if unknown.
+     */
+    public long getAllocated() {
+        return allocated;
+    }
+
+    /**
+     * @return the number of garbage collections, -1 if unknown.
+     */
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    /**
+     * @return the garbage collection time in milliseconds, -1 if unknown.
+     */
+    public long getGcTime() {
+        return gcTime;
+    }
+
+    /**
+     * Format the resource usage for display.
+     * 
+     * @return a short human readable summary.
+     */
+    public String summary() {
+        return String.format( Locale.ROOT, "%s(%s) elapsed %.3fms, cpu %.3fms, allocated %s bytes, gc %s in %sms",
+                method, implementation, elapsed / 1e6, cpuTime / 1e6, allocated, gcCount, gcTime );
+    }
+
+    /**
+     * Returns the results file line for this resource usage.
+     */
+    @Override
+    public String toString() {
+        return String.format( "%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s", implementation, contract, method, elapsed, cpuTime,
+                allocated, gcCount, gcTime );
+    }
+
+    /**
+     * The resources used up to a point in time.
+     */
+    public static class Snapshot {
+        private final long nanoTime;
+        private final long cpuTime;
+        private final long allocated;
+        private final long gcCount;
+        private final long gcTime;
+
+        private Snapshot() {
+            cpuTime = THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+            allocated = ALLOCATIONS == null ? -1
+                    : ALLOCATIONS.getThreadAllocatedBytes( Thread.currentThread().getId() );
+            long count = 0;
+            long time = 0;
+            for (final GarbageCollectorMXBean bean : COLLECTORS) {
+                count = add( count, bean.getCollectionCount() );
+                time = add( time, bean.getCollectionTime() );
+            }
+            gcCount = count;
+            gcTime = time;
+            nanoTime = System.nanoTime();
+        }
+
+        private static long add(final long total, final long value) {
+            return total < 0 || value < 0 ? -1 : total + value;
+        }
+
+        private static long since(final long start, final long end) {
+            return start < 0 || end < 0 ? -1 : end - start;
+        }
+
+        /**
+         * Get the resources used since this snapshot was taken.
+         * 
+         * @param implementation
+         *            the name of the implementation class.
+         * @param contract
+         *            the name of the contract test class.
+         * @param method
+         *            the name of the contract method.
+         * @return the resource usage.
+         */
+        public ResourceUsage since(final String implementation, final String contract, final String method) {
+            final Snapshot now = new Snapshot();
+            return new ResourceUsage( implementation, contract, method, now.nanoTime - nanoTime,
+                    since( cpuTime, now.cpuTime ), since( allocated, now.allocated ), since( gcCount, now.gcCount ),
+                    since( gcTime, now.gcTime ) );
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.Statement;
+import org.xenei.junit.contract.ContractScaling;
+
+/**
+ * A Statement that runs a <code>&#64;ContractScaling</code> method.
+ * <p>
+ * For each thread level the fixture creates a new test instance with its
+ * rules, the <code>&#64;Before</code> methods are run and the method is called to get the
+ * operation mix. The threads are started together, run the mix for the warm up
+ * time and then count the operations completed in the measurement time. The
+ * <code>&#64;After</code> methods are run and the throughput is recorded. When
+ * all levels are measured the scaling efficiency of each level is checked.
+ * </p>
+ */
+public class ScalingStatement extends Statement {
+
+    private static final Log LOG = LogFactory.getLog( ScalingStatement.class );
+
+    private final TestFixture fixture;
+    private final FrameworkMethod method;
+    private final String implementation;
+    private final String contract;
+
+    /**
+     * Constructor.
+     * 
+     * @param fixture
+     *            creates the test instances for the scaling method.
+     * @param implementation
+     *            the name of the implementation being measured.
+     * @param contract
+     *            the name of the contract test class.
+     */
+    public ScalingStatement(final TestFixture fixture, final String implementation, final String contract) {
+        this.fixture = fixture;
+        this.method = fixture.getMethod();
+        this.implementation = implementation;
+        this.contract = contract;
+    }
+
+    @Override
+    public void evaluate() throws Throwable {
+        final ContractScaling config = method.getAnnotation( ContractScaling.class );
+        if (method.getMethod().getParameterTypes().length != 0
+                || !OperationMix.class.equals( method.getReturnType() )) {
+            throw new IllegalStateException( String.format( "%s must take no arguments and return an OperationMix",
+                    method.getMethod() ) );
+        }
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final List<Integer> levels = new ArrayList<Integer>();
+        final List<Double> throughputs = new ArrayList<Double>();
+        for (final int threads : config.threads()) {
+            if (threads > processors) {
+                LOG.info( String.format( "%s(%s) skipping %s threads, only %s processors", method.getName(),
+                        implementation, threads, processors ) );
+                continue;
+            }
+            final double throughput = measure( threads, config );
+            levels.add( threads );
+            throughputs.add( throughput );
+            PerformanceResults.record( Measurement.create( implementation, contract, method.getName(),
+                    "throughput[threads=" + threads + "]", "ops/s", new double[] { throughput } ) );
+        }
+        if (levels.isEmpty() || levels.get( 0 ) != 1) {
+            throw new IllegalStateException( method.getMethod() + " must measure 1 thread first" );
+        }
+
+        final double single = throughputs.get( 0 );
+        final StringBuilder sb = new StringBuilder();
+        final List<String> failures = new ArrayList<String>();
+        for (int i = 0; i < levels.size(); i++) {
+            final double efficiency = throughputs.get( i ) / (single * levels.get( i ));
+            sb.append( String.format( Locale.ROOT, " %s threads: %.0f ops/s (%.0f%%)", levels.get( i ),
+                    throughputs.get( i ), efficiency * 100 ) );
+            if (efficiency < config.minEfficiency()) {
+                failures.add( String.format( Locale.ROOT, "%s threads %.0f%%", levels.get( i ), efficiency * 100 ) );
+            }
+        }
+        final String message = String.format( "%s(%s) scaling;%s", method.getName(), implementation, sb );
+        LOG.info( message );
+        if (!failures.isEmpty()) {
+            throw new AssertionError( String.format( Locale.ROOT, "%s below minimum efficiency %.0f%% at %s",
+                    message, config.minEfficiency() * 100, failures ) );
+        }
+    }
+
+    /**
+     * Measure the throughput at a thread level with a new test instance.
+     * 
+     * @param threads
+     *            the number of threads.
+     * @param config
+     *            the annotation.
+     * @return the operations per second.
+     * @throws Throwable
+     *             on error.
+     */
+    private double measure(final int threads, final ContractScaling config) throws Throwable {
+        return fixture.run( new TestFixture.Body<Double>() {
+            @Override
+            public Double run(final Object test) throws Throwable {
+                return measure( test, threads, config );
+            }
+        } );
+    }
+
+    /**
+     * Measure the throughput at a thread level.
+     * 
+     * @param test
+     *            the test instance.
+     * @param threads
+     *            the number of threads.
+     * @param config
+     *            the annotation.
+     * @return the operations per second.
+     * @throws Throwable
+     *             on error.
+     */
+    private double measure(final Object test, final int threads, final ContractScaling config) throws Throwable {
+        final OperationMix mix = (OperationMix) method.invokeExplosively( test );
+        if (mix == null || mix.size() == 0) {
+            throw new IllegalStateException( method.getMethod() + " returned an empty OperationMix" );
+        }
+        final CountDownLatch ready = new CountDownLatch( threads );
+        final CountDownLatch start = new CountDownLatch( 1 );
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final long[] counts = new long[threads];
+        final long[] startTime = new long[1];
+        final Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            final int worker = i;
+            workers[i] = new Thread( new Runnable() {
+                @Override
+                public void run() {
+                    final OperationMix.Selector selector = mix.selector( worker * 31L + 17 );
+                    try {
+                        ready.countDown();
+                        start.await();
+                        final long measure = startTime[0] + TimeUnit.MILLISECONDS.toNanos( config.warmupTime() );
+                        final long end = measure + TimeUnit.MILLISECONDS.toNanos( config.measurementTime() );
+                        while (System.nanoTime() - measure < 0 && error.get() == null) {
+                            selector.run( selector.next() );
+                        }
+                        long count = 0;
+                        while (System.nanoTime() - end < 0 && error.get() == null) {
+                            selector.run( selector.next() );
+                            count++;
+                        }
+                        counts[worker] = count;
+                    } catch (final Throwable t) {
+                        error.compareAndSet( null, t );
+                    }
+                }
+            }, String.format( "scaling-%s-%s", method.getName(), i ) );
+            workers[i].setDaemon( true );
+            workers[i].start();
+        }
+        ready.await();
+        startTime[0] = System.nanoTime();
+        start.countDown();
+        for (final Thread worker : workers) {
+            worker.join();
+        }
+        if (error.get() != null) {
+            throw error.get();
+        }
+        long total = 0;
+        for (final long count : counts) {
+            total += count;
+        }
+        return total * 1000.0 / config.measurementTime();
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.runner.Description;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.model.Statement;
+
+/**
+ * A Statement that runs the children of a ContractSuite repeatedly to find
+ * slow leaks.
+ * <p>
+ * Soak mode is enabled by the <code>contracts.soak.minutes</code> system
+ * property, the number of minutes to run for, or the
+ * <code>contracts.soak.iterations</code> system property, the number of times
+ * to run the suite. If both are set the suite stops at whichever limit is
+ * reached first. It also stops after the first iteration with a failure.
+ * </p>
+ * <p>
+ * Only the first iteration reports its tests to the notifier, so each test is
+ * reported once however long the soak runs. A failure in a later iteration
+ * fails the statement with the failed tests and the iteration they failed in.
+ * </p>
+ * <p>
+ * After each iteration the throughput in tests per second, the heap in use
+ * after garbage collection, the live threads and the open file descriptors are
+ * sampled and logged. The first iteration is the baseline. When the soak ends
+ * the statement fails if more threads or file descriptors are open than after
+ * the first iteration, beyond the growth permitted by the
+ * <code>contracts.soak.maxThreadGrowth</code> and
+ * <code>contracts.soak.maxFdGrowth</code> properties (default 0), or if the
+ * heap grew by more bytes per iteration than the
+ * <code>contracts.soak.maxHeapGrowth</code> property (not checked by default).
+ * The throughput and heap samples are written to the performance results.
+ * </p>
+ */
+public class SoakStatement extends Statement {
+
+    /**
+     * The system property for the number of minutes to run.
+     */
+    public static final String MINUTES_PROPERTY = "contracts.soak.minutes";
+
+    /**
+     * The system property for the number of iterations to run.
+     */
+    public static final String ITERATIONS_PROPERTY = "contracts.soak.iterations";
+
+    /**
+     * The system property for the permitted heap growth in bytes per
+     * iteration.
+     */
+    public static final String MAX_HEAP_GROWTH_PROPERTY = "contracts.soak.maxHeapGrowth";
+
+    /**
+     * The system property for the permitted growth in live threads.
+     */
+    public static final String MAX_THREAD_GROWTH_PROPERTY = "contracts.soak.maxThreadGrowth";
+
+    /**
+     * The system property for the permitted growth in open file descriptors.
+     */
+    public static final String MAX_FD_GROWTH_PROPERTY = "contracts.soak.maxFdGrowth";
+
+    private static final Log LOG = LogFactory.getLog( SoakStatement.class );
+
+    private final Iteration iteration;
+    private final RunNotifier notifier;
+    private final String implementation;
+    private final String suite;
+
+    /**
+     * Constructor.
+     * 
+     * @param iteration
+     *            creates the statement that runs the children of the suite
+     *            once.
+     * @param notifier
+     *            the notifier the children of the first iteration report to.
+     * @param implementation
+     *            the name of the implementation being tested.
+     * @param suite
+     *            the name of the suite class.
+     */
+    public SoakStatement(final Iteration iteration, final RunNotifier notifier, final String implementation,
+            final String suite) {
+        this.iteration = iteration;
+        this.notifier = notifier;
+        this.implementation = implementation;
+        this.suite = suite;
+    }
+
+    /**
+     * Determine if soak mode is enabled.
+     * 
+     * @return true if a soak duration or number of iterations is set.
+     */
+    public static boolean isEnabled() {
+        return getMinutes() > 0 || Integer.getInteger( ITERATIONS_PROPERTY, 0 ) > 0;
+    }
+
+    private static double getMinutes() {
+        return Double.parseDouble( System.getProperty( MINUTES_PROPERTY, "0" ) );
+    }
+
+    @Override
+    public void evaluate() throws Throwable {
+        final int iterations = Integer.getInteger( ITERATIONS_PROPERTY, 0 );
+        final double minutes = getMinutes();
+        final long deadline = System.nanoTime() + (long) (minutes * 60e9);
+
+        final Counter counter = new Counter();
+        // the later iterations report to the counter only.
+        final RunNotifier quiet = new RunNotifier();
+        quiet.addListener( counter );
+        final List<Sample> samples = new ArrayList<Sample>();
+        List<Failure> unreported = Collections.emptyList();
+        boolean running = true;
+        while (running) {
+            final int tests = counter.tests.get();
+            final int failures = counter.failures.size();
+            final long start = System.nanoTime();
+            if (samples.isEmpty()) {
+                notifier.addListener( counter );
+                try {
+                    iteration.create( notifier ).evaluate();
+                } finally {
+                    notifier.removeListener( counter );
+                }
+            } else {
+                iteration.create( quiet ).evaluate();
+            }
+            final long elapsed = System.nanoTime() - start;
+            final Sample sample = new Sample( counter.tests.get() - tests, elapsed );
+            samples.add( sample );
+            LOG.info( String.format( Locale.ROOT,
+                    "%s soak iteration %s: %.1f tests/s, heap %s bytes, %s threads, %s open files", suite,
+                    samples.size(), sample.throughput, sample.heap, sample.threads.size(), sample.files ) );
+
+            if (counter.failures.size() > failures) {
+                LOG.warn( String.format( "%s soak stopped after iteration %s failed", suite, samples.size() ) );
+                if (samples.size() > 1) {
+                    unreported = counter.failures.subList( failures, counter.failures.size() );
+                }
+                running = false;
+            } else if (iterations > 0 && samples.size() >= iterations) {
+                running = false;
+            } else if (minutes > 0 && System.nanoTime() - deadline >= 0) {
+                running = false;
+            }
+        }
+        record( samples );
+        if (!unreported.isEmpty()) {
+            final StringBuilder sb = new StringBuilder( suite ).append( " failed in soak iteration " )
+                    .append( samples.size() ).append( ':' );
+            for (final Failure failure : unreported) {
+                sb.append( "\n  " ).append( failure.getTestHeader() ).append( ": " ).append( failure.getMessage() );
+            }
+            throw new AssertionError( sb.toString(), unreported.get( 0 ).getException() );
+        }
+        check( samples );
+    }
+
+    private void record(final List<Sample> samples) {
+        final double[] throughput = new double[samples.size()];
+        final double[] heap = new double[samples.size()];
+        for (int i = 0; i < throughput.length; i++) {
+            throughput[i] = samples.get( i ).throughput;
+            heap[i] = samples.get( i ).heap;
+        }
+        PerformanceResults.record(
+                Measurement.create( implementation, suite, "soak", "throughput", "ops/s", throughput ) );
+        PerformanceResults.record( Measurement.create( implementation, suite, "soak", "heap", "bytes", heap ) );
+    }
+
+    /**
+     * Check the samples for leaks.
+     * 
+     * @param samples
+     *            the samples, one per iteration.
+     */
+    private void check(final List<Sample> samples) {
+        if (samples.size() < 2) {
+            LOG.info( suite + " soak ran one iteration, leaks not checked" );
+            return;
+        }
+        final Sample first = samples.get( 0 );
+        final Sample last = samples.get( samples.size() - 1 );
+        final List<String> errors = new ArrayList<String>();
+
+        final Set<String> leaked = new TreeSet<String>( last.threads );
+        leaked.removeAll( first.threads );
+        final int threadGrowth = last.threads.size() - first.threads.size();
+        if (threadGrowth > Integer.getInteger( MAX_THREAD_GROWTH_PROPERTY, 0 )) {
+            errors.add( String.format( "%s threads started after the first iteration are still running: %s",
+                    threadGrowth, leaked ) );
+        }
+
+        if (first.files >= 0 && last.files >= 0) {
+            final long fileGrowth = last.files - first.files;
+            if (fileGrowth > Long.getLong( MAX_FD_GROWTH_PROPERTY, 0 )) {
+                errors.add( String.format( "%s more file descriptors are open than after the first iteration",
+                        fileGrowth ) );
+            }
+        }
+
+        final double heapGrowth = heapGrowth( samples );
+        LOG.info( String.format( Locale.ROOT, "%s soak of %s iterations: heap growth %.0f bytes per iteration",
+                suite, samples.size(), heapGrowth ) );
+        final String maxHeapGrowth = System.getProperty( MAX_HEAP_GROWTH_PROPERTY );
+        if (maxHeapGrowth != null && heapGrowth > Double.parseDouble( maxHeapGrowth )) {
+            errors.add( String.format( Locale.ROOT, "heap grew by %.0f bytes per iteration, limit %s", heapGrowth,
+                    maxHeapGrowth ) );
+        }
+
+        if (!errors.isEmpty()) {
+            final StringBuilder sb = new StringBuilder( suite ).append( " leaked over " ).append( samples.size() )
+                    .append( " iterations:" );
+            for (final String error : errors) {
+                sb.append( "\n  " ).append( error );
+            }
+            throw new AssertionError( sb.toString() );
+        }
+    }
+
+    /**
+     * Calculate the heap growth per iteration as the least squares slope of
+     * the heap samples, excluding the first.
+     * 
+     * @param samples
+     *            the samples.
+     * @return the growth in bytes per iteration.
+     */
+    static double heapGrowth(final List<Sample> samples) {
+        final int n = samples.size() - 1;
+        if (n < 2) {
+            return samples.get( samples.size() - 1 ).heap - samples.get( 0 ).heap;
+        }
+        double sumX = 0;
+        double sumY = 0;
+        for (int i = 1; i <= n; i++) {
+            sumX += i;
+            sumY += samples.get( i ).heap;
+        }
+        final double meanX = sumX / n;
+        final double meanY = sumY / n;
+        double sxy = 0;
+        double sxx = 0;
+        for (int i = 1; i <= n; i++) {
+            sxy += (i - meanX) * (samples.get( i ).heap - meanY);
+            sxx += (i - meanX) * (i - meanX);
+        }
+        return sxy / sxx;
+    }
+
+    /**
+     * Get the number of open file descriptors.
+     * 
+     * @return the count or -1 if it is not available.
+     */
+    public static long openFileDescriptors() {
+        final OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.UnixOperatingSystemMXBean) {
+            return ((com.sun.management.UnixOperatingSystemMXBean) bean).getOpenFileDescriptorCount();
+        }
+        return -1;
+    }
+
+    /**
+     * Get the names and ids of the live threads.
+     * 
+     * @return the thread names.
+     */
+    public static Set<String> liveThreads() {
+        final Set<String> result = new TreeSet<String>();
+        for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive()) {
+                result.add( thread.getName() + "#" + thread.getId() );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The state of the JVM after an iteration.
+     */
+    static class Sample {
+        final double throughput;
+        final long heap;
+        final Set<String> threads;
+        final long files;
+
+        Sample(final int tests, final long elapsed) {
+            throughput = elapsed == 0 ? 0 : tests * 1e9 / elapsed;
+            heap = FootprintStatement.usedAfterCollection();
+            threads = liveThreads();
+            files = openFileDescriptors();
+        }
+
+        Sample(final long heap) {
+            throughput = 0;
+            this.heap = heap;
+            threads = new TreeSet<String>();
+            files = -1;
+        }
+    }
+
+    /**
+     * Creates the statement for an iteration.
+     */
+    public interface Iteration {
+        /**
+         * Create the statement that runs the children of the suite once.
+         * 
+         * @param notifier
+         *            the notifier the children report to.
+         * @return the statement.
+         */
+        Statement create(RunNotifier notifier);
+    }
+
+    /**
+     * Counts the tests and collects the failures reported by the children.
+     */
+    private static class Counter extends RunListener {
+        private final AtomicInteger tests = new AtomicInteger();
+        private final List<Failure> failures = Collections.synchronizedList( new ArrayList<Failure>() );
+
+        @Override
+        public void testFinished(final Description description) {
+            tests.incrementAndGet();
+        }
+
+        @Override
+        public void testFailure(final Failure failure) {
+            failures.add( failure );
+        }
+    }
+}
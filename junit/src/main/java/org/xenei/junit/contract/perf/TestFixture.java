@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.internal.runners.statements.RunAfters;
+import org.junit.internal.runners.statements.RunBefores;
+import org.junit.rules.MethodRule;
+import org.junit.rules.RunRules;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.Statement;
+import org.junit.runners.model.TestClass;
+
+/**
+ * Creates the test instances for the statements that measure a contract
+ * method.
+ * <p>
+ * Each call to <code>run()</code> creates a new test instance and runs the
+ * body the way JUnit runs a test method: the <code>&#64;Before</code> methods
+ * are run before the body, the <code>&#64;After</code> methods are run after
+ * it even if it fails, and the <code>&#64;Rule</code> fields and methods of
+ * the test class are applied around them. The rules and fixture methods are
+ * not part of any measurement the body takes.
+ * </p>
+ */
+public class TestFixture {
+
+    private final TestClass testClass;
+    private final FrameworkMethod method;
+    private final Description description;
+    private final Callable<Object> testFactory;
+
+    /**
+     * The code to run with a test instance.
+     * 
+     * @param <T>
+     *            the type of the result.
+     */
+    public interface Body<T> {
+        /**
+         * Run the code.
+         * 
+         * @param test
+         *            the test instance.
+         * @return the result.
+         * @throws Throwable
+         *             on error.
+         */
+        T run(Object test) throws Throwable;
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param testClass
+     *            the contract test class.
+     * @param method
+     *            the method being measured.
+     * @param description
+     *            the description of the method passed to the rules.
+     * @param testFactory
+     *            creates a test instance with the producer injected.
+     */
+    public TestFixture(final TestClass testClass, final FrameworkMethod method, final Description description,
+            final Callable<Object> testFactory) {
+        this.testClass = testClass;
+        this.method = method;
+        this.description = description;
+        this.testFactory = testFactory;
+    }
+
+    /**
+     * Get the method being measured.
+     * 
+     * @return the method.
+     */
+    public FrameworkMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * Create a test instance and run the body with it.
+     * 
+     * @param body
+     *            the code to run.
+     * @return the result of the body.
+     * @throws Throwable
+     *             if the body, a fixture method or a rule fails.
+     * @throws IllegalStateException
+     *             if a rule did not run the body.
+     */
+    public <T> T run(final Body<T> body) throws Throwable {
+        final Object test = testFactory.call();
+        final AtomicBoolean ran = new AtomicBoolean();
+        final AtomicReference<T> result = new AtomicReference<T>();
+        Statement statement = new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                ran.set( true );
+                result.set( body.run( test ) );
+            }
+        };
+        statement = new RunBefores( statement, testClass.getAnnotatedMethods( Before.class ), test );
+        statement = new RunAfters( statement, testClass.getAnnotatedMethods( After.class ), test );
+        withRules( statement, test ).evaluate();
+        if (!ran.get()) {
+            throw new IllegalStateException( "A rule did not run " + method.getMethod() );
+        }
+        return result.get();
+    }
+
+    /**
+     * Apply the rules of the test instance as BlockJUnit4ClassRunner does.
+     * 
+     * @param statement
+     *            the statement to wrap.
+     * @param test
+     *            the test instance.
+     * @return the Statement.
+     */
+    private Statement withRules(final Statement statement, final Object test) {
+        final List<TestRule> testRules = testClass.getAnnotatedMethodValues( test, Rule.class, TestRule.class );
+        testRules.addAll( testClass.getAnnotatedFieldValues( test, Rule.class, TestRule.class ) );
+        Statement result = statement;
+        for (final MethodRule rule : testClass.getAnnotatedFieldValues( test, Rule.class, MethodRule.class )) {
+            if (!testRules.contains( rule )) {
+                result = rule.apply( result, method, test );
+            }
+        }
+        return testRules.isEmpty() ? result : new RunRules( result, testRules, description );
+    }
+}
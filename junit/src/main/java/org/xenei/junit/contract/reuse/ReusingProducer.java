@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.reuse;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.xenei.junit.contract.IResettableProducer;
+import org.xenei.junit.contract.ProducerProxy;
+
+/**
+ * An InvocationHandler for a proxy of an IResettableProducer that reuses the
+ * instances it created.
+ * <p>
+ * <code>cleanUp()</code> on the proxy resets the instances returned since the
+ * last cleanup and keeps them for later <code>newInstance()</code> calls. If
+ * an instance can not be reset the producer's <code>cleanUp()</code> is called
+ * and no instances are kept. <code>release()</code> calls the producer's
+ * <code>cleanUp()</code> when instances are kept.
+ * </p>
+ */
+public class ReusingProducer extends ProducerProxy {
+
+    /**
+     * The system property that turns reuse off when false.
+     */
+    public static final String ENABLE_PROPERTY = "contracts.reuse";
+
+    /**
+     * The system property that runs each test a second time with reset
+     * instances when true.
+     */
+    public static final String VERIFY_PROPERTY = "contracts.reuse.verify";
+
+    // the instances returned since the last cleanup.
+    private final List<Object> used = new ArrayList<Object>();
+    // the reset instances.
+    private final Deque<Object> pool = new ArrayDeque<Object>();
+    private int created;
+    private int reused;
+
+    /**
+     * Constructor.
+     * 
+     * @param producer
+     *            the IResettableProducer, or a proxy that implements the
+     *            interfaces of one.
+     */
+    public ReusingProducer(final Object producer) {
+        super( producer );
+    }
+
+    /**
+     * Determine if instances of a producer are reused.
+     * 
+     * @param producer
+     *            the producer, may be null.
+     * @return true if the producer is an IResettableProducer and the
+     *         <code>contracts.reuse</code> system property is not false.
+     */
+    public static boolean isReusable(final Object producer) {
+        return producer instanceof IResettableProducer
+                && !"false".equalsIgnoreCase( System.getProperty( ENABLE_PROPERTY ) );
+    }
+
+    /**
+     * Determine if tests are run a second time with reset instances.
+     * 
+     * @return true if the <code>contracts.reuse.verify</code> system property
+     *         is true.
+     */
+    public static boolean isVerifyEnabled() {
+        return Boolean.getBoolean( VERIFY_PROPERTY );
+    }
+
+    @Override
+    protected synchronized Object newInstance() throws Throwable {
+        Object instance = pool.poll();
+        if (instance == null) {
+            instance = producerNewInstance();
+            created++;
+        } else {
+            reused++;
+        }
+        used.add( instance );
+        return instance;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected synchronized void cleanUp() throws Throwable {
+        final IResettableProducer<Object> producer = (IResettableProducer<Object>) getProducer();
+        final List<Object> reset = new ArrayList<Object>( used.size() );
+        boolean clean = true;
+        for (final Object instance : used) {
+            if (clean && producer.reset( instance )) {
+                reset.add( instance );
+            } else {
+                clean = false;
+            }
+        }
+        used.clear();
+        if (clean) {
+            pool.addAll( reset );
+        } else {
+            pool.clear();
+            producerCleanUp();
+        }
+    }
+
+    /**
+     * Call the producer's <code>cleanUp()</code> if any instances were
+     * returned or kept.
+     * 
+     * @throws Throwable
+     *             the exception thrown by the producer.
+     */
+    @Override
+    public synchronized void release() throws Throwable {
+        if (!used.isEmpty() || !pool.isEmpty()) {
+            used.clear();
+            pool.clear();
+            producerCleanUp();
+        }
+    }
+
+    /**
+     * @return the number of instances created by the producer.
+     */
+    public synchronized int getCreated() {
+        return created;
+    }
+
+    /**
+     * @return the number of times a reset instance was returned.
+     */
+    public synchronized int getReused() {
+        return reused;
+    }
+}
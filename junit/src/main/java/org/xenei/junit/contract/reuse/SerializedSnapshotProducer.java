@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.reuse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+import org.xenei.junit.contract.ISnapshotProducer;
+
+/**
+ * An ISnapshotProducer for serializable instances that keeps the snapshot as
+ * a serialized image in a read only ByteBuffer and restores each instance by
+ * deserializing it.
+ * <p>
+ * Implementations build the populated instance in <code>newInstance()</code>
+ * and release the restored instances in <code>cleanUp()</code>, which by
+ * default does nothing.
+ * </p>
+ * 
+ * @param <T>
+ *            The class of the object under test.
+ */
+public abstract class SerializedSnapshotProducer<T extends Serializable> implements ISnapshotProducer<T, ByteBuffer> {
+
+    @Override
+    public void cleanUp() {
+    }
+
+    @Override
+    public ByteBuffer snapshot(final T instance) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            final ObjectOutputStream out = new ObjectOutputStream( bytes );
+            out.writeObject( instance );
+            out.close();
+        } catch (final IOException e) {
+            throw new IllegalStateException( "Unable to serialize " + instance.getClass(), e );
+        }
+        return ByteBuffer.wrap( bytes.toByteArray() ).asReadOnlyBuffer();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T restore(final ByteBuffer snapshot) {
+        try {
+            final ObjectInputStream in = new ObjectInputStream( new BufferInputStream( snapshot.duplicate() ) );
+            try {
+                return (T) in.readObject();
+            } finally {
+                in.close();
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException( "Unable to restore snapshot", e );
+        } catch (final ClassNotFoundException e) {
+            throw new IllegalStateException( "Unable to restore snapshot", e );
+        }
+    }
+
+    @Override
+    public void discard(final ByteBuffer snapshot) {
+    }
+
+    /**
+     * An InputStream that reads the remaining bytes of a ByteBuffer.
+     */
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int count = Math.min( len, buffer.remaining() );
+            buffer.get( b, off, count );
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.reuse;
+
+import org.xenei.junit.contract.ISnapshotProducer;
+import org.xenei.junit.contract.ProducerProxy;
+
+/**
+ * An InvocationHandler for a proxy of an ISnapshotProducer that builds the
+ * fixture once and restores a copy for each <code>newInstance()</code> call.
+ * <p>
+ * The first <code>newInstance()</code> call builds an instance with the
+ * producer's <code>newInstance()</code> and takes a snapshot of it. Every call
+ * returns an instance restored from the snapshot. <code>release()</code>
+ * passes the snapshot to <code>discard()</code>.
+ * </p>
+ */
+public class SnapshotProducer extends ProducerProxy {
+
+    // the snapshot, null until the first instance is requested.
+    private Object snapshot;
+    private int restored;
+
+    /**
+     * Constructor.
+     * 
+     * @param producer
+     *            the ISnapshotProducer, or a proxy that implements the
+     *            interfaces of one.
+     */
+    public SnapshotProducer(final Object producer) {
+        super( producer );
+    }
+
+    /**
+     * Determine if a producer builds its fixture once.
+     * 
+     * @param producer
+     *            the producer, may be null.
+     * @return true if the producer is an ISnapshotProducer.
+     */
+    public static boolean isSnapshot(final Object producer) {
+        return producer instanceof ISnapshotProducer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ISnapshotProducer<Object, Object> producer() {
+        return (ISnapshotProducer<Object, Object>) getProducer();
+    }
+
+    @Override
+    protected Object newInstance() throws Throwable {
+        final Object current;
+        synchronized (this) {
+            if (snapshot == null) {
+                snapshot = producer().snapshot( producerNewInstance() );
+            }
+            current = snapshot;
+            restored++;
+        }
+        return producer().restore( current );
+    }
+
+    @Override
+    public void release() throws Throwable {
+        final Object current;
+        synchronized (this) {
+            current = snapshot;
+            snapshot = null;
+        }
+        if (current != null) {
+            producer().discard( current );
+        }
+    }
+
+    /**
+     * @return the number of instances restored from the snapshot.
+     */
+    public synchronized int getRestored() {
+        return restored;
+    }
+}
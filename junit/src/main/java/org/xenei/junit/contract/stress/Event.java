@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.stress;
+
+/**
+ * A call of an operation in the history of a stress test.
+ */
+public class Event {
+
+    private final int thread;
+    private final int operation;
+    private final String name;
+    private final Object argument;
+    private final Object result;
+    private final long invoked;
+    private final long responded;
+
+    /**
+     * Constructor.
+     * 
+     * @param thread
+     *            the thread that made the call.
+     * @param operation
+     *            the index of the operation.
+     * @param name
+     *            the name of the operation.
+     * @param argument
+     *            the argument.
+     * @param result
+     *            the result, or the outcome of a thrown exception.
+     * @param invoked
+     *            the nano time before the call.
+     * @param responded
+     *            the nano time after the call.
+     */
+    public Event(final int thread, final int operation, final String name, final Object argument,
+            final Object result, final long invoked, final long responded) {
+        this.thread = thread;
+        this.operation = operation;
+        this.name = name;
+        this.argument = argument;
+        this.result = result;
+        this.invoked = invoked;
+        this.responded = responded;
+    }
+
+    /**
+     * Create the result that represents an exception. Results of exceptions
+     * are equal if the exceptions are of the same class.
+     * 
+     * @param t
+     *            the exception.
+     * @return the result.
+     */
+    public static Object thrown(final Throwable t) {
+        return new Thrown( t.getClass() );
+    }
+
+    /**
+     * @return the thread that made the call.
+     */
+    public int getThread() {
+        return thread;
+    }
+
+    /**
+     * @return the index of the operation.
+     */
+    public int getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return the argument.
+     */
+    public Object getArgument() {
+        return argument;
+    }
+
+    /**
+     * @return the result.
+     */
+    public Object getResult() {
+        return result;
+    }
+
+    /**
+     * @return the nano time before the call.
+     */
+    public long getInvoked() {
+        return invoked;
+    }
+
+    /**
+     * @return the nano time after the call.
+     */
+    public long getResponded() {
+        return responded;
+    }
+
+    /**
+     * Determine if this call completed before another started.
+     * 
+     * @param other
+     *            the other call.
+     * @return true if this call must be ordered before the other.
+     */
+    public boolean precedes(final Event other) {
+        return responded - other.invoked < 0;
+    }
+
+    /**
+     * Format the event with times relative to a start time.
+     * 
+     * @param start
+     *            the start time.
+     * @return the formatted event.
+     */
+    public String toString(final long start) {
+        return String.format( "thread %s: %s(%s) -> %s [%s-%sns]", thread, name, argument, result, invoked - start,
+                responded - start );
+    }
+
+    @Override
+    public String toString() {
+        return toString( 0 );
+    }
+
+    /**
+     * The result of an operation that threw an exception.
+     */
+    private static final class Thrown {
+        private final Class<?> type;
+
+        Thrown(final Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Thrown && ((Thrown) o).type.equals( type );
+        }
+
+        @Override
+        public int hashCode() {
+            return type.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "threw " + type.getName();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.stress;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Checks histories of concurrent calls against a sequential model.
+ * <p>
+ * A history is linearizable if there is an order of the calls that respects
+ * their real time order, where a call that completed before another started
+ * must come first, and in which applying each call to the model gives the
+ * result the object under test returned. The checker searches the orders
+ * depth first, skipping combinations of completed calls and model state that
+ * have already been explored.
+ * </p>
+ * <p>
+ * A history may be linearizable in several orders that leave the model in
+ * different states. The checker returns all of them, up to a limit, so that
+ * the next round of a stress test can be checked from each. When the limit is
+ * reached the search stops, so other reachable states may be missing and a
+ * later history that is not linearizable from the returned states may still be
+ * linearizable.
+ * </p>
+ *
+ * @param <T>
+ *            the type of the object under test.
+ * @param <M>
+ *            the type of the model state.
+ */
+public class LinearizabilityChecker<T, M> {
+
+    /**
+     * The largest number of calls that can be checked at once.
+     */
+    public static final int MAX_EVENTS = 62;
+
+    private final StressTest<T, M> test;
+    private final int maxStates;
+
+    /**
+     * Constructor.
+     * 
+     * @param test
+     *            the stress test that provides the operations and model.
+     * @param maxStates
+     *            the maximum number of final states to return.
+     */
+    public LinearizabilityChecker(final StressTest<T, M> test, final int maxStates) {
+        this.test = test;
+        this.maxStates = maxStates;
+    }
+
+    /**
+     * Check a history.
+     * 
+     * @param history
+     *            the calls.
+     * @param states
+     *            the possible model states before the calls.
+     * @return the possible model states after the calls. Empty if the history
+     *         is not linearizable from any of the states. If it holds the
+     *         maximum number of states some states may be missing.
+     */
+    public Set<M> check(final List<Event> history, final Set<M> states) {
+        if (history.size() > MAX_EVENTS) {
+            throw new IllegalArgumentException( "Too many events: " + history.size() );
+        }
+        final Event[] events = history.toArray( new Event[history.size()] );
+        final Set<M> result = new LinkedHashSet<M>();
+        final Set<Visit> visited = new HashSet<Visit>();
+        for (final M state : states) {
+            search( events, 0L, state, visited, result );
+            if (result.size() >= maxStates) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private void search(final Event[] events, final long done, final M state, final Set<Visit> visited,
+            final Set<M> result) {
+        if (result.size() >= maxStates || !visited.add( new Visit( done, state ) )) {
+            return;
+        }
+        if (done == (1L << events.length) - 1) {
+            result.add( state );
+            return;
+        }
+        for (int i = 0; i < events.length; i++) {
+            if ((done & (1L << i)) == 0 && isMinimal( events, done, i )) {
+                final M next = test.getModel().copy( state );
+                final Object expected = apply( events[i], next );
+                if (expected == null ? events[i].getResult() == null : expected.equals( events[i].getResult() )) {
+                    search( events, done | (1L << i), next, visited, result );
+                }
+            }
+        }
+    }
+
+    // true if no pending call completed before the call started.
+    private static boolean isMinimal(final Event[] events, final long done, final int candidate) {
+        for (int j = 0; j < events.length; j++) {
+            if (j != candidate && (done & (1L << j)) == 0 && events[j].precedes( events[candidate] )) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Object apply(final Event event, final M model) {
+        try {
+            return test.getOperation( event.getOperation() ).apply( model, event.getArgument() );
+        } catch (final Exception e) {
+            return Event.thrown( e );
+        }
+    }
+
+    /**
+     * A combination of completed calls and model state.
+     */
+    private static final class Visit {
+        private final long done;
+        private final Object state;
+
+        Visit(final long done, final Object state) {
+            this.done = done;
+            this.state = state;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (o instanceof Visit) {
+                final Visit other = (Visit) o;
+                return done == other.done && (state == null ? other.state == null : state.equals( other.state ));
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (done ^ (done >>> 32)) * 31 + (state == null ? 0 : state.hashCode());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.stress;
+
+/**
+ * The sequential model of an interface for a stress test.
+ * <p>
+ * Model states must implement <code>equals()</code> and
+ * <code>hashCode()</code> so that states that have already been checked can be
+ * recognised. Standard collections make good models.
+ * </p>
+ *
+ * @param <M>
+ *            the type of the model state.
+ */
+public interface Model<M> {
+
+    /**
+     * Create the state that matches a new object from the producer.
+     * 
+     * @return the initial state.
+     */
+    M initial();
+
+    /**
+     * Copy a state so that operations can be applied without changing it.
+     * 
+     * @param state
+     *            the state to copy.
+     * @return the copy.
+     */
+    M copy(M state);
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.stress;
+
+import java.util.Random;
+
+/**
+ * An operation in a stress test.
+ * <p>
+ * The operation is invoked on the object under test from many threads and
+ * applied to the sequential model when the history is checked. If either
+ * throws an exception the class of the exception is the result.
+ * </p>
+ *
+ * @param <T>
+ *            the type of the object under test.
+ * @param <M>
+ *            the type of the model.
+ */
+public interface Operation<T, M> {
+
+    /**
+     * Choose an argument for the operation.
+     * 
+     * @param random
+     *            the random source for the calling thread.
+     * @return the argument, may be null.
+     */
+    Object argument(Random random);
+
+    /**
+     * Invoke the operation on the object under test.
+     * 
+     * @param target
+     *            the object under test.
+     * @param argument
+     *            the argument.
+     * @return the result. Compared with <code>equals()</code> to the result
+     *         from the model.
+     * @throws Exception
+     *             on error.
+     */
+    Object invoke(T target, Object argument) throws Exception;
+
+    /**
+     * Apply the operation to the model.
+     * 
+     * @param model
+     *            the model state, may be changed.
+     * @param argument
+     *            the argument.
+     * @return the result the object under test should have returned.
+     * @throws Exception
+     *             on error.
+     */
+    Object apply(M model, Object argument) throws Exception;
+}
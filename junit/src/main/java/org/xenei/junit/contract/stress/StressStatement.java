@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.stress;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.internal.AssumptionViolatedException;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.Statement;
+import org.xenei.junit.contract.ContractStress;
+import org.xenei.junit.contract.perf.TestFixture;
+
+/**
+ * A Statement that runs a <code>&#64;ContractStress</code> method.
+ * <p>
+ * The fixture creates a test instance with its rules, the
+ * <code>&#64;Before</code> methods are run and the method is called to get the StressTest. The threads then run rounds of
+ * operations on the object under test until the duration has passed. Every
+ * thread makes the same number of calls in a round and the threads wait for
+ * each other at the end of it, when the history of the round is checked
+ * against the model. The test fails with the history of the first round that
+ * is not linearizable.
+ * </p>
+ * <p>
+ * A round may leave the model in more states than are carried to the next
+ * round. Once that happens a round that is not linearizable from the carried
+ * states might be linearizable from one that was dropped, so the result is
+ * inconclusive and the test is reported as skipped with the history.
+ * </p>
+ */
+public class StressStatement extends Statement {
+
+    private static final Log LOG = LogFactory.getLog( StressStatement.class );
+
+    // the maximum number of model states carried from one round to the next.
+    private static final int MAX_STATES = 64;
+
+    private final TestFixture fixture;
+    private final FrameworkMethod method;
+    private final String implementation;
+
+    /**
+     * Constructor.
+     * 
+     * @param fixture
+     *            creates the test instances for the stress method.
+     * @param implementation
+     *            the name of the implementation being tested.
+     */
+    public StressStatement(final TestFixture fixture, final String implementation) {
+        this.fixture = fixture;
+        this.method = fixture.getMethod();
+        this.implementation = implementation;
+    }
+
+    @Override
+    public void evaluate() throws Throwable {
+        final ContractStress config = method.getAnnotation( ContractStress.class );
+        if (method.getMethod().getParameterTypes().length != 0
+                || !StressTest.class.equals( method.getReturnType() )) {
+            throw new IllegalStateException( String.format( "%s must take no arguments and return a StressTest",
+                    method.getMethod() ) );
+        }
+        final int threads = config.threads();
+        final int perRound = config.operationsPerRound();
+        if (threads < 1 || perRound < 1 || threads * perRound > LinearizabilityChecker.MAX_EVENTS) {
+            throw new IllegalStateException( String.format(
+                    "%s threads * operationsPerRound must be between 1 and %s", method.getMethod(),
+                    LinearizabilityChecker.MAX_EVENTS ) );
+        }
+
+        fixture.run( new TestFixture.Body<Void>() {
+            @Override
+            public Void run(final Object test) throws Throwable {
+                StressStatement.this.run( (StressTest<?, ?>) method.invokeExplosively( test ), config );
+                return null;
+            }
+        } );
+    }
+
+    private <T, M> void run(final StressTest<T, M> stress, final ContractStress config) throws Throwable {
+        if (stress == null || stress.size() == 0) {
+            throw new IllegalStateException( method.getMethod() + " returned a StressTest without operations" );
+        }
+        final Round<T, M> round = new Round<T, M>( stress, config );
+        final Thread[] workers = round.workers;
+        for (int i = 0; i < workers.length; i++) {
+            final int thread = i;
+            workers[i] = new Thread( new Runnable() {
+                @Override
+                public void run() {
+                    round.work( thread );
+                }
+            }, String.format( "stress-%s-%s", method.getName(), i ) );
+            workers[i].setDaemon( true );
+        }
+        // all workers exist before any can fail and interrupt the others.
+        for (final Thread worker : workers) {
+            worker.start();
+        }
+        for (final Thread worker : workers) {
+            worker.join();
+        }
+        if (round.error.get() != null) {
+            throw round.error.get();
+        }
+        LOG.info( String.format( "%s(%s) %s rounds of %s calls linearizable, seed %s", method.getName(),
+                implementation, round.rounds, workers.length * config.operationsPerRound(), round.seed ) );
+    }
+
+    /**
+     * The state shared by the worker threads.
+     */
+    private class Round<T, M> implements Runnable {
+        private final StressTest<T, M> stress;
+        private final LinearizabilityChecker<T, M> checker;
+        private final int perRound;
+        private final long seed;
+        private final long deadline;
+        private final Event[] events;
+        private final CyclicBarrier barrier;
+        private final Thread[] workers;
+        private final AtomicReference<Throwable> error;
+        private Set<M> states;
+        // true once a round had more states than are carried.
+        private boolean truncated;
+        private long roundStart;
+        private volatile boolean done;
+        private int rounds;
+
+        Round(final StressTest<T, M> stress, final ContractStress config) {
+            this.stress = stress;
+            this.checker = new LinearizabilityChecker<T, M>( stress, MAX_STATES );
+            this.perRound = config.operationsPerRound();
+            this.seed = System.nanoTime();
+            this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( config.duration() );
+            this.events = new Event[config.threads() * perRound];
+            this.barrier = new CyclicBarrier( config.threads(), this );
+            this.workers = new Thread[config.threads()];
+            this.error = new AtomicReference<Throwable>();
+            this.states = Collections.singleton( stress.getModel().initial() );
+            this.roundStart = System.nanoTime();
+        }
+
+        void work(final int thread) {
+            final Random random = new Random( seed + thread );
+            try {
+                while (!done) {
+                    for (int i = 0; i < perRound; i++) {
+                        final int op = stress.choose( random );
+                        final Object argument = stress.getOperation( op ).argument( random );
+                        final long invoked = System.nanoTime();
+                        Object result;
+                        try {
+                            result = stress.getOperation( op ).invoke( stress.getTarget(), argument );
+                        } catch (final Exception e) {
+                            result = Event.thrown( e );
+                        }
+                        events[thread * perRound + i] = new Event( thread, op, stress.getName( op ), argument,
+                                result, invoked, System.nanoTime() );
+                    }
+                    if (done) {
+                        // another thread failed during the round.
+                        return;
+                    }
+                    barrier.await();
+                }
+            } catch (final BrokenBarrierException e) {
+                // another thread failed.
+            } catch (final Throwable t) {
+                error.compareAndSet( null, t );
+                stop();
+            }
+        }
+
+        /**
+         * Stop the other workers after a failure. The failed thread never
+         * reaches the barrier so the workers that have not checked done are
+         * interrupted out of, or before, their wait for it.
+         */
+        private void stop() {
+            done = true;
+            for (final Thread worker : workers) {
+                if (worker != Thread.currentThread()) {
+                    worker.interrupt();
+                }
+            }
+        }
+
+        /**
+         * Check the round. Called by the last thread to reach the barrier.
+         */
+        @Override
+        public void run() {
+            rounds++;
+            final List<Event> history = Arrays.asList( events.clone() );
+            final Set<M> next = checker.check( history, states );
+            if (next.isEmpty()) {
+                final List<Event> sorted = new ArrayList<Event>( history );
+                Collections.sort( sorted, new Comparator<Event>() {
+                    @Override
+                    public int compare(final Event a, final Event b) {
+                        return Long.compare( a.getInvoked(), b.getInvoked() );
+                    }
+                } );
+                final StringBuilder sb = new StringBuilder( String.format(
+                        "%s(%s) round %s is not linearizable from %s model states %s, seed %s", method.getName(),
+                        implementation, rounds, states.size(), states, seed ) );
+                if (truncated) {
+                    sb.append( String.format( "; inconclusive as earlier rounds had more than %s model states",
+                            MAX_STATES ) );
+                }
+                sb.append( ':' );
+                for (final Event event : sorted) {
+                    sb.append( "\n  " ).append( event.toString( roundStart ) );
+                }
+                error.compareAndSet( null, truncated ? new AssumptionViolatedException( sb.toString() )
+                        : new AssertionError( sb.toString() ) );
+                done = true;
+            } else {
+                if (!truncated && next.size() >= MAX_STATES) {
+                    LOG.warn( String.format( "%s(%s) round %s reached %s model states, later rounds are inconclusive",
+                            method.getName(), implementation, rounds, MAX_STATES ) );
+                    truncated = true;
+                }
+                states = next;
+            }
+            roundStart = System.nanoTime();
+            if (roundStart - deadline > 0) {
+                done = true;
+            }
+        }
+    }
+}
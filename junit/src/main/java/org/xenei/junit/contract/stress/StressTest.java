@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.stress;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The object under test, the operations and the model for a
+ * <code>&#64;ContractStress</code> test.
+ * <p>
+ * For example, in a contract test for a thread safe <code>Set</code>:
+ * </p>
+ * 
+ * <pre>
+ * &#64;ContractStress( threads = 4, duration = 1000 )
+ * public StressTest&lt;Set&lt;Integer&gt;, Set&lt;Integer&gt;&gt; concurrentAdds() {
+ *     return new StressTest&lt;Set&lt;Integer&gt;, Set&lt;Integer&gt;&gt;( producer.newInstance(), new SetModel() )
+ *             .add( "add", 1, new AddOperation() ).add( "remove", 1, new RemoveOperation() );
+ * }
+ * </pre>
+ *
+ * @param <T>
+ *            the type of the object under test.
+ * @param <M>
+ *            the type of the model state.
+ */
+public class StressTest<T, M> {
+
+    private final T target;
+    private final Model<M> model;
+    private final List<String> names;
+    private final List<Operation<T, M>> operations;
+    // cumulative weights.
+    private final List<Integer> limits;
+    private int total;
+
+    /**
+     * Constructor.
+     * 
+     * @param target
+     *            the object under test. Must be new, its state must match the
+     *            initial state of the model.
+     * @param model
+     *            the sequential model.
+     */
+    public StressTest(final T target, final Model<M> model) {
+        this.target = target;
+        this.model = model;
+        this.names = new ArrayList<String>();
+        this.operations = new ArrayList<Operation<T, M>>();
+        this.limits = new ArrayList<Integer>();
+    }
+
+    /**
+     * Add an operation.
+     * 
+     * @param name
+     *            the name of the operation.
+     * @param weight
+     *            the relative frequency of the operation. Must be positive.
+     * @param operation
+     *            the operation.
+     * @return this test for chaining.
+     */
+    public StressTest<T, M> add(final String name, final int weight, final Operation<T, M> operation) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException( "weight must be positive: " + weight );
+        }
+        total += weight;
+        names.add( name );
+        operations.add( operation );
+        limits.add( total );
+        return this;
+    }
+
+    /**
+     * @return the object under test.
+     */
+    public T getTarget() {
+        return target;
+    }
+
+    /**
+     * @return the model.
+     */
+    public Model<M> getModel() {
+        return model;
+    }
+
+    /**
+     * @return the number of operations.
+     */
+    public int size() {
+        return operations.size();
+    }
+
+    /**
+     * Get an operation.
+     * 
+     * @param index
+     *            the index of the operation.
+     * @return the operation.
+     */
+    public Operation<T, M> getOperation(final int index) {
+        return operations.get( index );
+    }
+
+    /**
+     * Get the name of an operation.
+     * 
+     * @param index
+     *            the index of the operation.
+     * @return the name.
+     */
+    public String getName(final int index) {
+        return names.get( index );
+    }
+
+    /**
+     * Choose an operation in proportion to the weights.
+     * 
+     * @param random
+     *            the random source.
+     * @return the index of the operation.
+     */
+    public int choose(final Random random) {
+        final int value = random.nextInt( total );
+        int i = 0;
+        while (value >= limits.get( i )) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -23,14 +23,40 @@ import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
 import org.junit.Test;
+import org.junit.internal.builders.AllDefaultPossibilitiesBuilder;
 import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runner.RunWith;
+import org.junit.runner.Runner;
 import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
 import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.model.InitializationError;
 import org.junit.runners.model.RunnerBuilder;
 import org.mockito.ArgumentCaptor;
 import org.xenei.junit.bad.BadAbstract;
 import org.xenei.junit.bad.BadNoInject;
+import org.xenei.junit.contract.exampleTests.CImpl;
+import org.xenei.junit.contract.exampleTests.CImplContractTest;
+import org.xenei.junit.contract.exampleTests.Listener;
+import org.xenei.junit.contract.leak.LeakDetector;
+import org.xenei.junit.contract.parallel.ResourceScheduler;
+import org.xenei.junit.contract.parallel.VirtualThreadScheduler;
+import org.xenei.junit.contract.perf.PerformanceResults;
+import org.xenei.junit.contract.perf.SoakStatement;
+import org.xenei.junit.contract.reuse.ReusingProducer;
 
 /**
  * Test ContractSuite
@@ -103,6 +129,284 @@ public class ContractSuiteTest {
         }
     }
 
+    /**
+     * Test that a streaming suite creates the contract test runners when they
+     * are run and produces the same results as a standard suite.
+     *
+     * @throws Throwable
+     *             on error.
+     */
+    @Test
+    public void testStreaming() throws Throwable {
+        final RunnerBuilder builder = new AllDefaultPossibilitiesBuilder( true );
+        final ContractSuite standard = new ContractSuite( CImplContractTest.class, builder );
+
+        System.setProperty( "contracts.streaming", "true" );
+        try {
+            final ContractSuite streaming = new ContractSuite( CImplContractTest.class, builder );
+            assertEquals( standard.getDescription(), streaming.getDescription() );
+            assertEquals( standard.testCount(), streaming.testCount() );
+            int streamed = 0;
+            for (final Runner runner : streaming.getChildren()) {
+                if (runner instanceof StreamingContractTestRunner) {
+                    streamed++;
+                }
+            }
+            assertEquals( 3, streamed );
+
+            final Result result = new JUnitCore().run( CImplContractTest.class );
+            assertTrue( result.getFailures().toString(), result.wasSuccessful() );
+            assertEquals( standard.testCount(), result.getRunCount() );
+        } finally {
+            System.clearProperty( "contracts.streaming" );
+        }
+    }
+
+    /**
+     * Test that a soak suite runs the contract tests for the number of
+     * iterations and reports them once.
+     *
+     * @throws Throwable
+     *             on error.
+     */
+    @Test
+    public void testSoak() throws Throwable {
+        final ContractSuite standard = new ContractSuite( CImplContractTest.class,
+                new AllDefaultPossibilitiesBuilder( true ) );
+
+        System.setProperty( SoakStatement.ITERATIONS_PROPERTY, "3" );
+        System.setProperty( PerformanceResults.DIRECTORY_PROPERTY, "target/test-perf" );
+        try {
+            final Result result = new JUnitCore().run( CImplContractTest.class );
+            assertTrue( result.getFailures().toString(), result.wasSuccessful() );
+            // only the first iteration is reported.
+            assertEquals( standard.testCount(), result.getRunCount() );
+            // one newInstance(), test and cleanUp() per test and iteration.
+            assertEquals( 3 * 3 * standard.testCount(), Listener.get().size() );
+        } finally {
+            System.clearProperty( SoakStatement.ITERATIONS_PROPERTY );
+            System.clearProperty( PerformanceResults.DIRECTORY_PROPERTY );
+        }
+    }
+
+    /**
+     * Test that verifying reuse does not run the tests of a producer that is
+     * not resettable a second time.
+     *
+     * @throws Throwable
+     *             on error.
+     */
+    @Test
+    public void testReuseVerifyNotResettable() throws Throwable {
+        System.setProperty( ReusingProducer.VERIFY_PROPERTY, "true" );
+        try {
+            final Result result = new JUnitCore().run( CImplContractTest.class );
+            assertTrue( result.getFailures().toString(), result.wasSuccessful() );
+            // one newInstance(), test and cleanUp() per test.
+            assertEquals( 3 * result.getRunCount(), Listener.get().size() );
+        } finally {
+            System.clearProperty( ReusingProducer.VERIFY_PROPERTY );
+        }
+    }
+
+    /**
+     * Test that the contract tests run in parallel when enabled.
+     *
+     * @throws Throwable
+     *             on error.
+     */
+    @Test
+    public void testParallel() throws Throwable {
+        final ContractSuite standard = new ContractSuite( ParallelCImpl.class,
+                new AllDefaultPossibilitiesBuilder( true ) );
+
+        final Set<String> threads = Collections.synchronizedSet( new HashSet<String>() );
+        final JUnitCore core = new JUnitCore();
+        core.addListener( new RunListener() {
+            @Override
+            public void testStarted(final Description description) {
+                threads.add( Thread.currentThread().getName() );
+            }
+        } );
+        System.setProperty( ResourceScheduler.PARALLEL_PROPERTY, "3" );
+        try {
+            final Result result = core.run( ParallelCImpl.class );
+            assertTrue( result.getFailures().toString(), result.wasSuccessful() );
+            assertEquals( standard.testCount(), result.getRunCount() );
+        } finally {
+            System.clearProperty( ResourceScheduler.PARALLEL_PROPERTY );
+        }
+        for (final String thread : threads) {
+            assertTrue( thread, thread.startsWith( "contract-parallel-" ) );
+        }
+    }
+
+    /**
+     * Test that a parallel suite fails to initialize when leak detection is
+     * enabled.
+     *
+     * @throws Throwable
+     *             on error.
+     */
+    @Test
+    public void testParallelWithLeaks() throws Throwable {
+        System.setProperty( ResourceScheduler.PARALLEL_PROPERTY, "3" );
+        System.setProperty( LeakDetector.ENABLE_PROPERTY, "true" );
+        try {
+            new ContractSuite( ParallelCImpl.class, new AllDefaultPossibilitiesBuilder( true ) );
+            fail( "Should have thrown InitializationError" );
+        } catch (final InitializationError expected) {
+            assertTrue( expected.getCauses().get( 0 ).getMessage(),
+                    expected.getCauses().get( 0 ).getMessage().contains( LeakDetector.ENABLE_PROPERTY ) );
+        } finally {
+            System.clearProperty( ResourceScheduler.PARALLEL_PROPERTY );
+            System.clearProperty( LeakDetector.ENABLE_PROPERTY );
+        }
+    }
+
+    /**
+     * Test that tests running concurrently on virtual threads each get their
+     * own producer, so that one test's cleanUp() does not release the
+     * instances another test is using.
+     *
+     * @throws Throwable
+     *             on error.
+     */
+    @Test
+    public void testVirtualProducerPerTest() throws Throwable {
+        final ContractSuite suite = new ContractSuite( HandleSuite.class, new AllDefaultPossibilitiesBuilder( true ) );
+        final ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            for (final Runner runner : suite.getChildren()) {
+                ((ContractTestRunner) runner).setScheduler( new VirtualThreadScheduler( pool, 4 ) );
+            }
+            final Result result = new JUnitCore().run( Request.runner( suite ) );
+            assertTrue( result.getFailures().toString(), result.wasSuccessful() );
+            assertEquals( 3, result.getRunCount() );
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * An object that is released when its producer is cleaned up.
+     */
+    public interface Handle {
+        /**
+         * @return true until the producer is cleaned up.
+         */
+        boolean isOpen();
+    }
+
+    /**
+     * The Handle implementation.
+     */
+    public static class HandleImpl implements Handle {
+        private volatile boolean open = true;
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+    }
+
+    /**
+     * Contract tests that hold a Handle while the other tests run.
+     */
+    @Contract(Handle.class)
+    public static class HandleContractTest {
+        private IProducer<Handle> producer;
+
+        @Contract.Inject
+        public void setProducer(final IProducer<Handle> producer) {
+            this.producer = producer;
+        }
+
+        @After
+        public void cleanUp() {
+            producer.cleanUp();
+        }
+
+        private void hold() throws InterruptedException {
+            final Handle handle = producer.newInstance();
+            Thread.sleep( 200 );
+            assertTrue( "released by another test", handle.isOpen() );
+        }
+
+        @ContractTest
+        public void first() throws InterruptedException {
+            hold();
+        }
+
+        @ContractTest
+        public void second() throws InterruptedException {
+            hold();
+        }
+
+        @ContractTest
+        public void third() throws InterruptedException {
+            hold();
+        }
+    }
+
+    /**
+     * A contract suite whose producer releases every instance it created on
+     * cleanUp().
+     */
+    @RunWith(ContractSuite.class)
+    @ContractImpl(HandleImpl.class)
+    public static class HandleSuite {
+        private final IProducer<Handle> producer = new IProducer<Handle>() {
+            private final List<HandleImpl> handles = Collections.synchronizedList( new ArrayList<HandleImpl>() );
+
+            @Override
+            public Handle newInstance() {
+                final HandleImpl handle = new HandleImpl();
+                handles.add( handle );
+                return handle;
+            }
+
+            @Override
+            public void cleanUp() {
+                synchronized (handles) {
+                    for (final HandleImpl handle : handles) {
+                        handle.open = false;
+                    }
+                    handles.clear();
+                }
+            }
+        };
+
+        @Contract.Inject
+        public IProducer<Handle> getProducer() {
+            return producer;
+        }
+    }
+
+    /**
+     * A contract suite for CImpl that does not check the order the tests ran
+     * in.
+     */
+    @RunWith(ContractSuite.class)
+    @ContractImpl(value = CImpl.class, ignore = { BadNoInject.class })
+    public static class ParallelCImpl {
+        private final IProducer<CImpl> producer = new IProducer<CImpl>() {
+            @Override
+            public CImpl newInstance() {
+                return new CImpl();
+            }
+
+            @Override
+            public void cleanUp() {
+            }
+        };
+
+        @Contract.Inject
+        public IProducer<CImpl> getProducer() {
+            return producer;
+        }
+    }
+
     /**
      * A contract implementation for BadNoInject class.
      *
@@ -0,0 +1,473 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runner.manipulation.Filter;
+import org.xenei.junit.contract.exampleTests.CT;
+import org.xenei.junit.contract.parallel.FixturePipeline;
+import org.xenei.junit.contract.parallel.VirtualThreadScheduler;
+import org.xenei.junit.contract.perf.BenchmarkStatement;
+import org.xenei.junit.contract.perf.Complexity;
+import org.xenei.junit.contract.perf.FootprintStatement;
+import org.xenei.junit.contract.perf.Measurement;
+import org.xenei.junit.contract.perf.PerformanceResults;
+import org.xenei.junit.contract.perf.ResourceUsage;
+
+/**
+ * Test ContractTestRunner
+ *
+ */
+public class ContractTestRunnerTest {
+
+    /**
+     * Test that descriptions are created once and do not retain the
+     * ContractTest annotation.
+     * 
+     * @throws Exception
+     *             on error
+     */
+    @Test
+    public void testDescriptionCached() throws Exception {
+        final ContractTestRunner runner = new ContractTestRunner( CT.class );
+        final Description description = runner.getDescription();
+        assertSame( description, runner.getDescription() );
+        assertEquals( 1, description.getChildren().size() );
+
+        final Description child = description.getChildren().get( 0 );
+        assertEquals( "testGetCName", child.getMethodName() );
+        assertNull( child.getAnnotation( ContractTest.class ) );
+        assertEquals( 0, child.getAnnotations().size() );
+
+        runner.filter( Filter.matchMethodDescription( child ) );
+        final Description filtered = runner.getDescription();
+        assertEquals( description, filtered );
+        assertSame( child, filtered.getChildren().get( 0 ) );
+    }
+
+    /**
+     * Test that benchmarks are ignored unless enabled and that enabled
+     * benchmarks record a measurement.
+     * 
+     * @throws Exception
+     *             on error
+     */
+    @Test
+    public void testBenchmark() throws Exception {
+        final ContractTestRunner runner = new ContractTestRunner( Bench.class );
+        assertEquals( 2, runner.getDescription().getChildren().size() );
+
+        Result result = new JUnitCore().run( Request.runner( runner ) );
+        assertEquals( 1, result.getRunCount() );
+        assertEquals( 1, result.getIgnoreCount() );
+
+        final File dir = new File( "target/test-perf" );
+        final File file = PerformanceResults.getFile( dir, Bench.class.getName(), PerformanceResults.EXTENSION );
+        file.delete();
+        System.setProperty( BenchmarkStatement.ENABLE_PROPERTY, "true" );
+        System.setProperty( PerformanceResults.DIRECTORY_PROPERTY, dir.getPath() );
+        try {
+            Bench.setups = 0;
+            result = new JUnitCore().run( Request.runner( new ContractTestRunner( Bench.class ) ) );
+        } finally {
+            System.clearProperty( BenchmarkStatement.ENABLE_PROPERTY );
+            System.clearProperty( PerformanceResults.DIRECTORY_PROPERTY );
+        }
+        assertTrue( result.wasSuccessful() );
+        assertEquals( 2, result.getRunCount() );
+        // one setup for the test and one for each fork.
+        assertEquals( 3, Bench.setups );
+
+        final List<Measurement> measurements = PerformanceResults.readFile( file );
+        assertEquals( 1, measurements.size() );
+        final Measurement measurement = measurements.get( 0 );
+        assertEquals( "increment", measurement.getMethod() );
+        assertEquals( "ns/op", measurement.getUnit() );
+        assertEquals( 4, measurement.getCount() );
+        assertTrue( measurement.getMin() > 0 );
+        assertEquals( measurement.toString(), Measurement.parse( measurement.toString() ).toString() );
+    }
+
+    /**
+     * Test that the resources used by each test that runs are recorded when
+     * enabled.
+     * 
+     * @throws Exception
+     *             on error
+     */
+    @Test
+    public void testResourceUsage() throws Exception {
+        final File dir = new File( "target/test-perf" );
+        PerformanceResults.clear( dir );
+        System.setProperty( ResourceUsage.ENABLE_PROPERTY, "true" );
+        System.setProperty( PerformanceResults.DIRECTORY_PROPERTY, dir.getPath() );
+        final Result result;
+        try {
+            result = new JUnitCore().run( Request.runner( new ContractTestRunner( Bench.class ) ) );
+        } finally {
+            System.clearProperty( ResourceUsage.ENABLE_PROPERTY );
+            System.clearProperty( PerformanceResults.DIRECTORY_PROPERTY );
+        }
+        assertTrue( result.wasSuccessful() );
+
+        // the benchmark is ignored so only the test is recorded.
+        final List<ResourceUsage> usage = PerformanceResults.readUsage( dir );
+        ResourceUsage found = null;
+        for (final ResourceUsage u : usage) {
+            if (u.getImplementation().equals( Bench.class.getName() )) {
+                assertNull( found );
+                found = u;
+            }
+        }
+        assertEquals( "testCounter", found.getMethod() );
+        assertEquals( Bench.class.getName(), found.getContract() );
+        assertTrue( found.getElapsed() > 0 );
+        assertTrue( found.getGcCount() >= 0 );
+        assertEquals( found.toString(), ResourceUsage.parse( found.toString() ).toString() );
+    }
+
+    /**
+     * Test that complexity methods are ignored unless enabled, and pass when
+     * the operation is in the declared class and fail when it is not.
+     * 
+     * @throws Exception
+     *             on error
+     */
+    @Test
+    public void testComplexity() throws Exception {
+        Result result = new JUnitCore().run( Request.runner( new ContractTestRunner( Scaling.class ) ) );
+        assertEquals( 0, result.getRunCount() );
+        assertEquals( 2, result.getIgnoreCount() );
+
+        System.setProperty( BenchmarkStatement.ENABLE_PROPERTY, "true" );
+        System.setProperty( PerformanceResults.DIRECTORY_PROPERTY, "target/test-perf" );
+        try {
+            result = new JUnitCore().run( Request.runner( new ContractTestRunner( Scaling.class ) ) );
+        } finally {
+            System.clearProperty( BenchmarkStatement.ENABLE_PROPERTY );
+            System.clearProperty( PerformanceResults.DIRECTORY_PROPERTY );
+        }
+        assertFalse( result.wasSuccessful() );
+        assertEquals( 2, result.getRunCount() );
+        assertEquals( 1, result.getFailureCount() );
+        assertEquals( "sum", result.getFailures().get( 0 ).getDescription().getMethodName() );
+    }
+
+    /**
+     * Test that footprint methods pass when the produced object is within the
+     * budget and fail when it is not.
+     * 
+     * @throws Exception
+     *             on error
+     */
+    @Test
+    public void testFootprint() throws Exception {
+        Assume.assumeTrue( FootprintStatement.canCollect() );
+        System.setProperty( BenchmarkStatement.ENABLE_PROPERTY, "true" );
+        System.setProperty( PerformanceResults.DIRECTORY_PROPERTY, "target/test-perf" );
+        final Result result;
+        try {
+            result = new JUnitCore().run( Request.runner( new ContractTestRunner( Footprint.class ) ) );
+        } finally {
+            System.clearProperty( BenchmarkStatement.ENABLE_PROPERTY );
+            System.clearProperty( PerformanceResults.DIRECTORY_PROPERTY );
+        }
+        assertEquals( 2, result.getRunCount() );
+        assertEquals( 1, result.getFailureCount() );
+        assertEquals( "boxed", result.getFailures().get( 0 ).getDescription().getMethodName() );
+    }
+
+    /**
+     * Test that tests run on the scheduler's threads and measurements run on
+     * the runner's thread when using the virtual thread scheduler.
+     * 
+     * @throws Exception
+     *             on error
+     */
+    @Test
+    public void testVirtualThreadScheduler() throws Exception {
+        final ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            final ContractTestRunner runner = new ContractTestRunner( Waiting.class );
+            runner.setScheduler( new VirtualThreadScheduler( pool, 4 ) );
+            Waiting.threads.clear();
+            System.setProperty( BenchmarkStatement.ENABLE_PROPERTY, "true" );
+            System.setProperty( PerformanceResults.DIRECTORY_PROPERTY, "target/test-perf" );
+            final Result result;
+            try {
+                result = new JUnitCore().run( Request.runner( runner ) );
+            } finally {
+                System.clearProperty( BenchmarkStatement.ENABLE_PROPERTY );
+                System.clearProperty( PerformanceResults.DIRECTORY_PROPERTY );
+            }
+            assertTrue( result.getFailures().toString(), result.wasSuccessful() );
+            assertEquals( 4, result.getRunCount() );
+            final String current = Thread.currentThread().getName();
+            assertEquals( current, Waiting.threads.get( "measure" ) );
+            for (final String method : new String[] { "first", "second", "third" }) {
+                assertFalse( method, current.equals( Waiting.threads.get( method ) ) );
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Test that the virtual thread scheduler is refused when resource usage,
+     * which compares JVM wide state for each test, is enabled.
+     * 
+     * @throws Exception
+     *             on error
+     */
+    @Test
+    public void testVirtualThreadSchedulerWithResources() throws Exception {
+        final ExecutorService pool = Executors.newCachedThreadPool();
+        final ContractTestRunner runner = new ContractTestRunner( Waiting.class );
+        System.setProperty( ResourceUsage.ENABLE_PROPERTY, "true" );
+        try {
+            runner.setScheduler( new VirtualThreadScheduler( pool, 4 ) );
+            fail( "Should have thrown IllegalStateException" );
+        } catch (final IllegalStateException expected) {
+            assertTrue( expected.getMessage(), expected.getMessage().contains( ResourceUsage.ENABLE_PROPERTY ) );
+        } finally {
+            System.clearProperty( ResourceUsage.ENABLE_PROPERTY );
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Test that test instances are created in the background when prefetch is
+     * enabled and the test class is annotated, and that no more are created
+     * than the tests use.
+     * 
+     * @throws Exception
+     *             on error
+     */
+    @Test
+    public void testPrefetch() throws Exception {
+        Prefetched.created.clear();
+        System.setProperty( FixturePipeline.ENABLE_PROPERTY, "true" );
+        final Result result;
+        try {
+            result = new JUnitCore().run( Request.runner( new ContractTestRunner( Prefetched.class ) ) );
+        } finally {
+            System.clearProperty( FixturePipeline.ENABLE_PROPERTY );
+        }
+        assertTrue( result.getFailures().toString(), result.wasSuccessful() );
+        assertEquals( 3, result.getRunCount() );
+        // the first instance is created when requested, the others are
+        // prepared in the background.
+        final List<String> created = Prefetched.created;
+        assertEquals( 3, created.size() );
+        assertEquals( Thread.currentThread().getName(), created.get( 0 ) );
+        for (final String thread : created.subList( 1, created.size() )) {
+            assertTrue( thread, thread.startsWith( "contract-prefetch-" ) );
+        }
+
+        // not prepared in the background without the annotation.
+        Plain.created.clear();
+        System.setProperty( FixturePipeline.ENABLE_PROPERTY, "true" );
+        try {
+            new JUnitCore().run( Request.runner( new ContractTestRunner( Plain.class ) ) );
+        } finally {
+            System.clearProperty( FixturePipeline.ENABLE_PROPERTY );
+        }
+        assertEquals( Arrays.asList( Thread.currentThread().getName(), Thread.currentThread().getName() ),
+                Plain.created );
+    }
+
+    /**
+     * A class that records the threads its instances are created on and does
+     * not allow them to be prepared in the background.
+     */
+    public static class Plain {
+        static final List<String> created = Collections.synchronizedList( new ArrayList<String>() );
+
+        public Plain() {
+            created.add( Thread.currentThread().getName() );
+        }
+
+        @ContractTest
+        public void first() {
+        }
+
+        @ContractTest
+        public void second() {
+        }
+    }
+
+    /**
+     * A class that records the threads its instances are created on.
+     */
+    @PrefetchFixture
+    public static class Prefetched {
+        static final List<String> created = Collections.synchronizedList( new ArrayList<String>() );
+
+        public Prefetched() {
+            created.add( Thread.currentThread().getName() );
+        }
+
+        @ContractTest
+        public void first() {
+        }
+
+        @ContractTest
+        public void second() {
+        }
+
+        @ContractTest
+        public void third() {
+        }
+    }
+
+    /**
+     * A class with tests that wait and a footprint method.
+     */
+    public static class Waiting {
+        static final Map<String, String> threads = new ConcurrentHashMap<String, String>();
+
+        private static void waitFor(final String method) throws InterruptedException {
+            threads.put( method, Thread.currentThread().getName() );
+            Thread.sleep( 20 );
+        }
+
+        @ContractTest
+        public void first() throws InterruptedException {
+            waitFor( "first" );
+        }
+
+        @ContractTest
+        public void second() throws InterruptedException {
+            waitFor( "second" );
+        }
+
+        @ContractTest
+        public void third() throws InterruptedException {
+            waitFor( "third" );
+        }
+
+        @ContractFootprint(bytesPerElement = 16, elements = 1000, samples = 1)
+        public Object measure(final int elements) {
+            threads.put( "measure", Thread.currentThread().getName() );
+            return new long[elements];
+        }
+    }
+
+    /**
+     * A class with footprint methods.
+     */
+    public static class Footprint {
+
+        // 8 bytes per element.
+        @ContractFootprint(bytesPerElement = 12, samples = 2)
+        public Object primitive(final int elements) {
+            return new long[elements];
+        }
+
+        // a reference and a Long per element.
+        @ContractFootprint(bytesPerElement = 12, samples = 2)
+        public Object boxed(final int elements) {
+            final List<Long> result = new ArrayList<Long>( elements );
+            for (int i = 0; i < elements; i++) {
+                result.add( Long.valueOf( i + 1000 ) );
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A class with complexity methods.
+     */
+    public static class Scaling {
+        private int[] values;
+        private long result;
+
+        @ContractComplexity(value = Complexity.CONSTANT, iterationTime = 50)
+        public Runnable first(final int size) {
+            values = new int[size];
+            return new Runnable() {
+                @Override
+                public void run() {
+                    result += values[0];
+                }
+            };
+        }
+
+        // declared constant but linear.
+        @ContractComplexity(value = Complexity.CONSTANT, iterationTime = 50)
+        public Runnable sum(final int size) {
+            values = new int[size];
+            return new Runnable() {
+                @Override
+                public void run() {
+                    for (final int value : values) {
+                        result += value;
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * A class with a contract test and a benchmark.
+     */
+    public static class Bench {
+        static int setups;
+        private long counter;
+
+        @Before
+        public void setup() {
+            setups++;
+            counter = 0;
+        }
+
+        @ContractTest
+        public void testCounter() {
+            assertEquals( 0, counter );
+        }
+
+        @ContractBenchmark(warmupIterations = 1, iterations = 2, iterationTime = 5, forks = 2)
+        public void increment() {
+            counter++;
+        }
+    }
+}
@@ -147,4 +147,31 @@ public class ContractTestMapTest {
 
     }
 
+    /**
+     * Show that maps built from the cache and after clearing the cache are the
+     * same.
+     */
+    @Test
+    public void cacheTest() {
+        final List<String> expected = new ArrayList<String>();
+        for (final TestInfo t : map.listTestInfo()) {
+            expected.add( t.toString() );
+        }
+
+        final List<String> cached = new ArrayList<String>();
+        for (final TestInfo t : new ContractTestMap().listTestInfo()) {
+            cached.add( t.toString() );
+        }
+        Assert.assertTrue( cached.containsAll( expected ) );
+        Assert.assertEquals( expected.size(), cached.size() );
+
+        ContractTestMap.clearCache( Thread.currentThread().getContextClassLoader() );
+        final List<String> rescanned = new ArrayList<String>();
+        for (final TestInfo t : new ContractTestMap().listTestInfo()) {
+            rescanned.add( t.toString() );
+        }
+        Assert.assertTrue( rescanned.containsAll( expected ) );
+        Assert.assertEquals( expected.size(), rescanned.size() );
+    }
+
 }
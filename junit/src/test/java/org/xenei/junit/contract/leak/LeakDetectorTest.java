@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.leak;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runners.model.Statement;
+import org.xenei.junit.contract.IProducer;
+
+/**
+ * Test LeakDetector
+ *
+ */
+public class LeakDetectorTest {
+
+    private final CountDownLatch stop = new CountDownLatch( 1 );
+    private final AtomicReference<LeakDetector> current = new AtomicReference<LeakDetector>();
+    // holds instances to leak them.
+    private final List<Object> retained = new ArrayList<Object>();
+
+    @Before
+    public void setup() {
+        System.setProperty( LeakDetector.ENABLE_PROPERTY, "true" );
+        System.setProperty( LeakDetector.GRACE_PROPERTY, "50" );
+    }
+
+    @After
+    public void teardown() {
+        stop.countDown();
+        System.clearProperty( LeakDetector.ENABLE_PROPERTY );
+        System.clearProperty( LeakDetector.GRACE_PROPERTY );
+    }
+
+    private LeakDetector detector(final Statement statement) {
+        return new LeakDetector( statement, current, "impl", "contract", "method" );
+    }
+
+    @Test
+    public void testNoLeaks() throws Throwable {
+        final IProducer<Object> producer = producer();
+        detector( new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                final Thread thread = new Thread( "finished" );
+                thread.start();
+                thread.join();
+                producer.newInstance();
+                producer.cleanUp();
+            }
+        } ).evaluate();
+        assertSame( null, current.get() );
+    }
+
+    @Test
+    public void testLeakedThread() throws Throwable {
+        try {
+            detector( new Statement() {
+                @Override
+                public void evaluate() throws Throwable {
+                    new Thread( "leaked" ) {
+                        @Override
+                        public void run() {
+                            try {
+                                stop.await();
+                            } catch (final InterruptedException e) {
+                                // exit
+                            }
+                        }
+                    }.start();
+                }
+            } ).evaluate();
+            fail( "Should have thrown AssertionError" );
+        } catch (final AssertionError expected) {
+            assertTrue( expected.getMessage(), expected.getMessage().contains( "threads [leaked]" ) );
+        }
+    }
+
+    @Test
+    public void testWarn() throws Throwable {
+        System.setProperty( LeakDetector.ENABLE_PROPERTY, "warn" );
+        detector( new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                retained.add( producer().newInstance() );
+            }
+        } ).evaluate();
+    }
+
+    @Test
+    public void testReachableInstance() throws Throwable {
+        try {
+            detector( new Statement() {
+                @Override
+                public void evaluate() throws Throwable {
+                    final IProducer<Object> producer = producer();
+                    retained.add( producer.newInstance() );
+                    producer.newInstance();
+                    producer.cleanUp();
+                }
+            } ).evaluate();
+            fail( "Should have thrown AssertionError" );
+        } catch (final AssertionError expected) {
+            assertTrue( expected.getMessage(),
+                    expected.getMessage().contains( "1 of 2 produced instances still reachable" ) );
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private IProducer<Object> producer() {
+        return (IProducer<Object>) TrackingProducer.wrap( new IProducer<Object>() {
+            @Override
+            public Object newInstance() {
+                return new Object();
+            }
+
+            @Override
+            public void cleanUp() {
+            }
+        }, IProducer.class, current );
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+import org.junit.runners.model.MultipleFailureException;
+import org.xenei.junit.contract.AsyncCleanUp;
+import org.xenei.junit.contract.IProducer;
+import org.xenei.junit.contract.ProducerProxy;
+
+/**
+ * Test AsyncCleanUpProducer
+ *
+ */
+public class AsyncCleanUpProducerTest {
+
+    private final List<String> cleaned = Collections.synchronizedList( new ArrayList<String>() );
+    private final CountDownLatch release = new CountDownLatch( 1 );
+
+    /**
+     * Test that cleanups return before the producer has cleaned up and run
+     * in order on the queue thread.
+     * 
+     * @throws Throwable
+     *             on error
+     */
+    @Test
+    public void testCleanUp() throws Throwable {
+        final AsyncCleanUpProducer.Queue queue = new AsyncCleanUpProducer.Queue( "cleanup-test" );
+        final IProducer<String> first = wrap( new Slow( "first" ), queue );
+        final IProducer<String> second = wrap( new Slow( "second" ), queue );
+        assertEquals( "first", first.newInstance() );
+        first.cleanUp();
+        second.cleanUp();
+        assertTrue( cleaned.isEmpty() );
+
+        release.countDown();
+        queue.await();
+        assertEquals( 2, cleaned.size() );
+        assertEquals( "first cleanup-test", cleaned.get( 0 ) );
+        assertEquals( "second cleanup-test", cleaned.get( 1 ) );
+    }
+
+    /**
+     * Test that the exceptions thrown by cleanups are thrown by await.
+     * 
+     * @throws Throwable
+     *             on error
+     */
+    @Test
+    public void testFailure() throws Throwable {
+        release.countDown();
+        final AsyncCleanUpProducer.Queue queue = new AsyncCleanUpProducer.Queue( "cleanup-test" );
+        final IllegalStateException error = new IllegalStateException( "failed" );
+        wrap( new Failing( error ), queue ).cleanUp();
+        try {
+            queue.await();
+            fail( "Should have thrown IllegalStateException" );
+        } catch (final IllegalStateException e) {
+            assertSame( error, e );
+        }
+        // the errors are reported once.
+        queue.await();
+
+        wrap( new Failing( error ), queue ).cleanUp();
+        wrap( new Failing( error ), queue ).cleanUp();
+        try {
+            queue.await();
+            fail( "Should have thrown MultipleFailureException" );
+        } catch (final MultipleFailureException e) {
+            assertEquals( 2, e.getFailures().size() );
+        }
+    }
+
+    /**
+     * Test that only annotated producers are run in the background.
+     */
+    @Test
+    public void testIsAsync() {
+        assertTrue( AsyncCleanUpProducer.isAsync( new Slow( "x" ) ) );
+        assertFalse( AsyncCleanUpProducer.isAsync( new Object() ) );
+        assertFalse( AsyncCleanUpProducer.isAsync( null ) );
+    }
+
+    @SuppressWarnings("unchecked")
+    private IProducer<String> wrap(final IProducer<String> producer, final AsyncCleanUpProducer.Queue queue) {
+        return (IProducer<String>) ProducerProxy.wrap( new AsyncCleanUpProducer( producer, queue ), IProducer.class );
+    }
+
+    /**
+     * A producer that cleans up when released.
+     */
+    @AsyncCleanUp
+    public class Slow implements IProducer<String> {
+        private final String name;
+
+        Slow(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String newInstance() {
+            return name;
+        }
+
+        @Override
+        public void cleanUp() {
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            cleaned.add( name + " " + Thread.currentThread().getName() );
+        }
+    }
+
+    /**
+     * A producer that fails to clean up.
+     */
+    @AsyncCleanUp
+    public static class Failing implements IProducer<String> {
+        private final RuntimeException error;
+
+        Failing(final RuntimeException error) {
+            this.error = error;
+        }
+
+        @Override
+        public String newInstance() {
+            return "failing";
+        }
+
+        @Override
+        public void cleanUp() {
+            throw error;
+        }
+    }
+}
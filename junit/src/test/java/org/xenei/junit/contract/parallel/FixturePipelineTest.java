@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.xenei.junit.contract.IProducer;
+import org.xenei.junit.contract.ProducerProxy;
+
+/**
+ * Test FixturePipeline and PrefetchingProducer
+ *
+ */
+public class FixturePipelineTest {
+
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger cleaned = new AtomicInteger();
+
+    /**
+     * Test that fixtures are prepared on the background thread one ahead of
+     * the caller once started, and no more than the tests need.
+     */
+    @Test
+    public void testTake() {
+        final FixturePipeline pipeline = new FixturePipeline( new Callable<Object>() {
+            @Override
+            public Object call() {
+                return created.incrementAndGet() + " " + Thread.currentThread().getName();
+            }
+        }, "prefetch-test", 4 );
+        // nothing is prepared before the pipeline is started.
+        assertNull( pipeline.take() );
+        assertEquals( 0, created.get() );
+        pipeline.start();
+        pipeline.start();
+        assertEquals( "1 prefetch-test", pipeline.take() );
+        assertEquals( "2 prefetch-test", pipeline.take() );
+        assertEquals( "3 prefetch-test", pipeline.take() );
+        // the first of the 4 fixtures was not prepared by the pipeline.
+        assertNull( pipeline.take() );
+        assertNull( pipeline.close() );
+        assertEquals( 3, created.get() );
+    }
+
+    /**
+     * Test that close returns the fixture that was not taken.
+     */
+    @Test
+    public void testClose() {
+        final FixturePipeline pipeline = new FixturePipeline( new Callable<Object>() {
+            @Override
+            public Object call() {
+                return "fixture";
+            }
+        }, "prefetch-test", 3 );
+        pipeline.start();
+        assertEquals( "fixture", pipeline.close() );
+        pipeline.start();
+        assertNull( pipeline.take() );
+    }
+
+    /**
+     * Test that a fixture that can not be prepared is returned as null.
+     */
+    @Test
+    public void testFailure() {
+        final FixturePipeline pipeline = new FixturePipeline( new Callable<Object>() {
+            @Override
+            public Object call() {
+                if (created.incrementAndGet() == 1) {
+                    throw new IllegalStateException( "first" );
+                }
+                return "fixture";
+            }
+        }, "prefetch-test", 3 );
+        pipeline.start();
+        assertNull( pipeline.take() );
+        assertEquals( "fixture", pipeline.take() );
+        pipeline.close();
+    }
+
+    /**
+     * Test that the prefetched instance is returned once and an unused
+     * instance is cleaned up.
+     * 
+     * @throws Throwable
+     *             on error
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testPrefetchingProducer() throws Throwable {
+        final Set<PrefetchingProducer> unused = Collections.synchronizedSet( new HashSet<PrefetchingProducer>() );
+
+        PrefetchingProducer handler = new PrefetchingProducer( producer(), unused );
+        IProducer<Integer> proxy = (IProducer<Integer>) ProducerProxy.wrap( handler, IProducer.class );
+        assertTrue( handler.prefetch() );
+        assertEquals( 1, created.get() );
+        assertTrue( unused.contains( handler ) );
+        assertEquals( Integer.valueOf( 1 ), proxy.newInstance() );
+        assertTrue( unused.isEmpty() );
+        assertEquals( Integer.valueOf( 2 ), proxy.newInstance() );
+        handler.discard();
+        assertEquals( 0, cleaned.get() );
+
+        handler = new PrefetchingProducer( producer(), unused );
+        proxy = (IProducer<Integer>) ProducerProxy.wrap( handler, IProducer.class );
+        assertTrue( handler.prefetch() );
+        handler.discard();
+        assertEquals( 1, cleaned.get() );
+        assertTrue( unused.isEmpty() );
+        assertEquals( Integer.valueOf( 4 ), proxy.newInstance() );
+    }
+
+    private IProducer<Integer> producer() {
+        return new IProducer<Integer>() {
+            @Override
+            public Integer newInstance() {
+                return created.incrementAndGet();
+            }
+
+            @Override
+            public void cleanUp() {
+                cleaned.incrementAndGet();
+            }
+        };
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runners.model.InitializationError;
+import org.xenei.junit.contract.leak.LeakDetector;
+import org.xenei.junit.contract.perf.ContentionStatement;
+import org.xenei.junit.contract.perf.ResourceUsage;
+
+/**
+ * Test IsolationCheck
+ *
+ */
+public class IsolationCheckTest {
+
+    @After
+    public void teardown() {
+        System.clearProperty( LeakDetector.ENABLE_PROPERTY );
+        System.clearProperty( ContentionStatement.ENABLE_PROPERTY );
+        System.clearProperty( ResourceUsage.ENABLE_PROPERTY );
+    }
+
+    @Test
+    public void testNoModes() throws Exception {
+        assertTrue( IsolationCheck.getIsolatedModes().isEmpty() );
+        assertNull( IsolationCheck.getMessage( VirtualThreadScheduler.ENABLE_PROPERTY ) );
+        IsolationCheck.check( VirtualThreadScheduler.ENABLE_PROPERTY );
+    }
+
+    @Test
+    public void testModes() {
+        System.setProperty( LeakDetector.ENABLE_PROPERTY, "true" );
+        System.setProperty( ResourceUsage.ENABLE_PROPERTY, "true" );
+        assertEquals( Arrays.asList( LeakDetector.ENABLE_PROPERTY, ResourceUsage.ENABLE_PROPERTY ),
+                IsolationCheck.getIsolatedModes() );
+        try {
+            IsolationCheck.check( ResourceScheduler.PARALLEL_PROPERTY );
+            fail( "Should have thrown InitializationError" );
+        } catch (final InitializationError expected) {
+            final String message = expected.getCauses().get( 0 ).getMessage();
+            assertTrue( message, message.startsWith( ResourceScheduler.PARALLEL_PROPERTY ) );
+        }
+    }
+
+    @Test
+    public void testContention() {
+        System.setProperty( ContentionStatement.ENABLE_PROPERTY, "true" );
+        assertEquals( Arrays.asList( ContentionStatement.ENABLE_PROPERTY ), IsolationCheck.getIsolatedModes() );
+    }
+}
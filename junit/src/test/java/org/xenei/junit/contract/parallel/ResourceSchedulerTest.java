@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test ResourceScheduler
+ *
+ */
+public class ResourceSchedulerTest {
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final AtomicInteger db = new AtomicInteger();
+    private final AtomicInteger maxDb = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+
+    @After
+    public void teardown() {
+        System.clearProperty( ResourceScheduler.PARALLEL_PROPERTY );
+        System.clearProperty( ResourceScheduler.LIMIT_PREFIX + "db" );
+    }
+
+    private static void max(final AtomicInteger max, final int value) {
+        int current = max.get();
+        while (value > current && !max.compareAndSet( current, value )) {
+            current = max.get();
+        }
+    }
+
+    private Runnable work(final boolean usesDb) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                max( maxActive, active.incrementAndGet() );
+                if (usesDb) {
+                    max( maxDb, db.incrementAndGet() );
+                }
+                try {
+                    Thread.sleep( 50 );
+                } catch (final InterruptedException e) {
+                    // exit
+                } finally {
+                    if (usesDb) {
+                        db.decrementAndGet();
+                    }
+                    active.decrementAndGet();
+                    completed.incrementAndGet();
+                }
+            }
+        };
+    }
+
+    // submits 4 database children followed by 4 unrelated children, which
+    // must pass the waiting database children.
+    private void run(final ResourceScheduler scheduler) {
+        final Map<String, Integer> none = Collections.emptyMap();
+        final Map<String, Integer> uses = Collections.singletonMap( "db", 1 );
+        for (int i = 0; i < 8; i++) {
+            final boolean usesDb = i < 4;
+            scheduler.schedule( new Runnable() {
+                @Override
+                public void run() {
+                    scheduler.submit( "child", usesDb ? uses : none, work( usesDb ) );
+                }
+            } );
+        }
+        scheduler.finished();
+    }
+
+    @Test
+    public void testResourceLimit() {
+        run( new ResourceScheduler( 4 ) );
+        assertEquals( 8, completed.get() );
+        assertEquals( 1, maxDb.get() );
+        assertTrue( maxActive.get() > 1 );
+    }
+
+    @Test
+    public void testLimitProperty() {
+        System.setProperty( ResourceScheduler.LIMIT_PREFIX + "db", "2" );
+        assertEquals( 2, ResourceScheduler.getLimit( "db", 1 ) );
+        run( new ResourceScheduler( 4 ) );
+        assertEquals( 8, completed.get() );
+        assertEquals( 2, maxDb.get() );
+    }
+
+    @Test
+    public void testReuse() {
+        final ResourceScheduler scheduler = new ResourceScheduler( 2 );
+        run( scheduler );
+        run( scheduler );
+        assertEquals( 16, completed.get() );
+        assertEquals( 1, maxDb.get() );
+    }
+
+    @Test
+    public void testGetThreads() {
+        assertEquals( 1, ResourceScheduler.getThreads() );
+        System.setProperty( ResourceScheduler.PARALLEL_PROPERTY, "3" );
+        assertEquals( 3, ResourceScheduler.getThreads() );
+        assertTrue( ResourceScheduler.isEnabled() );
+        System.setProperty( ResourceScheduler.PARALLEL_PROPERTY, "true" );
+        assertEquals( Runtime.getRuntime().availableProcessors(), ResourceScheduler.getThreads() );
+        System.setProperty( ResourceScheduler.PARALLEL_PROPERTY, "false" );
+        assertEquals( 1, ResourceScheduler.getThreads() );
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Test VirtualThreadScheduler
+ *
+ */
+public class VirtualThreadSchedulerTest {
+
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+
+    @After
+    public void teardown() {
+        pool.shutdown();
+        System.clearProperty( VirtualThreadScheduler.ENABLE_PROPERTY );
+    }
+
+    private Runnable work() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                final int now = active.incrementAndGet();
+                synchronized (maxActive) {
+                    maxActive.set( Math.max( maxActive.get(), now ) );
+                }
+                try {
+                    Thread.sleep( 20 );
+                } catch (final InterruptedException e) {
+                    // exit
+                } finally {
+                    active.decrementAndGet();
+                    completed.incrementAndGet();
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testMax() {
+        final VirtualThreadScheduler scheduler = new VirtualThreadScheduler( pool, 2 );
+        for (int i = 0; i < 6; i++) {
+            scheduler.schedule( new Runnable() {
+                @Override
+                public void run() {
+                    scheduler.submit( work() );
+                }
+            } );
+        }
+        scheduler.finished();
+        assertEquals( 6, completed.get() );
+        assertEquals( 2, maxActive.get() );
+    }
+
+    @Test
+    public void testAwaitIdle() {
+        final VirtualThreadScheduler scheduler = new VirtualThreadScheduler( pool, 4 );
+        scheduler.submit( work() );
+        scheduler.submit( work() );
+        scheduler.awaitIdle();
+        assertEquals( 2, completed.get() );
+        assertEquals( 0, active.get() );
+    }
+
+    @Test
+    public void testError() {
+        final VirtualThreadScheduler scheduler = new VirtualThreadScheduler( pool, 4 );
+        final IllegalArgumentException expected = new IllegalArgumentException( "expected" );
+        scheduler.submit( new Runnable() {
+            @Override
+            public void run() {
+                throw expected;
+            }
+        } );
+        scheduler.submit( work() );
+        try {
+            scheduler.finished();
+            fail( "Should have thrown IllegalArgumentException" );
+        } catch (final IllegalArgumentException e) {
+            assertSame( expected, e );
+        }
+        assertEquals( 1, completed.get() );
+        // the error is reported once.
+        scheduler.finished();
+    }
+
+    @Test
+    public void testCreate() {
+        assertNull( VirtualThreadScheduler.create() );
+        System.setProperty( VirtualThreadScheduler.ENABLE_PROPERTY, "true" );
+        final boolean supported = VirtualThreadScheduler.newVirtualExecutor() != null;
+        assertEquals( supported, VirtualThreadScheduler.create() != null );
+        Assume.assumeTrue( supported );
+        final VirtualThreadScheduler scheduler = VirtualThreadScheduler.create();
+        final String[] name = new String[1];
+        scheduler.submit( new Runnable() {
+            @Override
+            public void run() {
+                name[0] = Thread.currentThread().getName();
+            }
+        } );
+        scheduler.finished();
+        assertEquals( "contract-virtual-0", name[0] );
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Test AllocationAssert
+ *
+ */
+public class AllocationAssertTest {
+
+    private static Object sink;
+    private long counter;
+
+    private final Runnable allocating = new Runnable() {
+        @Override
+        public void run() {
+            sink = new byte[1024];
+        }
+    };
+
+    private final Runnable counting = new Runnable() {
+        @Override
+        public void run() {
+            counter++;
+        }
+    };
+
+    @Test
+    public void testBytesPerOperation() {
+        Assume.assumeTrue( AllocationAssert.isSupported() );
+        assertTrue( AllocationAssert.bytesPerOperation( 100, 100, allocating ) >= 1024 );
+        assertEquals( 0, AllocationAssert.bytesPerOperation( 100, 1000, counting ), 1 );
+    }
+
+    @Test
+    public void testAssertMaxAllocation() {
+        Assume.assumeTrue( AllocationAssert.isSupported() );
+        // allow for allocation by the JVM on the thread while measuring.
+        AllocationAssert.assertMaxAllocation( "counting", 1, counting );
+        AllocationAssert.assertMaxAllocation( "allocating", 2048, 100, 100, allocating );
+        try {
+            AllocationAssert.assertMaxAllocation( "allocating", 0, 100, 100, allocating );
+            fail( "Should have thrown AssertionError" );
+        } catch (final AssertionError expected) {
+            assertTrue( expected.getMessage().startsWith( "allocating: allocated " ) );
+        }
+    }
+}
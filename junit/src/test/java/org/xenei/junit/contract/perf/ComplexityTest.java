@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Test the Complexity curve fitting.
+ *
+ */
+public class ComplexityTest {
+
+    private static final double[] SIZES = { 100, 1000, 10000, 100000 };
+
+    private static double[] times(final Complexity complexity, final double overhead) {
+        final double[] times = new double[SIZES.length];
+        for (int i = 0; i < SIZES.length; i++) {
+            times[i] = overhead + 3 * complexity.apply( SIZES[i] );
+        }
+        return times;
+    }
+
+    @Test
+    public void testBestFit() {
+        for (final Complexity complexity : Complexity.values()) {
+            assertEquals( complexity, Complexity.bestFit( SIZES, times( complexity, 10 ) ) );
+        }
+    }
+
+    @Test
+    public void testExcessGrowth() {
+        assertEquals( 0, Complexity.LINEAR.excessGrowth( SIZES, times( Complexity.LINEAR, 0 ) ), 0.001 );
+        assertEquals( 1, Complexity.CONSTANT.excessGrowth( SIZES, times( Complexity.LINEAR, 0 ) ), 0.001 );
+        assertTrue( Complexity.LOG_N.excessGrowth( SIZES, times( Complexity.LINEAR, 0 ) ) > 0.5 );
+        assertTrue( Complexity.LOG_N.excessGrowth( SIZES, times( Complexity.LOG_N, 50 ) ) < 0.5 );
+        assertTrue( Complexity.LINEAR.excessGrowth( SIZES, times( Complexity.CONSTANT, 0 ) ) < 0 );
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runners.model.Statement;
+import org.xenei.junit.contract.ContractContention;
+
+/**
+ * Test ContentionStatement
+ *
+ */
+public class ContentionStatementTest {
+
+    private final File dir = new File( "target/test-perf" );
+
+    @Before
+    public void setup() {
+        Assume.assumeTrue( ContentionStatement.isSupported() );
+        System.setProperty( PerformanceResults.DIRECTORY_PROPERTY, dir.getPath() );
+    }
+
+    @After
+    public void teardown() {
+        System.clearProperty( PerformanceResults.DIRECTORY_PROPERTY );
+    }
+
+    private static ContractContention budget(final String name) throws Exception {
+        return Budgets.class.getMethod( name ).getAnnotation( ContractContention.class );
+    }
+
+    // one thread holds a monitor while another blocks on it.
+    private static Statement contended() {
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                final Object monitor = new Object();
+                final CountDownLatch held = new CountDownLatch( 1 );
+                final Thread holder = new Thread( "holder" ) {
+                    @Override
+                    public void run() {
+                        synchronized (monitor) {
+                            held.countDown();
+                            try {
+                                Thread.sleep( 200 );
+                            } catch (final InterruptedException e) {
+                                // exit
+                            }
+                        }
+                    }
+                };
+                holder.start();
+                held.await();
+                final Thread blocked = new Thread( "blocked" ) {
+                    @Override
+                    public void run() {
+                        synchronized (monitor) {
+                            monitor.notifyAll();
+                        }
+                    }
+                };
+                blocked.start();
+                holder.join();
+                blocked.join();
+            }
+        };
+    }
+
+    @Test
+    public void testMeasured() throws Throwable {
+        final File file = PerformanceResults.getFile( dir, "measured", PerformanceResults.EXTENSION );
+        file.delete();
+        new ContentionStatement( contended(), null, "measured", "contract", "method" ).evaluate();
+
+        final List<Measurement> measurements = PerformanceResults.readFile( file );
+        assertEquals( 2, measurements.size() );
+        assertEquals( "blocked", measurements.get( 0 ).getMetric() );
+        assertEquals( "ms", measurements.get( 0 ).getUnit() );
+        assertTrue( measurements.get( 0 ).getMean() > 0 );
+        assertEquals( "waited", measurements.get( 1 ).getMetric() );
+    }
+
+    @Test
+    public void testBudget() throws Throwable {
+        new ContentionStatement( contended(), budget( "generous" ), "impl", "contract", "method" ).evaluate();
+        try {
+            new ContentionStatement( contended(), budget( "strict" ), "impl", "contract", "method" ).evaluate();
+            fail( "Should have thrown AssertionError" );
+        } catch (final AssertionError expected) {
+            final String message = expected.getMessage();
+            assertTrue( message, message.contains( "blocked time budget 10ms exceeded" ) );
+            assertTrue( message, message.contains( "java.lang.Object@" ) );
+            assertTrue( message, message.contains( "held by holder" ) );
+        }
+    }
+
+    @Test
+    public void testUncontended() throws Throwable {
+        new ContentionStatement( new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                Thread.sleep( 50 );
+            }
+        }, budget( "strict" ), "impl", "contract", "method" ).evaluate();
+    }
+
+    @Test
+    public void testIdleBackgroundThreads() throws Throwable {
+        final BlockingQueue<Object> queue = new LinkedBlockingQueue<Object>();
+        final CountDownLatch stop = new CountDownLatch( 1 );
+        final List<Thread> pollers = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            final Thread poller = new Thread( "poller " + i ) {
+                @Override
+                public void run() {
+                    try {
+                        while (stop.getCount() > 0) {
+                            queue.poll( 1, TimeUnit.MILLISECONDS );
+                        }
+                    } catch (final InterruptedException e) {
+                        // exit
+                    }
+                }
+            };
+            poller.setDaemon( true );
+            poller.start();
+            pollers.add( poller );
+        }
+        try {
+            // spins without taking locks while the pollers wait.
+            new ContentionStatement( new Statement() {
+                @Override
+                public void evaluate() {
+                    final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( 300 );
+                    while (System.nanoTime() < end) {
+                        // spin
+                    }
+                }
+            }, budget( "noWaiting" ), "impl", "contract", "method" ).evaluate();
+        } finally {
+            stop.countDown();
+            for (final Thread poller : pollers) {
+                poller.join();
+            }
+        }
+    }
+
+    /**
+     * Methods holding the budgets.
+     */
+    public static class Budgets {
+        @ContractContention(maxBlockedTime = 10)
+        public void strict() {
+        }
+
+        @ContractContention(maxBlockedTime = 10000)
+        public void generous() {
+        }
+
+        @ContractContention(maxWaitedTime = 50)
+        public void noWaiting() {
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Test LatencyHistogram
+ *
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100000; i++) {
+            histogram.record( i );
+        }
+        assertEquals( 100000, histogram.getCount() );
+        assertEquals( 1, histogram.getMin() );
+        assertEquals( 100000, histogram.getMax() );
+        assertEquals( 50000.5, histogram.getMean(), 0.001 );
+        assertEquals( 50000, histogram.getValueAtPercentile( 50 ), 500 );
+        assertEquals( 99000, histogram.getValueAtPercentile( 99 ), 990 );
+        assertEquals( 99900, histogram.getValueAtPercentile( 99.9 ), 999 );
+        assertEquals( 100000, histogram.getValueAtPercentile( 100 ) );
+    }
+
+    @Test
+    public void testSmallValuesExact() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 200; i++) {
+            histogram.record( i );
+        }
+        assertEquals( 99, histogram.getValueAtPercentile( 50 ) );
+        assertEquals( 0, histogram.getValueAtPercentile( 0 ) );
+        histogram.reset();
+        assertEquals( 0, histogram.getCount() );
+        assertEquals( 0, histogram.getValueAtPercentile( 50 ) );
+    }
+
+    @Test
+    public void testLargeValues() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record( Long.MAX_VALUE );
+        histogram.record( -5 );
+        assertEquals( 0, histogram.getMin() );
+        assertEquals( Long.MAX_VALUE, histogram.getValueAtPercentile( 100 ) );
+        assertEquals( 0, histogram.getValueAtPercentile( 50 ) );
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.xenei.junit.contract.ContractTest;
+import org.xenei.junit.contract.ContractTestRunner;
+
+/**
+ * Test LatencyRecorder
+ *
+ */
+public class LatencyRecorderTest {
+
+    @Test
+    public void testBudgets() throws Exception {
+        final File dir = new File( "target/test-perf" );
+        final File file = PerformanceResults.getFile( dir, Timed.class.getName(), PerformanceResults.EXTENSION );
+        file.delete();
+        System.setProperty( PerformanceResults.DIRECTORY_PROPERTY, dir.getPath() );
+        final Result result;
+        try {
+            result = new JUnitCore().run( Request.runner( new ContractTestRunner( Timed.class ) ) );
+        } finally {
+            System.clearProperty( PerformanceResults.DIRECTORY_PROPERTY );
+        }
+        assertEquals( 2, result.getRunCount() );
+        assertEquals( 1, result.getFailureCount() );
+        assertEquals( "testSlow", result.getFailures().get( 0 ).getDescription().getMethodName() );
+        assertTrue( result.getFailures().get( 0 ).getMessage().contains( "slow p99.0 2000000ns exceeds budget" ) );
+
+        final List<Measurement> measurements = PerformanceResults.readFile( file );
+        assertEquals( 3, measurements.size() );
+        final Measurement fast = measurements.get( 0 );
+        assertEquals( Timed.class.getName(), fast.getImplementation() );
+        assertEquals( "testFast", fast.getMethod() );
+        assertEquals( "latency:fast", fast.getMetric() );
+        assertEquals( 100, fast.getCount() );
+    }
+
+    /**
+     * A class with latency budgets.
+     */
+    public static class Timed {
+        @Rule
+        public LatencyRecorder latency = new LatencyRecorder().budget( "fast", 99, 1, TimeUnit.SECONDS )
+                .budget( "slow", 99, 1, TimeUnit.MILLISECONDS );
+
+        @ContractTest
+        public void testFast() {
+            latency.record( "fast", 10, 100, new Runnable() {
+                @Override
+                public void run() {
+                    Thread.yield();
+                }
+            } );
+        }
+
+        @ContractTest
+        public void testSlow() {
+            latency.record( "other", 1000 );
+            for (int i = 0; i < 10; i++) {
+                latency.record( "slow", TimeUnit.MILLISECONDS.toNanos( 2 ) );
+            }
+        }
+    }
+}
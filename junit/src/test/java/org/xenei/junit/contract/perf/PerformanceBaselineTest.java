@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test PerformanceBaseline
+ *
+ */
+public class PerformanceBaselineTest {
+
+    private static Measurement time(final String impl, final long count, final double mean, final double stdDev) {
+        return new Measurement( impl, "SetTest", "contains", "time", "ns/op", count, mean, stdDev, mean, mean, mean,
+                mean, mean, mean );
+    }
+
+    private static Measurement throughput(final double mean) {
+        return new Measurement( "Impl", "SetTest", "adds", "throughput[threads=1]", "ops/s", 1, mean, 0, mean, mean,
+                mean, mean, mean, mean );
+    }
+
+    @Test
+    public void testPValue() {
+        // variance of each mean 0.5 with 20 degrees of freedom.
+        final double stdDev = Math.sqrt( 5.5 );
+        final Measurement base = time( "Impl", 11, 100, stdDev );
+        assertEquals( 0.025, PerformanceBaseline.pValue( base, time( "Impl", 11, 102.086, stdDev ) ), 0.0005 );
+        assertEquals( 0.005, PerformanceBaseline.pValue( base, time( "Impl", 11, 102.845, stdDev ) ), 0.0005 );
+        assertEquals( 0.5, PerformanceBaseline.pValue( base, time( "Impl", 11, 100, stdDev ) ), 0.0001 );
+        assertEquals( 0.975, PerformanceBaseline.pValue( base, time( "Impl", 11, 97.914, stdDev ) ), 0.0005 );
+    }
+
+    @Test
+    public void testPValueNoVariance() {
+        assertEquals( 0.0, PerformanceBaseline.pValue( throughput( 100 ), throughput( 50 ) ), 0 );
+        assertEquals( 1.0, PerformanceBaseline.pValue( throughput( 100 ), throughput( 150 ) ), 0 );
+    }
+
+    @Test
+    public void testCompare() {
+        final PerformanceBaseline baseline = new PerformanceBaseline(
+                Arrays.asList( time( "Fast", 10, 100, 5 ), time( "Noisy", 10, 100, 100 ), throughput( 1000 ) ) );
+
+        final Measurement slower = time( "Fast", 10, 130, 5 );
+        final List<PerformanceBaseline.Regression> regressions = baseline.compare( Arrays.asList( slower,
+                // within the threshold
+                time( "Fast", 10, 105, 5 ),
+                // beyond the threshold but not significant
+                time( "Noisy", 10, 130, 100 ),
+                // not in the baseline
+                time( "New", 10, 1000, 5 ),
+                // throughput increased
+                throughput( 2000 ) ), 0.1, 0.05 );
+        assertEquals( 1, regressions.size() );
+        assertSame( slower, regressions.get( 0 ).getCurrent() );
+        assertEquals( 0.3, regressions.get( 0 ).getChange(), 0.0001 );
+        assertTrue( regressions.get( 0 ).getPValue() < 0.0001 );
+        assertFalse( regressions.get( 0 ).isAdvisory() );
+    }
+
+    @Test
+    public void testCompareSingleSample() {
+        final PerformanceBaseline baseline = new PerformanceBaseline( Arrays.asList( throughput( 1000 ),
+                time( "Fast", 10, 100, 5 ) ) );
+        // a single sample can not be tested for significance.
+        final List<PerformanceBaseline.Regression> regressions = baseline.compare( Arrays.asList( throughput( 800 ),
+                time( "Fast", 1, 130, 0 ) ), 0.1, 0.05 );
+        assertEquals( 2, regressions.size() );
+        for (final PerformanceBaseline.Regression regression : regressions) {
+            assertTrue( regression.toString(), regression.isAdvisory() );
+            assertTrue( Double.isNaN( regression.getPValue() ) );
+            assertTrue( regression.toString(), regression.toString().contains( "advisory" ) );
+        }
+        // within the threshold
+        assertTrue( baseline.compare( Collections.singleton( throughput( 950 ) ), 0.1, 0.05 ).isEmpty() );
+    }
+
+    @Test
+    public void testReadWrite() throws Exception {
+        final File file = new File( "target/test-perf/baseline.perf" );
+        file.delete();
+        assertTrue( PerformanceBaseline.read( file ).isEmpty() );
+
+        final Measurement fast = time( "Fast", 10, 100, 5 );
+        final PerformanceBaseline baseline = new PerformanceBaseline( Arrays.asList( fast, throughput( 1000 ) ) );
+        baseline.write( file );
+        PerformanceBaseline read = PerformanceBaseline.read( file );
+        assertEquals( 2, read.getMeasurements().size() );
+        assertEquals( fast.toString(), read.get( fast.getKey() ).toString() );
+
+        read.update( Arrays.asList( time( "Fast", 10, 90, 5 ), time( "Other", 10, 90, 5 ) ) );
+        read.write( file );
+        read = PerformanceBaseline.read( file );
+        assertEquals( 3, read.getMeasurements().size() );
+        assertEquals( 90, read.get( fast.getKey() ).getMean(), 0 );
+        assertNull( read.get( "missing" ) );
+    }
+
+    @Test
+    public void testReadUnsupportedVersion() throws Exception {
+        final File file = new File( "target/test-perf/future.perf" );
+        file.getParentFile().mkdirs();
+        final FileWriter writer = new FileWriter( file );
+        writer.write( PerformanceBaseline.HEADER + (PerformanceBaseline.VERSION + 1) + "\n" );
+        writer.close();
+        try {
+            PerformanceBaseline.read( file );
+            fail( "Should have thrown IllegalArgumentException" );
+        } catch (final IllegalArgumentException expected) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test PerformanceResults
+ *
+ */
+public class PerformanceResultsTest {
+
+    private final File dir = new File( "target/test-perf-results" );
+
+    @After
+    public void teardown() {
+        System.clearProperty( PerformanceResults.DIRECTORY_PROPERTY );
+    }
+
+    @Test
+    public void testRecordAndClear() throws IOException {
+        PerformanceResults.clear( dir );
+        System.setProperty( PerformanceResults.DIRECTORY_PROPERTY, dir.getPath() );
+        final Measurement first = Measurement.create( "impl", "contract", "first", "time", "ns/op",
+                new double[] { 1, 2 } );
+        PerformanceResults.record( first );
+        PerformanceResults.record( Measurement.create( "impl", "contract", "second", "time", "ns/op",
+                new double[] { 3 } ) );
+        PerformanceResults.record( Measurement.create( "other", "contract", "first", "time", "ns/op",
+                new double[] { 4 } ) );
+
+        // the results of this JVM are in its own file for each implementation.
+        final File file = PerformanceResults.getFile( dir, "impl", PerformanceResults.EXTENSION );
+        assertTrue( file.getName(), file.getName().startsWith( "impl." ) );
+        assertEquals( 2, PerformanceResults.readFile( file ).size() );
+        assertEquals( first.toString(), PerformanceResults.readFile( file ).get( 0 ).toString() );
+        assertEquals( 3, PerformanceResults.read( dir ).size() );
+
+        // a results file from another JVM is read and cleared.
+        final File other = new File( dir, "impl.other" + PerformanceResults.EXTENSION );
+        assertTrue( file.renameTo( other ) );
+        assertEquals( 3, PerformanceResults.read( dir ).size() );
+        assertEquals( 2, PerformanceResults.clear( dir ) );
+        assertFalse( other.exists() );
+        assertTrue( PerformanceResults.read( dir ).isEmpty() );
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.xenei.junit.contract.ContractScaling;
+import org.xenei.junit.contract.ContractTestRunner;
+
+/**
+ * Test ScalingStatement and OperationMix
+ *
+ */
+public class ScalingStatementTest {
+
+    @Test
+    public void testOperationMix() {
+        final OperationMix mix = new OperationMix().add( "a", 90, new Counter() ).add( "b", 10, new Counter() );
+        final OperationMix.Selector selector = mix.selector( 42 );
+        final int[] chosen = new int[2];
+        for (int i = 0; i < 100000; i++) {
+            chosen[selector.next()]++;
+        }
+        assertEquals( 90000, chosen[0], 1000 );
+        assertEquals( 10000, chosen[1], 1000 );
+        assertEquals( "b", mix.getName( 1 ) );
+    }
+
+    @Test
+    public void testScaling() throws Exception {
+        final File dir = new File( "target/test-perf" );
+        final File file = PerformanceResults.getFile( dir, Shared.class.getName(), PerformanceResults.EXTENSION );
+        file.delete();
+
+        Result result = new JUnitCore().run( Request.runner( new ContractTestRunner( Shared.class ) ) );
+        assertEquals( 1, result.getIgnoreCount() );
+
+        System.setProperty( BenchmarkStatement.ENABLE_PROPERTY, "true" );
+        System.setProperty( PerformanceResults.DIRECTORY_PROPERTY, dir.getPath() );
+        try {
+            result = new JUnitCore().run( Request.runner( new ContractTestRunner( Shared.class ) ) );
+        } finally {
+            System.clearProperty( BenchmarkStatement.ENABLE_PROPERTY );
+            System.clearProperty( PerformanceResults.DIRECTORY_PROPERTY );
+        }
+        assertTrue( result.getFailures().toString(), result.wasSuccessful() );
+
+        final List<Measurement> measurements = PerformanceResults.readFile( file );
+        final int levels = Math.min( 2, Runtime.getRuntime().availableProcessors() );
+        assertEquals( levels, measurements.size() );
+        assertEquals( "throughput[threads=1]", measurements.get( 0 ).getMetric() );
+        assertEquals( "ops/s", measurements.get( 0 ).getUnit() );
+        assertTrue( measurements.get( 0 ).getMean() > 0 );
+    }
+
+    private static class Counter implements Runnable {
+        private final AtomicLong count = new AtomicLong();
+
+        @Override
+        public void run() {
+            count.incrementAndGet();
+        }
+    }
+
+    /**
+     * A class with a scaling test.
+     */
+    public static class Shared {
+        @ContractScaling(threads = { 1, 2 }, warmupTime = 10, measurementTime = 50, minEfficiency = 0.1)
+        public OperationMix increments() {
+            final Counter counter = new Counter();
+            return new OperationMix().add( "increment", 1, counter );
+        }
+    }
+}
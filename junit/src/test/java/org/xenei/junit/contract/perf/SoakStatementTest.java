@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.model.Statement;
+
+/**
+ * Test SoakStatement
+ *
+ */
+public class SoakStatementTest {
+
+    private final CountDownLatch stop = new CountDownLatch( 1 );
+
+    @Before
+    public void setup() {
+        System.setProperty( SoakStatement.ITERATIONS_PROPERTY, "3" );
+        System.setProperty( PerformanceResults.DIRECTORY_PROPERTY, "target/test-perf" );
+    }
+
+    @After
+    public void teardown() {
+        stop.countDown();
+        System.clearProperty( SoakStatement.ITERATIONS_PROPERTY );
+        System.clearProperty( PerformanceResults.DIRECTORY_PROPERTY );
+    }
+
+    @Test
+    public void testIterations() throws Throwable {
+        final int[] runs = new int[1];
+        new SoakStatement( iteration( new Statement() {
+            @Override
+            public void evaluate() {
+                runs[0]++;
+            }
+        } ), new RunNotifier(), "Impl", "Suite" ).evaluate();
+        assertEquals( 3, runs[0] );
+    }
+
+    @Test
+    public void testReportedOnce() throws Throwable {
+        final Description test = Description.createTestDescription( "Suite", "test" );
+        final List<String> events = new ArrayList<String>();
+        final RunNotifier notifier = new RunNotifier();
+        notifier.addListener( new RunListener() {
+            @Override
+            public void testStarted(final Description description) {
+                events.add( "started" );
+            }
+
+            @Override
+            public void testFailure(final Failure failure) {
+                events.add( "failed" );
+            }
+        } );
+        final int[] runs = new int[1];
+        final SoakStatement soak = new SoakStatement( new SoakStatement.Iteration() {
+            @Override
+            public Statement create(final RunNotifier iterationNotifier) {
+                return new Statement() {
+                    @Override
+                    public void evaluate() {
+                        runs[0]++;
+                        iterationNotifier.fireTestStarted( test );
+                        if (runs[0] == 2) {
+                            iterationNotifier.fireTestFailure( new Failure( test, new AssertionError( "broken" ) ) );
+                        }
+                        iterationNotifier.fireTestFinished( test );
+                    }
+                };
+            }
+        }, notifier, "Impl", "Suite" );
+        try {
+            soak.evaluate();
+            fail( "Should have thrown AssertionError" );
+        } catch (final AssertionError expected) {
+            assertTrue( expected.getMessage(), expected.getMessage().contains( "soak iteration 2" ) );
+            assertTrue( expected.getMessage(), expected.getMessage().contains( "test(Suite): broken" ) );
+        }
+        assertEquals( 2, runs[0] );
+        assertEquals( Arrays.asList( "started" ), events );
+    }
+
+    @Test
+    public void testLeakedThreads() throws Throwable {
+        final Statement leaky = new Statement() {
+            @Override
+            public void evaluate() {
+                final Thread thread = new Thread( "leaked" ) {
+                    @Override
+                    public void run() {
+                        try {
+                            stop.await();
+                        } catch (final InterruptedException e) {
+                            // exit
+                        }
+                    }
+                };
+                thread.setDaemon( true );
+                thread.start();
+            }
+        };
+        try {
+            new SoakStatement( iteration( leaky ), new RunNotifier(), "Impl", "Suite" ).evaluate();
+            fail( "Should have thrown AssertionError" );
+        } catch (final AssertionError expected) {
+            assertTrue( expected.getMessage(), expected.getMessage().contains( "2 threads" ) );
+            assertTrue( expected.getMessage(), expected.getMessage().contains( "leaked#" ) );
+        }
+    }
+
+    private static SoakStatement.Iteration iteration(final Statement statement) {
+        return new SoakStatement.Iteration() {
+            @Override
+            public Statement create(final RunNotifier notifier) {
+                return statement;
+            }
+        };
+    }
+
+    @Test
+    public void testHeapGrowth() {
+        final List<SoakStatement.Sample> samples = new ArrayList<SoakStatement.Sample>( Arrays.asList(
+                new SoakStatement.Sample( 5000 ), new SoakStatement.Sample( 1000 ),
+                new SoakStatement.Sample( 1100 ), new SoakStatement.Sample( 1200 ) ) );
+        // the first iteration is excluded.
+        assertEquals( 100, SoakStatement.heapGrowth( samples ), 0.001 );
+        assertEquals( -4000, SoakStatement.heapGrowth( samples.subList( 0, 2 ) ), 0.001 );
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.perf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.Statement;
+import org.junit.runners.model.TestClass;
+
+/**
+ * Test TestFixture
+ *
+ */
+public class TestFixtureTest {
+
+    private static final List<String> calls = new ArrayList<String>();
+
+    private static TestFixture fixture(final Class<?> type) throws Exception {
+        final TestClass testClass = new TestClass( type );
+        final FrameworkMethod method = new FrameworkMethod( type.getMethod( "measured" ) );
+        return new TestFixture( testClass, method, Description.createTestDescription( type, "measured" ),
+                new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        return testClass.getOnlyConstructor().newInstance();
+                    }
+                } );
+    }
+
+    @Test
+    public void testOrder() throws Throwable {
+        calls.clear();
+        final Object result = fixture( Fixtures.class ).run( new TestFixture.Body<Object>() {
+            @Override
+            public Object run(final Object test) throws Throwable {
+                calls.add( "body" );
+                return test;
+            }
+        } );
+        assertSame( Fixtures.class, result.getClass() );
+        assertEquals( Arrays.asList( "rule start", "before", "body", "after", "rule end" ), calls );
+    }
+
+    @Test
+    public void testAfterOnFailure() throws Throwable {
+        calls.clear();
+        final IllegalStateException error = new IllegalStateException( "body" );
+        try {
+            fixture( Fixtures.class ).run( new TestFixture.Body<Object>() {
+                @Override
+                public Object run(final Object test) throws Throwable {
+                    throw error;
+                }
+            } );
+            fail( "Should have thrown IllegalStateException" );
+        } catch (final IllegalStateException expected) {
+            assertSame( error, expected );
+        }
+        assertEquals( Arrays.asList( "rule start", "before", "after", "rule end" ), calls );
+    }
+
+    @Test
+    public void testRuleSkips() throws Throwable {
+        try {
+            fixture( Skipping.class ).run( new TestFixture.Body<Object>() {
+                @Override
+                public Object run(final Object test) throws Throwable {
+                    return test;
+                }
+            } );
+            fail( "Should have thrown IllegalStateException" );
+        } catch (final IllegalStateException expected) {
+            // the body did not run.
+        }
+    }
+
+    public static class Fixtures {
+        @Rule
+        public final TestRule rule = new TestRule() {
+            @Override
+            public Statement apply(final Statement base, final Description description) {
+                return new Statement() {
+                    @Override
+                    public void evaluate() throws Throwable {
+                        calls.add( "rule start" );
+                        try {
+                            base.evaluate();
+                        } finally {
+                            calls.add( "rule end" );
+                        }
+                    }
+                };
+            }
+        };
+
+        @Before
+        public void before() {
+            calls.add( "before" );
+        }
+
+        @After
+        public void after() {
+            calls.add( "after" );
+        }
+
+        public void measured() {
+        }
+    }
+
+    public static class Skipping {
+        @Rule
+        public final TestRule rule = new TestRule() {
+            @Override
+            public Statement apply(final Statement base, final Description description) {
+                return new Statement() {
+                    @Override
+                    public void evaluate() {
+                    }
+                };
+            }
+        };
+
+        public void measured() {
+        }
+    }
+}
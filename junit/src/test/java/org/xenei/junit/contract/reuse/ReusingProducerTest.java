@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.reuse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.xenei.junit.contract.IProducer;
+import org.xenei.junit.contract.IResettableProducer;
+import org.xenei.junit.contract.ProducerProxy;
+
+/**
+ * Test ReusingProducer
+ *
+ */
+public class ReusingProducerTest {
+
+    private final Resettable producer = new Resettable();
+    private final ReusingProducer handler = new ReusingProducer( producer );
+    @SuppressWarnings("unchecked")
+    private final IProducer<List<String>> proxy = (IProducer<List<String>>) ProducerProxy.wrap( handler,
+            IProducer.class );
+
+    @After
+    public void teardown() {
+        System.clearProperty( ReusingProducer.ENABLE_PROPERTY );
+    }
+
+    /**
+     * Test that instances are reset and reused after cleanUp.
+     * 
+     * @throws Throwable
+     *             on error
+     */
+    @Test
+    public void testReuse() throws Throwable {
+        final List<String> first = proxy.newInstance();
+        first.add( "x" );
+        final List<String> second = proxy.newInstance();
+        assertNotSame( first, second );
+        proxy.cleanUp();
+        assertEquals( 0, producer.cleanUps );
+        assertTrue( first.isEmpty() );
+
+        assertSame( first, proxy.newInstance() );
+        assertSame( second, proxy.newInstance() );
+        assertNotSame( first, proxy.newInstance() );
+        assertEquals( 3, handler.getCreated() );
+        assertEquals( 2, handler.getReused() );
+
+        proxy.cleanUp();
+        handler.release();
+        assertEquals( 1, producer.cleanUps );
+        // nothing left to release.
+        handler.release();
+        assertEquals( 1, producer.cleanUps );
+    }
+
+    /**
+     * Test that the producer cleans up when an instance can not be reset.
+     * 
+     * @throws Throwable
+     *             on error
+     */
+    @Test
+    public void testResetFailure() throws Throwable {
+        final List<String> first = proxy.newInstance();
+        producer.resettable = false;
+        proxy.cleanUp();
+        assertEquals( 1, producer.cleanUps );
+        assertNotSame( first, proxy.newInstance() );
+        assertEquals( 0, handler.getReused() );
+    }
+
+    /**
+     * Test that reuse is enabled for resettable producers unless turned off.
+     */
+    @Test
+    public void testIsReusable() {
+        assertTrue( ReusingProducer.isReusable( producer ) );
+        assertFalse( ReusingProducer.isReusable( new Object() ) );
+        System.setProperty( ReusingProducer.ENABLE_PROPERTY, "false" );
+        assertFalse( ReusingProducer.isReusable( producer ) );
+    }
+
+    /**
+     * A producer of lists that are reset by clearing them.
+     */
+    public static class Resettable implements IResettableProducer<List<String>> {
+        int cleanUps;
+        boolean resettable = true;
+
+        @Override
+        public List<String> newInstance() {
+            return new ArrayList<String>();
+        }
+
+        @Override
+        public void cleanUp() {
+            cleanUps++;
+        }
+
+        @Override
+        public boolean reset(final List<String> instance) {
+            instance.clear();
+            return resettable;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.reuse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import org.junit.Test;
+import org.xenei.junit.contract.IProducer;
+import org.xenei.junit.contract.ProducerProxy;
+
+/**
+ * Test SnapshotProducer and SerializedSnapshotProducer
+ *
+ */
+public class SnapshotProducerTest {
+
+    private final Populated producer = new Populated();
+    private final SnapshotProducer handler = new SnapshotProducer( producer );
+    @SuppressWarnings("unchecked")
+    private final IProducer<ArrayList<Integer>> proxy = (IProducer<ArrayList<Integer>>) ProducerProxy.wrap( handler,
+            IProducer.class );
+
+    /**
+     * Test that the fixture is built once and each instance is an independent
+     * copy of it.
+     * 
+     * @throws Throwable
+     *             on error
+     */
+    @Test
+    public void testRestore() throws Throwable {
+        final ArrayList<Integer> first = proxy.newInstance();
+        assertEquals( 1000, first.size() );
+        first.clear();
+        final ArrayList<Integer> second = proxy.newInstance();
+        assertNotSame( first, second );
+        assertEquals( 1000, second.size() );
+        assertEquals( Integer.valueOf( 999 ), second.get( 999 ) );
+        proxy.cleanUp();
+        assertEquals( 1, producer.built );
+        assertEquals( 2, handler.getRestored() );
+
+        handler.release();
+        assertTrue( producer.discarded );
+        // a new snapshot is taken after release.
+        assertEquals( 1000, proxy.newInstance().size() );
+        assertEquals( 2, producer.built );
+    }
+
+    /**
+     * Test that snapshots are only recognized for snapshot producers.
+     */
+    @Test
+    public void testIsSnapshot() {
+        assertTrue( SnapshotProducer.isSnapshot( producer ) );
+        assertFalse( SnapshotProducer.isSnapshot( new ReusingProducerTest.Resettable() ) );
+        assertFalse( SnapshotProducer.isSnapshot( null ) );
+    }
+
+    /**
+     * A producer of lists with many entries.
+     */
+    public static class Populated extends SerializedSnapshotProducer<ArrayList<Integer>> {
+        int built;
+        boolean discarded;
+
+        @Override
+        public ArrayList<Integer> newInstance() {
+            built++;
+            final ArrayList<Integer> result = new ArrayList<Integer>();
+            for (int i = 0; i < 1000; i++) {
+                result.add( i );
+            }
+            return result;
+        }
+
+        @Override
+        public void discard(final ByteBuffer snapshot) {
+            discarded = true;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.xenei.junit.contract.stress;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.xenei.junit.contract.ContractStress;
+import org.xenei.junit.contract.ContractTestRunner;
+import org.xenei.junit.contract.perf.BenchmarkStatement;
+
+/**
+ * Test StressStatement and LinearizabilityChecker
+ *
+ */
+public class StressStatementTest {
+
+    private static StressTest<Counter, Counter> counterTest(final Counter counter) {
+        return new StressTest<Counter, Counter>( counter, new CounterModel() ).add( "increment", 3,
+                new Increment() ).add( "get", 1, new Get() );
+    }
+
+    @Test
+    public void testChecker() {
+        final StressTest<Counter, Counter> stress = counterTest( new Counter() );
+        final LinearizabilityChecker<Counter, Counter> checker = new LinearizabilityChecker<Counter, Counter>(
+                stress, 10 );
+        final Set<Counter> initial = Collections.singleton( new Counter() );
+
+        // overlapping increments may complete in either order.
+        Set<Counter> states = checker.check( Arrays.asList( new Event( 0, 0, "increment", null, 2L, 0, 10 ),
+                new Event( 1, 0, "increment", null, 1L, 1, 11 ) ), initial );
+        assertEquals( 1, states.size() );
+        assertEquals( 2, states.iterator().next().value );
+
+        // both increments returned 1, a lost update.
+        states = checker.check( Arrays.asList( new Event( 0, 0, "increment", null, 1L, 0, 10 ),
+                new Event( 1, 0, "increment", null, 1L, 1, 11 ) ), initial );
+        assertTrue( states.isEmpty() );
+
+        // the get completed before the increment started so must see 0.
+        states = checker.check( Arrays.asList( new Event( 0, 1, "get", null, 1L, 0, 5 ),
+                new Event( 1, 0, "increment", null, 1L, 6, 11 ) ), initial );
+        assertTrue( states.isEmpty() );
+    }
+
+    @Test
+    public void testCheckerLimit() {
+        final LinearizabilityChecker<Counter, Counter> checker = new LinearizabilityChecker<Counter, Counter>(
+                counterTest( new Counter() ), 2 );
+        final Set<Counter> initial = new LinkedHashSet<Counter>();
+        for (int i = 0; i < 3; i++) {
+            final Counter counter = new Counter();
+            counter.value = i;
+            initial.add( counter );
+        }
+        // every state is reachable but the search stops at the limit.
+        assertEquals( 2, checker.check( Collections.<Event> emptyList(), initial ).size() );
+    }
+
+    @Test
+    public void testStress() throws Exception {
+        final Result result;
+        System.setProperty( BenchmarkStatement.ENABLE_PROPERTY, "true" );
+        try {
+            result = new JUnitCore().run( Request.runner( new ContractTestRunner( Stressed.class ) ) );
+        } finally {
+            System.clearProperty( BenchmarkStatement.ENABLE_PROPERTY );
+        }
+        assertEquals( 2, result.getRunCount() );
+        assertEquals( 1, result.getFailureCount() );
+        assertEquals( "racy", result.getFailures().get( 0 ).getDescription().getMethodName() );
+        assertTrue( result.getFailures().get( 0 ).getMessage().contains( "is not linearizable" ) );
+    }
+
+    /**
+     * Test that the stress method fails, rather than waiting for the failed
+     * thread forever, when an operation throws an Error while the other
+     * threads are still working.
+     * 
+     * @throws Exception
+     *             on error
+     */
+    @Test(timeout = 20000)
+    public void testOperationError() throws Exception {
+        final Result result;
+        System.setProperty( BenchmarkStatement.ENABLE_PROPERTY, "true" );
+        try {
+            result = new JUnitCore().run( Request.runner( new ContractTestRunner( Throwing.class ) ) );
+        } finally {
+            System.clearProperty( BenchmarkStatement.ENABLE_PROPERTY );
+        }
+        assertEquals( 1, result.getRunCount() );
+        assertEquals( 1, result.getFailureCount() );
+        assertEquals( "operation failed", result.getFailures().get( 0 ).getMessage() );
+    }
+
+    /**
+     * A counter used as the object under test and as the model.
+     */
+    public static class Counter {
+        long value;
+
+        public synchronized long increment() {
+            return ++value;
+        }
+
+        public long racyIncrement() {
+            final long read = value;
+            Thread.yield();
+            value = read + 1;
+            return value;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Counter && ((Counter) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) value;
+        }
+
+        @Override
+        public String toString() {
+            return "Counter=" + value;
+        }
+    }
+
+    private static class CounterModel implements Model<Counter> {
+        @Override
+        public Counter initial() {
+            return new Counter();
+        }
+
+        @Override
+        public Counter copy(final Counter state) {
+            final Counter result = new Counter();
+            result.value = state.value;
+            return result;
+        }
+    }
+
+    private static class Increment implements Operation<Counter, Counter> {
+        @Override
+        public Object argument(final Random random) {
+            return null;
+        }
+
+        @Override
+        public Object invoke(final Counter target, final Object argument) {
+            return target.increment();
+        }
+
+        @Override
+        public Object apply(final Counter model, final Object argument) {
+            return model.increment();
+        }
+    }
+
+    private static class RacyIncrement extends Increment {
+        @Override
+        public Object invoke(final Counter target, final Object argument) {
+            return target.racyIncrement();
+        }
+    }
+
+    // fails on the first thread while the others are busy.
+    private static class ThrowingIncrement extends Increment {
+        @Override
+        public Object invoke(final Counter target, final Object argument) {
+            if (Thread.currentThread().getName().endsWith( "-0" )) {
+                throw new AssertionError( "operation failed" );
+            }
+            final long end = System.nanoTime() + 50000000L;
+            while (System.nanoTime() < end) {
+                // ignores interrupts.
+            }
+            return target.increment();
+        }
+    }
+
+    private static class Get implements Operation<Counter, Counter> {
+        @Override
+        public Object argument(final Random random) {
+            return null;
+        }
+
+        @Override
+        public Object invoke(final Counter target, final Object argument) {
+            synchronized (target) {
+                return target.value;
+            }
+        }
+
+        @Override
+        public Object apply(final Counter model, final Object argument) {
+            return model.value;
+        }
+    }
+
+    /**
+     * A class with stress tests.
+     */
+    public static class Stressed {
+        @ContractStress(threads = 3, duration = 200, operationsPerRound = 3)
+        public StressTest<Counter, Counter> safe() {
+            return counterTest( new Counter() );
+        }
+
+        @ContractStress(threads = 3, duration = 2000, operationsPerRound = 3)
+        public StressTest<Counter, Counter> racy() {
+            return new StressTest<Counter, Counter>( new Counter(), new CounterModel() ).add( "increment", 1,
+                    new RacyIncrement() );
+        }
+    }
+
+    /**
+     * A class with a stress test whose operation throws.
+     */
+    public static class Throwing {
+        @ContractStress(threads = 3, duration = 2000, operationsPerRound = 3)
+        public StressTest<Counter, Counter> throwing() {
+            return new StressTest<Counter, Counter>( new Counter(), new CounterModel() ).add( "increment", 1,
+                    new ThrowingIncrement() );
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package org.xenei.contracts.maven;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.annotation.Annotation;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.StringUtils;
+
+/**
+ * Generate an application class data sharing (AppCDS) archive for the contract
+ * test JVMs.
+ * <p>
+ * Runs a training invocation of the contract suites in a forked JVM with
+ * <code>-XX:ArchiveClassesAtExit</code> so that the framework, JUnit, class
+ * path scanner and contract test classes are archived, then adds
+ * <code>-XX:SharedArchiveFile</code> to the property surefire uses for the
+ * arguments of its forked JVMs. Requires a JDK that supports dynamic archives
+ * (13 or later); on older JDKs a warning is logged and the property is left
+ * unchanged.
+ * </p>
+ * <p>
+ * The JVM will not archive classes loaded from directories, and the archive is
+ * only used when the class path of the forked JVM starts with the class path
+ * used to create it. The classes and test classes directories are therefore
+ * packaged as jars and the paths of the jars are set in the
+ * <code>contracts.cds.classes</code> and <code>contracts.cds.testClasses</code>
+ * properties for use as the surefire <code>classesDirectory</code> and
+ * <code>testClassesDirectory</code>.
+ * </p>
+ * <p>
+ * Surefire must also be configured with <code>useManifestOnlyJar</code> set to
+ * false. By default it starts the forked JVM with a single manifest-only jar
+ * on the class path, which does not match the training class path, and the
+ * JVM then silently runs without the archive.
+ * </p>
+ * <p>
+ * The archive is recreated when a file on the class path is newer than it or
+ * when the training class list, class path or JVM changes. A hash of the
+ * latter is kept next to the archive.
+ * </p>
+ */
+@Mojo(name = "cds-archive", defaultPhase = LifecyclePhase.PROCESS_TEST_CLASSES, requiresDependencyResolution = ResolutionScope.TEST)
+public class CdsArchiveMojo extends AbstractMojo {
+
+    private static final String CONTRACT_IMPL = "org.xenei.junit.contract.ContractImpl";
+
+    /**
+     * The test classes to run in the training invocation. If not set all
+     * classes in the test output directory that are annotated with
+     * ContractImpl are run.
+     */
+    @Parameter
+    private String[] trainingClasses;
+
+    /**
+     * The archive file to create. The class directory jars are created in the
+     * same directory.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/cds/contract-tests.jsa")
+    private File archiveFile;
+
+    /**
+     * The project property to add the <code>-XX:SharedArchiveFile</code>
+     * argument to. Surefire and failsafe use <code>argLine</code>.
+     */
+    @Parameter(defaultValue = "argLine")
+    private String propertyName;
+
+    /**
+     * The java executable used for the training invocation. Should be the same
+     * JVM that surefire forks.
+     */
+    @Parameter(defaultValue = "${java.home}/bin/java")
+    private String jvm;
+
+    /**
+     * If true the goal is skipped.
+     */
+    @Parameter(property = "contracts.cds.skip", defaultValue = "false")
+    private boolean skip;
+
+    @Parameter(defaultValue = "${project.build.outputDirectory}", readonly = true)
+    private File classDir;
+
+    @Parameter(defaultValue = "${project.build.testOutputDirectory}", readonly = true)
+    private File testDir;
+
+    @Component
+    private MavenProject project;
+
+    public CdsArchiveMojo() {
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Skipping CDS archive generation");
+            return;
+        }
+
+        final List<String> classpath;
+        try {
+            classpath = project.getTestClasspathElements();
+        } catch (final DependencyResolutionRequiredException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+
+        final File cdsDir = archiveFile.getParentFile();
+        final File classJar = new File(cdsDir, "classes.jar");
+        final File testJar = new File(cdsDir, "test-classes.jar");
+        final List<String> trainingPath = new ArrayList<String>();
+        for (final String elt : classpath) {
+            final File file = new File(elt);
+            if (file.equals(classDir)) {
+                trainingPath.add(classJar.getAbsolutePath());
+            } else if (file.equals(testDir)) {
+                trainingPath.add(testJar.getAbsolutePath());
+            } else if (file.isDirectory() && file.list().length > 0) {
+                getLog().warn(String.format("Class path directory %s can not be archived, CDS archive not created",
+                        file));
+                return;
+            } else {
+                trainingPath.add(elt);
+            }
+        }
+
+        final File keyFile = new File(cdsDir, archiveFile.getName() + ".key");
+        final String key = trainingKey(trainingPath);
+        if (isUpToDate(classpath, keyFile, key, classJar, testJar)) {
+            getLog().info("CDS archive is up to date: " + archiveFile);
+        } else {
+            final List<String> classes = trainingClasses == null || trainingClasses.length == 0 ? findSuites(classpath)
+                    : Arrays.asList(trainingClasses);
+            if (classes.isEmpty()) {
+                getLog().info("No contract suites found, CDS archive not created");
+                return;
+            }
+            cdsDir.mkdirs();
+            createJar(classDir, classJar);
+            createJar(testDir, testJar);
+            if (!train(trainingPath, classes)) {
+                return;
+            }
+            writeKey(keyFile, key);
+        }
+        addArgument();
+        project.getProperties().setProperty("contracts.cds.classes", classJar.getAbsolutePath());
+        project.getProperties().setProperty("contracts.cds.testClasses", testJar.getAbsolutePath());
+    }
+
+    /**
+     * Determine if the archive was created with the same training
+     * configuration and the archive and jars are newer than every file on the
+     * class path.
+     *
+     * @param classpath
+     *            the class path elements.
+     * @param keyFile
+     *            the file the key of the archive was written to.
+     * @param key
+     *            the key of the current training configuration.
+     * @param jars
+     *            the jars created from the class directories.
+     * @return true if the archive does not need to be created.
+     */
+    private boolean isUpToDate(final List<String> classpath, final File keyFile, final String key,
+            final File... jars) {
+        if (!archiveFile.exists() || !keyFile.exists()) {
+            return false;
+        }
+        try {
+            if (!key.equals(FileUtils.readFileToString(keyFile, "UTF-8").trim())) {
+                getLog().info("CDS training classes, class path or JVM changed");
+                return false;
+            }
+        } catch (final IOException e) {
+            getLog().debug("Unable to read " + keyFile, e);
+            return false;
+        }
+        for (final File jar : jars) {
+            if (!jar.exists()) {
+                return false;
+            }
+        }
+        final long archived = archiveFile.lastModified();
+        for (final String elt : classpath) {
+            if (newest(new File(elt)) > archived) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Create the key of the training configuration: a hash of the configured
+     * training classes, the training class path and the JVM. Discovered
+     * suites are covered by the time stamps of the test classes.
+     *
+     * @param trainingPath
+     *            the training class path.
+     * @return the hex encoded hash.
+     * @throws MojoExecutionException
+     *             if SHA-1 is not available.
+     */
+    private String trainingKey(final List<String> trainingPath) throws MojoExecutionException {
+        final StringBuilder sb = new StringBuilder(jvm).append('\n');
+        if (trainingClasses != null) {
+            for (final String name : trainingClasses) {
+                sb.append("class ").append(name).append('\n');
+            }
+        }
+        for (final String elt : trainingPath) {
+            sb.append("path ").append(elt).append('\n');
+        }
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-1")
+                    .digest(sb.toString().getBytes(Charset.forName("UTF-8")));
+            final StringBuilder hex = new StringBuilder();
+            for (final byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+
+    private void writeKey(final File keyFile, final String key) throws MojoExecutionException {
+        try {
+            FileUtils.writeStringToFile(keyFile, key, "UTF-8");
+        } catch (final IOException e) {
+            throw new MojoExecutionException("Unable to write " + keyFile, e);
+        }
+    }
+
+    private long newest(final File file) {
+        long result = file.lastModified();
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                result = Math.max(result, newest(child));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find the classes in the test directory that are annotated with
+     * ContractImpl.
+     *
+     * @param classpath
+     *            the class path elements.
+     * @return the list of class names.
+     * @throws MojoExecutionException
+     *             on error.
+     */
+    private List<String> findSuites(final List<String> classpath) throws MojoExecutionException {
+        final List<String> names = new ArrayList<String>();
+        findClassNames(names, testDir, "");
+
+        final List<String> result = new ArrayList<String>();
+        final URL[] urls = new URL[classpath.size()];
+        try {
+            for (int i = 0; i < urls.length; i++) {
+                urls[i] = new File(classpath.get(i)).toURI().toURL();
+            }
+        } catch (final MalformedURLException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+        final URLClassLoader loader = new URLClassLoader(urls, ClassLoader.getSystemClassLoader().getParent());
+        try {
+            for (final String name : names) {
+                try {
+                    for (final Annotation annotation : Class.forName(name, false, loader).getAnnotations()) {
+                        if (CONTRACT_IMPL.equals(annotation.annotationType().getName())) {
+                            result.add(name);
+                        }
+                    }
+                } catch (final ClassNotFoundException e) {
+                    getLog().debug("Unable to load " + name, e);
+                } catch (final LinkageError e) {
+                    getLog().debug("Unable to load " + name, e);
+                }
+            }
+        } finally {
+            IOUtils.closeQuietly(loader);
+        }
+        return result;
+    }
+
+    private void findClassNames(final List<String> names, final File dir, final String prefix) {
+        final File[] children = dir.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                final String name = child.getName();
+                if (child.isDirectory()) {
+                    findClassNames(names, child, prefix + name + ".");
+                } else if (name.endsWith(".class") && !name.contains("$")) {
+                    names.add(prefix + name.substring(0, name.length() - ".class".length()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Package the contents of a directory as a jar.
+     *
+     * @param dir
+     *            the directory to package.
+     * @param jar
+     *            the jar to create.
+     * @throws MojoExecutionException
+     *             if the jar can not be written.
+     */
+    private void createJar(final File dir, final File jar) throws MojoExecutionException {
+        JarOutputStream out = null;
+        try {
+            out = new JarOutputStream(new FileOutputStream(jar));
+            addEntries(out, dir, "");
+        } catch (final IOException e) {
+            throw new MojoExecutionException("Unable to create " + jar, e);
+        } finally {
+            IOUtils.closeQuietly(out);
+        }
+    }
+
+    private void addEntries(final JarOutputStream out, final File dir, final String prefix) throws IOException {
+        final File[] children = dir.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                if (child.isDirectory()) {
+                    final String name = prefix + child.getName() + "/";
+                    out.putNextEntry(new JarEntry(name));
+                    out.closeEntry();
+                    addEntries(out, child, name);
+                } else {
+                    out.putNextEntry(new JarEntry(prefix + child.getName()));
+                    FileUtils.copyFile(child, out);
+                    out.closeEntry();
+                }
+            }
+        }
+    }
+
+    /**
+     * Run the training invocation.
+     *
+     * @param classpath
+     *            the class path elements.
+     * @param classes
+     *            the test classes to run.
+     * @return true if the archive was created.
+     * @throws MojoExecutionException
+     *             if the JVM can not be run.
+     */
+    private boolean train(final List<String> classpath, final List<String> classes) throws MojoExecutionException {
+        archiveFile.delete();
+
+        final List<String> command = new ArrayList<String>();
+        command.add(jvm);
+        command.add("-XX:ArchiveClassesAtExit=" + archiveFile.getAbsolutePath());
+        command.add("-cp");
+        command.add(StringUtils.join(classpath.iterator(), File.pathSeparator));
+        command.add("org.junit.runner.JUnitCore");
+        command.addAll(classes);
+        if (getLog().isDebugEnabled()) {
+            getLog().debug("Training command: " + command);
+        }
+        getLog().info(String.format("Running %s contract suites to create %s", classes.size(), archiveFile));
+
+        BufferedReader reader = null;
+        try {
+            final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+            String line = reader.readLine();
+            while (line != null) {
+                getLog().debug(line);
+                line = reader.readLine();
+            }
+            final int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                // test failures do not prevent the archive from being written.
+                getLog().info("Training invocation exited with " + exitCode);
+            }
+        } catch (final IOException e) {
+            throw new MojoExecutionException("Unable to run " + jvm, e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while creating CDS archive", e);
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+
+        if (!archiveFile.exists()) {
+            getLog().warn("CDS archive was not created, the JVM may not support -XX:ArchiveClassesAtExit");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Add the <code>-XX:SharedArchiveFile</code> argument to the project
+     * property.
+     */
+    private void addArgument() {
+        final Properties properties = project.getProperties();
+        final String arg = "-XX:SharedArchiveFile=" + archiveFile.getAbsolutePath();
+        final String current = properties.getProperty(propertyName);
+        if (StringUtils.isBlank(current)) {
+            properties.setProperty(propertyName, arg);
+        } else if (!current.contains(arg)) {
+            properties.setProperty(propertyName, current + " " + arg);
+        }
+        getLog().info(String.format("%s set to %s", propertyName, properties.getProperty(propertyName)));
+    }
+}
@@ -0,0 +1,58 @@
+package org.xenei.contracts.maven;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.xenei.junit.contract.perf.PerformanceResults;
+
+/**
+ * Remove the performance results and resource usage files of earlier builds.
+ * <p>
+ * Each test JVM writes its own results files, so the files of earlier builds
+ * are not replaced by later ones and would be included in the reports. Run
+ * this goal once before the tests, it is bound to the initialize phase by
+ * default.
+ * </p>
+ */
+@Mojo(name = "clean-results", defaultPhase = LifecyclePhase.INITIALIZE)
+public class CleanResultsMojo extends AbstractMojo {
+
+    /**
+     * The directory the contract tests write performance results to. Must
+     * match the <code>performanceResults</code> parameter of the contract-test
+     * goal.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/contract-perf")
+    private File performanceResults;
+
+    /**
+     * If true the goal is skipped.
+     */
+    @Parameter(property = "contracts.results.keep", defaultValue = "false")
+    private boolean skip;
+
+    public CleanResultsMojo() {
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Keeping performance results in " + performanceResults);
+            return;
+        }
+        try {
+            final int count = PerformanceResults.clear(performanceResults);
+            if (count > 0) {
+                getLog().info(String.format("Removed %s performance results files from %s", count,
+                        performanceResults));
+            }
+        } catch (final IOException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -37,6 +38,10 @@ import org.xenei.classpathutils.filter.parser.Parser;
 import org.xenei.junit.contract.Contract;
 import org.xenei.junit.contract.ContractImpl;
 import org.xenei.junit.contract.NoContractTest;
+import org.xenei.junit.contract.perf.Measurement;
+import org.xenei.junit.contract.perf.PerformanceBaseline;
+import org.xenei.junit.contract.perf.PerformanceResults;
+import org.xenei.junit.contract.perf.ResourceUsage;
 import org.xenei.junit.contract.tooling.InterfaceInfo;
 import org.xenei.junit.contract.tooling.InterfaceReport;
 
@@ -93,6 +98,71 @@ public class ContractMojo extends AbstractMojo {
     @Parameter
     private ReportConfig errors;
 
+    /**
+     * Report configuration for the performance comparison of the
+     * implementations of each contract. The filter is applied to the
+     * implementation class names.
+     */
+    @Parameter
+    private ReportConfig performance = new ReportConfig();
+
+    /**
+     * The directory the contract tests write performance results to. The
+     * results are written when the tests run so the performance report is only
+     * produced when the goal runs after the tests, for example in the verify
+     * phase.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/contract-perf")
+    private File performanceResults;
+
+    /**
+     * Report configuration for the ranking of contracts, implementations and
+     * tests by the resources they used. The tests record their resource use
+     * when the <code>contracts.resources</code> system property is true. The
+     * filter is applied to the implementation class names.
+     */
+    @Parameter
+    private ReportConfig resources = new ReportConfig();
+
+    /**
+     * Report configuration for performance regressions. Regressions are
+     * results that are worse than the baseline by more than the
+     * regressionThreshold with a significance of at least the
+     * regressionSignificance. Results with fewer than two samples are only
+     * reported as advisory and do not fail the build. The filter is applied to
+     * the implementation class names.
+     */
+    @Parameter
+    private ReportConfig regressions = new ReportConfig();
+
+    /**
+     * The performance baseline file. It should be kept under version control
+     * with the tests.
+     */
+    @Parameter(defaultValue = "${basedir}/contract-perf.baseline")
+    private File baseline;
+
+    /**
+     * The fraction of the baseline a result must be worse by to be a
+     * regression. Defaults to 0.1 (10%).
+     */
+    @Parameter(property = "contracts.regression.threshold", defaultValue = "0.1")
+    private double regressionThreshold;
+
+    /**
+     * The largest p-value of Welch's t-test that is a significant regression.
+     * Defaults to 0.05.
+     */
+    @Parameter(property = "contracts.regression.significance", defaultValue = "0.05")
+    private double regressionSignificance;
+
+    /**
+     * If true the baseline is updated with the current performance results
+     * instead of being checked for regressions.
+     */
+    @Parameter(property = "contracts.baseline.update", defaultValue = "false")
+    private boolean updateBaseline;
+
     @Parameter(defaultValue = "${project.build.outputDirectory}", readonly = true)
     private File classDir;
 
@@ -154,6 +224,18 @@ public class ContractMojo extends AbstractMojo {
         this.unimplemented = unimplemented;
     }
 
+    public void setPerformance(ReportConfig performance) {
+        this.performance = performance;
+    }
+
+    public void setResources(ReportConfig resources) {
+        this.resources = resources;
+    }
+
+    public void setRegressions(ReportConfig regressions) {
+        this.regressions = regressions;
+    }
+
     /**
      * If true the build will fail if there is an error in the mojo. Defaults to
      * <code>true</code>
@@ -223,6 +305,12 @@ public class ContractMojo extends AbstractMojo {
 
             success &= doReportErrors(ir.getErrors());
 
+            success &= doReportPerformance();
+
+            success &= doReportRegressions();
+
+            success &= doReportResources();
+
             if (!success) {
                 mojoError(failureMessage.toString());
             }
@@ -408,6 +496,159 @@ public class ContractMojo extends AbstractMojo {
         return true;
     }
 
+    /**
+     * Read the performance results for the implementations accepted by the
+     * report filter.
+     * 
+     * @param config
+     *            the report configuration.
+     * @return the measurements or null if they could not be read.
+     */
+    private List<Measurement> readPerformanceResults(final ReportConfig config) {
+        final List<Measurement> measurements = new ArrayList<Measurement>();
+        try {
+            for (final Measurement m : PerformanceResults.read(performanceResults)) {
+                if (config.getFilter().accept(m.getImplementation())) {
+                    measurements.add(m);
+                }
+            }
+        } catch (final IOException e) {
+            addFailureMessage("Unable to read performance results", e);
+            return null;
+        } catch (final IllegalArgumentException e) {
+            addFailureMessage("Unable to read performance results", e);
+            return null;
+        }
+        if (measurements.isEmpty()) {
+            getLog().info("No performance results in " + performanceResults);
+        }
+        return measurements;
+    }
+
+    private boolean doReportPerformance() {
+        if (!performance.isReporting()) {
+            return true;
+        }
+        final List<Measurement> measurements = readPerformanceResults(performance);
+        if (measurements == null) {
+            return false;
+        }
+        if (measurements.isEmpty()) {
+            return true;
+        }
+        try {
+            new PerformanceReport(measurements).write(myDir);
+        } catch (final IOException e) {
+            addFailureMessage("Unable to write performance report", e);
+            return false;
+        }
+        getLog().info(String.format("Performance report of %s results written to %s", measurements.size(), myDir));
+        return true;
+    }
+
+    private boolean doReportRegressions() {
+        if (!regressions.isReporting() && !updateBaseline) {
+            return true;
+        }
+        final List<Measurement> measurements = readPerformanceResults(regressions);
+        if (measurements == null) {
+            return false;
+        }
+        if (measurements.isEmpty()) {
+            return true;
+        }
+        final PerformanceBaseline base;
+        try {
+            base = PerformanceBaseline.read(baseline);
+        } catch (final IOException e) {
+            addFailureMessage("Unable to read performance baseline", e);
+            return false;
+        } catch (final IllegalArgumentException e) {
+            addFailureMessage("Unable to read performance baseline", e);
+            return false;
+        }
+
+        if (updateBaseline) {
+            base.update(measurements);
+            try {
+                base.write(baseline);
+            } catch (final IOException e) {
+                addFailureMessage("Unable to write performance baseline", e);
+                return false;
+            }
+            getLog().info(String.format("Performance baseline %s updated with %s results", baseline,
+                    measurements.size()));
+            return true;
+        }
+
+        if (base.isEmpty()) {
+            getLog().info(String.format(
+                    "No performance baseline in %s, run with -Dcontracts.baseline.update=true to create it",
+                    baseline));
+            return true;
+        }
+
+        final List<PerformanceBaseline.Regression> found = base.compare(measurements, regressionThreshold,
+                regressionSignificance);
+        BufferedWriter bw = null;
+        int significant = 0;
+        try {
+            bw = new BufferedWriter(new FileWriter(new File(myDir, "regressions.txt")));
+            for (final PerformanceBaseline.Regression regression : found) {
+                if (regression.isAdvisory()) {
+                    getLog().info("Possible performance regression " + regression);
+                } else {
+                    getLog().warn("Performance regression " + regression);
+                    significant++;
+                }
+                bw.write(regression.toString());
+                bw.newLine();
+            }
+        } catch (final IOException e) {
+            addFailureMessage("Unable to write regression report", e);
+            return false;
+        } finally {
+            IOUtils.closeQuietly(bw);
+        }
+        // advisory regressions could not be tested for significance.
+        if (significant > 0 && regressions.isFailOnError()) {
+            addFailureMessage("Performance Regressions Exist");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean doReportResources() {
+        if (!resources.isReporting()) {
+            return true;
+        }
+        final List<ResourceUsage> usage = new ArrayList<ResourceUsage>();
+        try {
+            for (final ResourceUsage u : PerformanceResults.readUsage(performanceResults)) {
+                if (resources.getFilter().accept(u.getImplementation())) {
+                    usage.add(u);
+                }
+            }
+        } catch (final IOException e) {
+            addFailureMessage("Unable to read resource usage", e);
+            return false;
+        } catch (final IllegalArgumentException e) {
+            addFailureMessage("Unable to read resource usage", e);
+            return false;
+        }
+        if (usage.isEmpty()) {
+            return true;
+        }
+        try {
+            new ResourceReport(usage).write(myDir);
+        } catch (final IOException e) {
+            addFailureMessage("Unable to write resource report", e);
+            return false;
+        }
+        getLog().info(String.format("Resource report of %s tests written to %s", usage.size(), myDir));
+        return true;
+    }
+
     private ClassLoader buildClassLoader() throws MojoExecutionException {
         final ClassWorld world = new ClassWorld();
         ClassRealm realm;
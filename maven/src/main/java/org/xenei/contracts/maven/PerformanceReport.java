@@ -0,0 +1,192 @@
+package org.xenei.contracts.maven;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.io.IOUtils;
+import org.xenei.junit.contract.perf.Measurement;
+
+/**
+ * Compares the performance of the implementations of each contract.
+ * <p>
+ * Measurements are grouped by contract, method and metric. Within a group each
+ * implementation is compared to the best one: the fastest for times and
+ * latencies, the highest for throughputs (units starting with
+ * <code>ops/</code>).
+ * </p>
+ */
+public class PerformanceReport {
+
+    // contract -> method metric -> implementation -> measurement
+    private final Map<String, Map<String, Map<String, Measurement>>> groups;
+
+    /**
+     * Constructor.
+     * 
+     * @param measurements
+     *            the measurements to compare. Later measurements replace
+     *            earlier ones for the same implementation.
+     */
+    public PerformanceReport(final Collection<Measurement> measurements) {
+        groups = new TreeMap<String, Map<String, Map<String, Measurement>>>();
+        for (final Measurement m : measurements) {
+            Map<String, Map<String, Measurement>> contract = groups.get(m.getContract());
+            if (contract == null) {
+                contract = new TreeMap<String, Map<String, Measurement>>();
+                groups.put(m.getContract(), contract);
+            }
+            final String key = m.getMethod() + " " + m.getMetric();
+            Map<String, Measurement> impls = contract.get(key);
+            if (impls == null) {
+                impls = new TreeMap<String, Measurement>();
+                contract.put(key, impls);
+            }
+            impls.put(m.getImplementation(), m);
+        }
+    }
+
+    /**
+     * Calculate how many times worse than the best each implementation is.
+     * 
+     * @param impls
+     *            the measurements of one method and metric by implementation.
+     * @return the ratio to the best by implementation, 1.0 for the best.
+     */
+    public static Map<String, Double> relative(final Map<String, Measurement> impls) {
+        double best = Double.NaN;
+        for (final Measurement m : impls.values()) {
+            if (Double.isNaN(best)) {
+                best = m.getMean();
+            } else {
+                best = m.isHigherBetter() ? Math.max(best, m.getMean()) : Math.min(best, m.getMean());
+            }
+        }
+        final Map<String, Double> result = new LinkedHashMap<String, Double>();
+        for (final Map.Entry<String, Measurement> entry : impls.entrySet()) {
+            final double mean = entry.getValue().getMean();
+            final double ratio;
+            if (mean == best) {
+                ratio = 1.0;
+            } else if (entry.getValue().isHigherBetter()) {
+                ratio = mean == 0 ? Double.POSITIVE_INFINITY : best / mean;
+            } else {
+                ratio = best == 0 ? Double.POSITIVE_INFINITY : mean / best;
+            }
+            result.put(entry.getKey(), ratio);
+        }
+        return result;
+    }
+
+    /**
+     * @return true if there are no measurements.
+     */
+    public boolean isEmpty() {
+        return groups.isEmpty();
+    }
+
+    /**
+     * Get the measurements grouped by contract, then by method and metric,
+     * then by implementation.
+     * 
+     * @return the groups.
+     */
+    public Map<String, Map<String, Map<String, Measurement>>> getGroups() {
+        return groups;
+    }
+
+    /**
+     * Write <code>performance.txt</code> and <code>performance.csv</code> to
+     * the directory.
+     * 
+     * @param dir
+     *            the report directory.
+     * @throws IOException
+     *             on error.
+     */
+    public void write(final File dir) throws IOException {
+        writeText(new File(dir, "performance.txt"));
+        writeCsv(new File(dir, "performance.csv"));
+    }
+
+    private void writeText(final File file) throws IOException {
+        BufferedWriter bw = null;
+        try {
+            bw = new BufferedWriter(new FileWriter(file));
+            bw.write("Performance of each implementation compared to the best implementation of the contract");
+            bw.newLine();
+            bw.write("----------------------------------------------------------------------------------------");
+            bw.newLine();
+            for (final Map.Entry<String, Map<String, Map<String, Measurement>>> contract : groups.entrySet()) {
+                bw.newLine();
+                bw.write("Contract: " + contract.getKey());
+                bw.newLine();
+                for (final Map.Entry<String, Map<String, Measurement>> group : contract.getValue().entrySet()) {
+                    final Measurement first = group.getValue().values().iterator().next();
+                    bw.write(String.format("  %s (%s, %s)", group.getKey(), first.getUnit(),
+                            first.isHigherBetter() ? "higher is better" : "lower is better"));
+                    bw.newLine();
+                    int width = 0;
+                    for (final String impl : group.getValue().keySet()) {
+                        width = Math.max(width, impl.length());
+                    }
+                    final Map<String, Double> ratios = relative(group.getValue());
+                    for (final String impl : sortByRatio(ratios)) {
+                        final Measurement m = group.getValue().get(impl);
+                        final double ratio = ratios.get(impl);
+                        bw.write(String.format(Locale.ROOT, "    %-" + width
+                                + "s %14.3f +/- %-12.3f p99 %-14.3f %8.2fx%s", impl, m.getMean(), m.getStdDev(),
+                                m.getP99(), ratio, ratio == 1.0 ? " best" : ""));
+                        bw.newLine();
+                    }
+                }
+            }
+        } finally {
+            IOUtils.closeQuietly(bw);
+        }
+    }
+
+    private void writeCsv(final File file) throws IOException {
+        BufferedWriter bw = null;
+        try {
+            bw = new BufferedWriter(new FileWriter(file));
+            bw.write("contract,method,metric,unit,implementation,count,mean,stddev,min,max,p50,p90,p99,p99.9,relative");
+            bw.newLine();
+            for (final Map<String, Map<String, Measurement>> contract : groups.values()) {
+                for (final Map<String, Measurement> group : contract.values()) {
+                    final Map<String, Double> ratios = relative(group);
+                    for (final Measurement m : group.values()) {
+                        bw.write(String.format(Locale.ROOT, "%s,%s,\"%s\",%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%.4f",
+                                m.getContract(), m.getMethod(), m.getMetric(), m.getUnit(), m.getImplementation(),
+                                m.getCount(), m.getMean(), m.getStdDev(), m.getMin(), m.getMax(), m.getP50(),
+                                m.getP90(), m.getP99(), m.getP999(), ratios.get(m.getImplementation())));
+                        bw.newLine();
+                    }
+                }
+            }
+        } finally {
+            IOUtils.closeQuietly(bw);
+        }
+    }
+
+    private static List<String> sortByRatio(final Map<String, Double> ratios) {
+        final List<String> result = new ArrayList<String>(ratios.keySet());
+        Collections.sort(result, new Comparator<String>() {
+            @Override
+            public int compare(final String a, final String b) {
+                return Double.compare(ratios.get(a), ratios.get(b));
+            }
+        });
+        return result;
+    }
+}
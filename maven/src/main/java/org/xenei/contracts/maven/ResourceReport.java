@@ -0,0 +1,237 @@
+package org.xenei.contracts.maven;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.xenei.junit.contract.perf.ResourceUsage;
+
+/**
+ * Ranks the contracts, implementations and tests by the resources they used.
+ * <p>
+ * The resource use of each test is summed by implementation and by contract and
+ * the totals are ranked by CPU time, largest first. Values that could not be
+ * measured are shown as <code>n/a</code>.
+ * </p>
+ */
+public class ResourceReport {
+
+    /**
+     * The number of tests listed in the ranking of tests.
+     */
+    public static final int TOP_TESTS = 20;
+
+    private final List<ResourceUsage> usage;
+
+    /**
+     * Constructor.
+     * 
+     * @param usage
+     *            the resource use of the tests.
+     */
+    public ResourceReport(final Collection<ResourceUsage> usage) {
+        this.usage = new ArrayList<ResourceUsage>(usage);
+    }
+
+    /**
+     * Sum the resource use by implementation.
+     * 
+     * @return the totals ranked by CPU time.
+     */
+    public List<Totals> byImplementation() {
+        final Map<String, Totals> totals = new HashMap<String, Totals>();
+        for (final ResourceUsage u : usage) {
+            total(totals, u.getImplementation()).add(u);
+        }
+        return rank(totals.values());
+    }
+
+    /**
+     * Sum the resource use by contract.
+     * 
+     * @return the totals ranked by CPU time.
+     */
+    public List<Totals> byContract() {
+        final Map<String, Totals> totals = new HashMap<String, Totals>();
+        for (final ResourceUsage u : usage) {
+            total(totals, u.getContract()).add(u);
+        }
+        return rank(totals.values());
+    }
+
+    /**
+     * Rank the tests.
+     * 
+     * @return the resource use of each test ranked by CPU time.
+     */
+    public List<Totals> byTest() {
+        final List<Totals> totals = new ArrayList<Totals>();
+        for (final ResourceUsage u : usage) {
+            final Totals t = new Totals(String.format("%s.%s(%s)", u.getContract(), u.getMethod(),
+                    u.getImplementation()));
+            t.add(u);
+            totals.add(t);
+        }
+        return rank(totals);
+    }
+
+    private static Totals total(final Map<String, Totals> totals, final String name) {
+        Totals t = totals.get(name);
+        if (t == null) {
+            t = new Totals(name);
+            totals.put(name, t);
+        }
+        return t;
+    }
+
+    private static List<Totals> rank(final Collection<Totals> totals) {
+        final List<Totals> result = new ArrayList<Totals>(totals);
+        Collections.sort(result, new Comparator<Totals>() {
+            @Override
+            public int compare(final Totals a, final Totals b) {
+                final int cmp = Long.compare(b.cpuTime, a.cpuTime);
+                return cmp == 0 ? Long.compare(b.elapsed, a.elapsed) : cmp;
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Write <code>resources.txt</code> to the directory.
+     * 
+     * @param dir
+     *            the report directory.
+     * @throws IOException
+     *             on error.
+     */
+    public void write(final File dir) throws IOException {
+        BufferedWriter bw = null;
+        try {
+            bw = new BufferedWriter(new FileWriter(new File(dir, "resources.txt")));
+            bw.write("Resources used by the contract tests ranked by CPU time");
+            bw.newLine();
+            bw.write("-------------------------------------------------------");
+            bw.newLine();
+            writeSection(bw, "Implementations", byImplementation());
+            writeSection(bw, "Contracts", byContract());
+            final List<Totals> tests = byTest();
+            writeSection(bw, String.format("Top %s tests", TOP_TESTS),
+                    tests.subList(0, Math.min(TOP_TESTS, tests.size())));
+        } finally {
+            IOUtils.closeQuietly(bw);
+        }
+    }
+
+    private void writeSection(final BufferedWriter bw, final String title, final List<Totals> totals)
+            throws IOException {
+        bw.newLine();
+        bw.write(title);
+        bw.newLine();
+        bw.write(String.format("  %6s %12s %12s %14s %8s %10s  %s", "tests", "elapsed ms", "cpu ms", "allocated MB",
+                "gc", "gc ms", "name"));
+        bw.newLine();
+        for (final Totals t : totals) {
+            bw.write(String.format("  %6s %12s %12s %14s %8s %10s  %s", t.tests, format(t.elapsed, 1e6),
+                    format(t.cpuTime, 1e6), format(t.allocated, 1024 * 1024), format(t.gcCount, 0),
+                    format(t.gcTime, 0), t.name));
+            bw.newLine();
+        }
+    }
+
+    private static String format(final long value, final double divisor) {
+        if (value < 0) {
+            return "n/a";
+        }
+        return divisor == 0 ? Long.toString(value) : String.format(Locale.ROOT, "%.1f", value / divisor);
+    }
+
+    /**
+     * The resources used by a group of tests.
+     */
+    public static class Totals {
+        private final String name;
+        private int tests;
+        private long elapsed;
+        private long cpuTime;
+        private long allocated;
+        private long gcCount;
+        private long gcTime;
+
+        Totals(final String name) {
+            this.name = name;
+        }
+
+        private void add(final ResourceUsage u) {
+            tests++;
+            elapsed += u.getElapsed();
+            cpuTime = add(cpuTime, u.getCpuTime());
+            allocated = add(allocated, u.getAllocated());
+            gcCount = add(gcCount, u.getGcCount());
+            gcTime = add(gcTime, u.getGcTime());
+        }
+
+        // unknown values make the total unknown.
+        private static long add(final long total, final long value) {
+            return total < 0 || value < 0 ? -1 : total + value;
+        }
+
+        /**
+         * @return the name of the implementation, contract or test.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the number of tests.
+         */
+        public int getTests() {
+            return tests;
+        }
+
+        /**
+         * @return the elapsed time in nanoseconds.
+         */
+        public long getElapsed() {
+            return elapsed;
+        }
+
+        /**
+         * @return the CPU time in nanoseconds, -1 if unknown.
+         */
+        public long getCpuTime() {
+            return cpuTime;
+        }
+
+        /**
+         * @return the allocated bytes, -1 if unknown.
+         */
+        public long getAllocated() {
+            return allocated;
+        }
+
+        /**
+         * @return the number of garbage collections, -1 if unknown.
+         */
+        public long getGcCount() {
+            return gcCount;
+        }
+
+        /**
+         * @return the garbage collection time in milliseconds, -1 if unknown.
+         */
+        public long getGcTime() {
+            return gcTime;
+        }
+    }
+}
@@ -9,14 +9,19 @@ import java.util.Collection;
 import org.junit.After;
 import org.junit.Before;
 import org.xenei.junit.contract.Contract;
+import org.xenei.junit.contract.ContractBenchmark;
+import org.xenei.junit.contract.ContractComplexity;
 import org.xenei.junit.contract.ContractTest;
 import org.xenei.junit.contract.IProducer;
+import org.xenei.junit.contract.perf.Complexity;
 
 @Contract(Collection.class)
 public class CollectionTest {
 
 	private IProducer<Collection<Object>> producer;
 	private Collection<Object> c;
+	// keeps the iterated elements from being optimized away.
+	private Object sink;
 
 	@Contract.Inject
 	public void setCollection(IProducer<Collection<Object>> producer) {
@@ -42,4 +47,33 @@ public class CollectionTest {
 	public void size() throws Exception {
 		assertEquals(0, c.size());
 	}
+
+	/**
+	 * Adding and removing an element from the collection.
+	 */
+	@ContractBenchmark
+	public void addRemove() {
+		c.add("x");
+		c.remove("x");
+	}
+
+	/**
+	 * A full iteration visits every element once.
+	 */
+	@ContractComplexity(Complexity.LINEAR)
+	public Runnable iterate(int size) {
+		// a new instance so that the elements are all the same type.
+		final Collection<Object> populated = producer.newInstance();
+		for (int i = 0; i < size; i++) {
+			populated.add(i);
+		}
+		return new Runnable() {
+			@Override
+			public void run() {
+				for (Object o : populated) {
+					sink = o;
+				}
+			}
+		};
+	}
 }
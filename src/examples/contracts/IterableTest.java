@@ -10,6 +10,7 @@ import java.util.NoSuchElementException;
 import org.junit.After;
 import org.junit.Before;
 import org.xenei.junit.contract.Contract;
+import org.xenei.junit.contract.ContractBenchmark;
 import org.xenei.junit.contract.ContractTest;
 import org.xenei.junit.contract.IProducer;
 
@@ -53,4 +54,12 @@ public class IterableTest {
 			// expected
 		}
 	}
+
+	/**
+	 * The cost of starting an iteration. Run with -Dcontracts.benchmark=true.
+	 */
+	@ContractBenchmark
+	public void iterator() {
+		it.iterator().hasNext();
+	}
 }
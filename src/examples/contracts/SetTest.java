@@ -9,14 +9,19 @@ import java.util.Set;
 import org.junit.After;
 import org.junit.Before;
 import org.xenei.junit.contract.Contract;
+import org.xenei.junit.contract.ContractBenchmark;
+import org.xenei.junit.contract.ContractComplexity;
 import org.xenei.junit.contract.ContractTest;
 import org.xenei.junit.contract.IProducer;
+import org.xenei.junit.contract.perf.Complexity;
 
 @Contract(Set.class)
 public class SetTest {
 
 	private IProducer<Set<Object>> producer;
 	private Set<Object> c;
+	// keeps the results from being optimized away.
+	private boolean found;
 
 	@Contract.Inject
 	public void setSet(IProducer<Set<Object>> producer) {
@@ -46,4 +51,53 @@ public class SetTest {
 		c.add("World");
 		assertTrue(c.contains("World"));
 	}
+
+	/**
+	 * Looking up a present and a missing element.
+	 */
+	@ContractBenchmark
+	public void containsThroughput() {
+		found = c.contains("Hello") && !c.contains("World");
+	}
+
+	/**
+	 * Hashed sets are constant time, sorted sets logarithmic, so no set may
+	 * be worse than O(log n).
+	 */
+	@ContractComplexity(Complexity.LOG_N)
+	public Runnable containsScaling(int size) {
+		final Set<Object> populated = populate(size);
+		final Integer missing = size;
+		return new Runnable() {
+			@Override
+			public void run() {
+				found = populated.contains(17) && !populated.contains(missing);
+			}
+		};
+	}
+
+	/**
+	 * Adding and removing an element is no worse than O(log n).
+	 */
+	@ContractComplexity(Complexity.LOG_N)
+	public Runnable addRemoveScaling(int size) {
+		final Set<Object> populated = populate(size);
+		final Integer extra = size;
+		return new Runnable() {
+			@Override
+			public void run() {
+				populated.add(extra);
+				populated.remove(extra);
+			}
+		};
+	}
+
+	// a new instance so that the elements are all the same type.
+	private Set<Object> populate(int size) {
+		Set<Object> populated = producer.newInstance();
+		for (int i = 0; i < size; i++) {
+			populated.add(i);
+		}
+		return populated;
+	}
 }
@@ -9,14 +9,19 @@ import java.util.SortedSet;
 import org.junit.After;
 import org.junit.Before;
 import org.xenei.junit.contract.Contract;
+import org.xenei.junit.contract.ContractBenchmark;
+import org.xenei.junit.contract.ContractComplexity;
 import org.xenei.junit.contract.ContractTest;
 import org.xenei.junit.contract.IProducer;
+import org.xenei.junit.contract.perf.Complexity;
 
 @Contract(SortedSet.class)
 public class SortedSetTest {
 
 	private IProducer<SortedSet<Object>> producer;
 	private SortedSet<Object> c;
+	// keeps the results from being optimized away.
+	private Object sink;
 
 	@Contract.Inject
 	public void setSet(IProducer<SortedSet<Object>> producer) {
@@ -42,4 +47,77 @@ public class SortedSetTest {
 		assertEquals("a", c.first());
 	     assertEquals("c", c.last());
     }
+
+	/**
+	 * Creating a range view and reading its ends.
+	 */
+	@ContractBenchmark
+	public void rangeView() {
+		SortedSet<Object> view = c.subSet("a", "c");
+		sink = view.first();
+		sink = view.last();
+	}
+
+	/**
+	 * The first element of a range is found by search, not by scanning
+	 * the elements before it.
+	 */
+	@ContractComplexity(Complexity.LOG_N)
+	public Runnable subSetFirst(int size) {
+		final SortedSet<Object> populated = populate(size);
+		final Integer from = size / 2;
+		final Integer to = size / 2 + 10;
+		return new Runnable() {
+			@Override
+			public void run() {
+				sink = populated.subSet(from, to).first();
+			}
+		};
+	}
+
+	/**
+	 * The ends of the set are found without scanning.
+	 */
+	@ContractComplexity(Complexity.LOG_N)
+	public Runnable firstLast(int size) {
+		final SortedSet<Object> populated = populate(size);
+		return new Runnable() {
+			@Override
+			public void run() {
+				sink = populated.first();
+				sink = populated.last();
+			}
+		};
+	}
+
+	/**
+	 * Iterating a range of fixed length does not depend on the size of the
+	 * set.
+	 */
+	@ContractComplexity(Complexity.LOG_N)
+	public Runnable tailSetIterate(int size) {
+		final SortedSet<Object> populated = populate(size);
+		final Integer from = size / 2;
+		return new Runnable() {
+			@Override
+			public void run() {
+				int count = 0;
+				for (Object o : populated.tailSet(from)) {
+					sink = o;
+					if (++count == 10) {
+						break;
+					}
+				}
+			}
+		};
+	}
+
+	// a new instance so that the elements are all Integers.
+	private SortedSet<Object> populate(int size) {
+		SortedSet<Object> populated = producer.newInstance();
+		for (int i = 0; i < size; i++) {
+			populated.add(i);
+		}
+		return populated;
+	}
 }
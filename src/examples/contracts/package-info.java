@@ -1,5 +1,7 @@
 /**
  * This is the set of contract tests from the example in the README document.
+ * The tests also declare performance contracts: benchmarks of iteration, contains,
+ * add/remove and range views, and the complexity each operation must not exceed.
  * These tests are provided as examples and are not to be considered complete or production ready.
  */
-package contracts;
\ No newline at end of file
+package contracts;
@@ -1,5 +1,8 @@
 /**
  * This is the set of contract test suites from the example in the README document.
+ * Run with -Dcontracts.benchmark=true to check the complexity contracts and
+ * measure the benchmarks. The results written to target/contract-perf compare the
+ * JDK sets and serve as a baseline for other set implementations.
  * These tests are provided as examples and are not to be considered complete or production ready.
  */
-package contracttests;
\ No newline at end of file
+package contracttests;